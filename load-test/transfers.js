@@ -0,0 +1,88 @@
+// Нагрузочный тест: переводы между двумя картами пользователя и опрос баланса.
+// Переводы блокируют строки карт (SELECT ... FOR UPDATE), поэтому часть запросов
+// ждет на блокировках, а часть — на соединении из пула. Параллельно раз в секунду
+// администратор выгружает карты: потоковое тело ответа пишется на асинхронном
+// исполнителе Spring MVC (applicationTaskExecutor), единственной асинхронной работе приложения.
+//
+// k6 run -e BASE_URL=http://localhost:8080 -e VUS=500 load-test/transfers.js
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+    scenarios: {
+        transfers: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 500),
+            duration: __ENV.DURATION || '2m',
+        },
+        export: {
+            executor: 'constant-arrival-rate',
+            exec: 'exportCards',
+            rate: 1,
+            timeUnit: '1s',
+            preAllocatedVUs: 5,
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{name:transfer}': ['p(99)<2000'],
+        'http_req_duration{name:balance}': ['p(99)<500'],
+        'http_req_duration{name:export}': ['p(99)<10000'],
+    },
+};
+
+function signIn(phoneNumber, password) {
+    const res = http.post(`${BASE_URL}/sign-in`, JSON.stringify({ phoneNumber, password }), { headers: JSON_HEADERS });
+    check(res, { 'sign-in 200': (r) => r.status === 200 });
+    return res.json('token');
+}
+
+function auth(token) {
+    return { headers: Object.assign({ Authorization: `Bearer ${token}` }, JSON_HEADERS) };
+}
+
+export function setup() {
+    const admin = auth(signIn('+79991112233', 'Qwe123456'));
+    const user = auth(signIn('+79991112239', 'Qwe654321'));
+
+    // Вторая карта пользователя (id=2 из начальных данных) с балансом на обеих
+    const created = http.post(`${BASE_URL}/admin/create-card/2`, null, admin);
+    check(created, { 'card created': (r) => r.status === 201 });
+    http.post(`${BASE_URL}/admin/activate-card/${created.json('id')}`, null, admin);
+
+    const cards = http.get(`${BASE_URL}/cards?size=100`, user).json('content');
+    const ids = cards.filter((c) => c.status === 'ACTIVE').map((c) => c.id).slice(0, 2);
+    ids.forEach((cardId) =>
+        http.post(`${BASE_URL}/admin/add-ballance`, JSON.stringify({ cardId, sum: 1000000 }), admin));
+
+    return {
+        token: user.headers.Authorization.substring('Bearer '.length),
+        adminToken: admin.headers.Authorization.substring('Bearer '.length),
+        ids,
+    };
+}
+
+export default function (data) {
+    const params = auth(data.token);
+    const [from, to] = Math.random() < 0.5 ? data.ids : [data.ids[1], data.ids[0]];
+
+    if (Math.random() < 0.3) {
+        const res = http.post(`${BASE_URL}/transfer-between-cards`,
+            JSON.stringify({ fromCardId: from, toCardId: to, sum: 1 }),
+            Object.assign({ tags: { name: 'transfer' } }, params));
+        check(res, { 'transfer 200': (r) => r.status === 200 });
+    } else {
+        const res = http.get(`${BASE_URL}/check-ballance/${from}`, Object.assign({ tags: { name: 'balance' } }, params));
+        check(res, { 'balance 200': (r) => r.status === 200 });
+    }
+}
+
+export function exportCards(data) {
+    const res = http.get(`${BASE_URL}/admin/export-cards`, Object.assign({ tags: { name: 'export' } }, auth(data.adminToken)));
+    check(res, { 'export 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.benchmark;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.example.bankcards.security.JwtKeyRing;
+import com.example.bankcards.security.JwtKeyRingProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+
+
+/**
+ * Стоимость проверки access-токена для каждого поддерживаемого алгоритма подписи
+ *
+ * <p>Токен и парсер готовятся заранее, измеряется только {@code parseSignedClaims}:
+ * разбор, выбор ключа по kid и проверка подписи - то же, что делает
+ * {@code JwtAuthenticationFilter} на каждый запрос</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private static final String LEGACY_KEY = "53A73E3F1C4E0A2D3B5F2D084E6B1B423D6F247D1F6E5C9A596D635A75327855";
+
+    @Param({"HS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtKeyRingProperties properties = new JwtKeyRingProperties();
+        properties.setKey(LEGACY_KEY);
+
+        if (algorithm.equals("HS256")) {
+            properties.setActiveKid(JwtKeyRing.DEFAULT_KID);
+        } else {
+            KeyPairGenerator generator;
+            if (algorithm.equals("ES256")) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                generator = KeyPairGenerator.getInstance("Ed25519");
+            }
+            KeyPair pair = generator.generateKeyPair();
+
+            JwtKeyRingProperties.KeyProperties key = new JwtKeyRingProperties.KeyProperties();
+            key.setKid("bench");
+            key.setAlgorithm(algorithm);
+            key.setPrivateKey(Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+            key.setPublicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+            properties.setKeys(List.of(key));
+            properties.setActiveKid("bench");
+        }
+
+        JwtKeyRing ring = JwtKeyRing.from(properties);
+        parser = Jwts.parser().keyLocator(ring).build();
+        token = ring.sign(Jwts.builder()
+                .id("6f1c1a52-2f0c-4c1a-9d38-7f7c3f0d1e2a")
+                .subject("user_ade1a2a6d161")
+                .claim("id", 1L)
+                .claim("role", "ROLE_USER")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1))))
+                .compact();
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
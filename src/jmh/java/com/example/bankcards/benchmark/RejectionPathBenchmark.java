@@ -0,0 +1,125 @@
+package com.example.bankcards.benchmark;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.example.bankcards.config.logging.RepeatedFailureFilter;
+import com.example.bankcards.exception.CardException.CardTransferMoneyException;
+import com.example.bankcards.exception.ErrorResponse;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.helpers.NOPAppender;
+
+
+/**
+ * Стоимость отказа в переводе "Недостаточно средств" до и после перехода на бизнес-исключения без стека
+ *
+ * <p>{@code legacy} повторяет прежний путь: исключение со стеком и {@code String.format} в
+ * конструкторе, {@code Instant.now()} в ответе и запись каждого отказа в лог. {@code current} -
+ * {@link CardTransferMoneyException} без стека, {@link ErrorResponse} с кэшированными часами и
+ * лог с {@link RepeatedFailureFilter}. Исключение бросается с глубины {@code depth} кадров,
+ * как из сервиса под цепочкой фильтров Spring. Лог пишет в пустой appender, поэтому
+ * форматирование и вывод записей, которые в приложении делает асинхронный appender, не учитываются</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionPathBenchmark {
+    private static final String FAILURE_LOGGER = "com.example.bankcards.BusinessFailure";
+
+    @Param({"20", "120"})
+    private int depth;
+
+    private LoggerContext legacyContext;
+    private LoggerContext currentContext;
+    private Logger legacyLog;
+    private Logger currentLog;
+
+    @Setup
+    public void setUp() {
+        legacyContext = new LoggerContext();
+        legacyLog = logger(legacyContext);
+
+        currentContext = new LoggerContext();
+        RepeatedFailureFilter filter = new RepeatedFailureFilter();
+        filter.setLoggerName(FAILURE_LOGGER);
+        filter.setContext(currentContext);
+        filter.start();
+        currentContext.addTurboFilter(filter);
+        currentLog = logger(currentContext);
+    }
+
+    @TearDown
+    public void tearDown() {
+        legacyContext.stop();
+        currentContext.stop();
+    }
+
+    @Benchmark
+    public ErrorResponse legacy() {
+        try {
+            throwAt(depth, true);
+            return null;
+        } catch (LegacyTransferMoneyException ex) {
+            legacyLog.warn("Card transfer exception : {}", ex.getMessage());
+            return new ErrorResponse("CARD_TRANSFER_FAILED", ex.getMessage(), Instant.now());
+        }
+    }
+
+    @Benchmark
+    public ErrorResponse current() {
+        try {
+            throwAt(depth, false);
+            return null;
+        } catch (CardTransferMoneyException ex) {
+            currentLog.warn("{}: {}", ex.getCode(), ex.getMessage());
+            return ErrorResponse.of(ex);
+        }
+    }
+
+
+    private static void throwAt(int frames, boolean legacy) {
+        if (frames > 0) {
+            throwAt(frames - 1, legacy);
+            return;
+        }
+        if (legacy) {
+            throw new LegacyTransferMoneyException(1L, 2L, "Недостаточно средств");
+        }
+        throw new CardTransferMoneyException(1L, 2L, "Недостаточно средств");
+    }
+
+    private static Logger logger(LoggerContext context) {
+        NOPAppender<ILoggingEvent> appender = new NOPAppender<>();
+        appender.setContext(context);
+        appender.start();
+        Logger logger = context.getLogger(FAILURE_LOGGER);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+
+    /**
+     * Прежняя реализация {@link CardTransferMoneyException}
+     */
+    private static class LegacyTransferMoneyException extends RuntimeException {
+        LegacyTransferMoneyException(Long sourceCardId, Long targetCardId, String reason) {
+            super(String.format("Ошибка перевода между картами %d и %d: %s", sourceCardId, targetCardId, reason));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.bankcards.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.entity.Card;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+
+/**
+ * Ограниченный кэш баланса, статуса и владельца карт для запросов баланса
+ *
+ * <p>Изменения карт попадают в кэш только после коммита транзакции, поэтому
+ * откаченный перевод никогда не виден в кэше. Запись с меньшей версией строки
+ * не заменяет запись с большей, так что поздно завершившаяся загрузка из базы
+ * не затирает результат более нового коммита. Массовые UPDATE и удаления
+ * не возвращают новое состояние и просто вытесняют карты из кэша</p>
+ */
+@Component
+public class CardBalanceCache {
+    private final Cache<Long, CardBalanceSnapshot> cache;
+    private final ObjectProvider<CardCacheInvalidationPublisher> publisher;
+
+    public CardBalanceCache(
+            @Value("${app.cache.card-balance.max-size}") long maxSize,
+            @Value("${app.cache.card-balance.expire-after-write}") Duration expireAfterWrite,
+            ObjectProvider<CardCacheInvalidationPublisher> publisher,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.publisher = publisher;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cardBalance");
+    }
+
+
+    /**
+     * Возвращает состояние карты из кэша или загружает его
+     *
+     * @param cardId идентификатор карты
+     * @param loader загрузка из базы; исключение пробрасывается и ничего не кэширует
+     * @return состояние карты
+     */
+    public CardBalanceSnapshot get(Long cardId, Function<Long, CardBalanceSnapshot> loader) {
+        return cache.get(cardId, loader);
+    }
+
+    /**
+     * Кладет состояние в кэш, если в нем нет записи с большей версией
+     */
+    public void put(CardBalanceSnapshot snapshot) {
+        cache.asMap().merge(snapshot.cardId(), snapshot,
+                (current, fresh) -> fresh.version() >= current.version() ? fresh : current);
+    }
+
+    /**
+     * Обновляет кэш состоянием карты после коммита текущей транзакции
+     *
+     * <p>Снимок берется в момент коммита, когда версия строки уже увеличена.
+     * Вне транзакции кэш обновляется сразу</p>
+     *
+     * @param card сохраненная карта
+     */
+    public void updateAfterCommit(Card card) {
+        AfterCommit.run(() -> {
+            put(CardBalanceSnapshot.of(card));
+            publisher.ifAvailable(p -> p.cardsChanged(List.of(card.getId())));
+        });
+    }
+
+    /**
+     * Вытесняет карты после коммита текущей транзакции
+     *
+     * @param cardIds идентификаторы карт
+     */
+    public void evictAfterCommit(Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(cardIds);
+        AfterCommit.run(() -> {
+            invalidateLocal(ids);
+            publisher.ifAvailable(p -> p.cardsChanged(ids));
+        });
+    }
+
+    /**
+     * Вытесняет карты удаленных пользователей после коммита текущей транзакции
+     *
+     * @param ownerIds идентификаторы удаленных пользователей
+     */
+    public void evictOwnersAfterCommit(Collection<Long> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(ownerIds);
+        AfterCommit.run(() -> {
+            invalidateOwnersLocal(ids);
+            publisher.ifAvailable(p -> p.ownersRemoved(ids));
+        });
+    }
+
+    /**
+     * Вытесняет карты только из локального кэша, без рассылки
+     */
+    public void invalidateLocal(Collection<Long> cardIds) {
+        cache.invalidateAll(cardIds);
+    }
+
+    /**
+     * Вытесняет из локального кэша карты указанных владельцев, без рассылки
+     */
+    public void invalidateOwnersLocal(Collection<Long> ownerIds) {
+        Set<Long> owners = Set.copyOf(ownerIds);
+        cache.asMap().values().removeIf(snapshot -> owners.contains(snapshot.ownerId()));
+    }}
@@ -0,0 +1,23 @@
+package com.example.bankcards.cache;
+
+import java.math.BigDecimal;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.entity.Card;
+
+
+/**
+ * Состояние карты, достаточное для ответа на запрос баланса
+ *
+ * @param cardId идентификатор карты
+ * @param ownerId идентификатор владельца
+ * @param status статус карты
+ * @param balance баланс
+ * @param version версия строки; более старая версия не заменяет более новую в кэше
+ */
+public record CardBalanceSnapshot(Long cardId, Long ownerId, CARD_STATUS status, BigDecimal balance, long version) {
+
+    public static CardBalanceSnapshot of(Card card) {
+        return new CardBalanceSnapshot(card.getId(), card.getOwner().getId(), card.getStatus(),
+                card.getBallance(), card.getVersion() == null ? 0 : card.getVersion());
+    }
+}
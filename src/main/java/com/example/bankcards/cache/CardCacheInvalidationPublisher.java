@@ -0,0 +1,26 @@
+package com.example.bankcards.cache;
+
+import java.util.Collection;
+
+
+/**
+ * Рассылает другим экземплярам приложения сведения об измененных картах
+ *
+ * <p>Вызывается после коммита. Получатель на своей стороне вызывает
+ * {@link CardBalanceCache#invalidateLocal} или {@link CardBalanceCache#invalidateOwnersLocal};
+ * транспорт (LISTEN/NOTIFY, Redis, брокер сообщений) выбирается реализацией.
+ * Если бина нет, кэш работает только локально, а устаревание на других экземплярах
+ * ограничено {@code app.cache.card-balance.expire-after-write}</p>
+ */
+public interface CardCacheInvalidationPublisher {
+
+    /**
+     * @param cardIds карты, состояние которых изменилось или которые удалены
+     */
+    void cardsChanged(Collection<Long> cardIds);
+
+    /**
+     * @param ownerIds удаленные пользователи, чьи карты удалены вместе с ними
+     */
+    void ownersRemoved(Collection<Long> ownerIds);
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.cache;
+
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.entity.CardDetails;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Вытесняет из кэша второго уровня Hibernate данные, измененные в обход сущностей
+ *
+ * <p>Нативные UPDATE/DELETE с RETURNING выполняются как запросы на чтение, поэтому
+ * Hibernate не помечает таблицы измененными и не сбрасывает кэш запросов. Каскадное
+ * удаление карт вместе с пользователем тоже проходит мимо Hibernate. Без профиля
+ * {@code l2cache} кэш выключен и вызовы ничего не делают</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheInvalidator {
+    public static final String CARD_PAGES_REGION = "card-pages";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+
+    /**
+     * Сбрасывает кэшированные страницы карт после коммита массовой смены статуса
+     */
+    public void cardsChangedInBulk() {
+        AfterCommit.run(this::evictCardPages);
+    }
+
+    /**
+     * Сбрасывает регион пользователей после изменения строк USER_TABLE через JDBC
+     */
+    public void usersChangedInBulk() {
+        AfterCommit.run(() -> entityManagerFactory.getCache().evict(User.class));
+    }
+
+    /**
+     * Вытесняет удаленные карты после коммита
+     *
+     * @param cardIds идентификаторы удаленных карт
+     */
+    public void cardsRemoved(Collection<Long> cardIds) {
+        List<Long> ids = List.copyOf(cardIds);
+        AfterCommit.run(() -> {
+            ids.forEach(id -> entityManagerFactory.getCache().evict(CardDetails.class, id));
+            evictCardPages();
+        });
+    }
+
+    /**
+     * Вытесняет удаленных пользователей и их карты после коммита
+     *
+     * <p>Идентификаторы карт удаленных пользователей неизвестны, поэтому
+     * регион неизменяемых данных карт сбрасывается целиком</p>
+     *
+     * @param ownerIds идентификаторы удаленных пользователей
+     */
+    public void ownersRemoved(Collection<Long> ownerIds) {
+        List<Long> ids = List.copyOf(ownerIds);
+        AfterCommit.run(() -> {
+            ids.forEach(id -> entityManagerFactory.getCache().evict(User.class, id));
+            entityManagerFactory.getCache().evict(CardDetails.class);
+            evictCardPages();
+        });
+    }
+
+
+    private void evictCardPages() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(CARD_PAGES_REGION);
+    }
+}
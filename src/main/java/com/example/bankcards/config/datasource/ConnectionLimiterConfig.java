@@ -0,0 +1,63 @@
+package com.example.bankcards.config.datasource;
+
+import java.time.Duration;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.connection-limiter", name = "enabled", havingValue = "true")
+public class ConnectionLimiterConfig {
+
+
+    /**
+     * Оборачивает пул HikariCP в {@link ConnectionLimitingDataSource}
+     *
+     * <p>Количество разрешений равно размеру пула, поэтому потоки сверх него
+     * ждут на семафоре, а не внутри HikariCP</p>
+     *
+     * @param environment окружение для чтения таймаута ожидания
+     * @return пост-процессор бина DataSource
+     */
+    @Bean
+    public static BeanPostProcessor connectionLimiterPostProcessor(Environment environment) {
+        Duration acquireTimeout = environment.getProperty(
+                "app.datasource.connection-limiter.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+
+        return new LimitingPostProcessor(acquireTimeout);
+    }
+
+
+    /**
+     * Выполняется раньше пост-процессоров без порядка, чтобы обертки над пулом
+     * (например учет SQL-запросов) видели уже ограниченный пул
+     */
+    private static final class LimitingPostProcessor implements BeanPostProcessor, Ordered {
+        private final Duration acquireTimeout;
+
+        private LimitingPostProcessor(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                log.info("Limiting {} to {} concurrent connections", beanName, hikari.getMaximumPoolSize());
+                return new ConnectionLimitingDataSource(hikari, hikari.getMaximumPoolSize(), acquireTimeout);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
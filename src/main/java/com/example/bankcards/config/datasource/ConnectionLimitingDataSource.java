@@ -0,0 +1,111 @@
+package com.example.bankcards.config.datasource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+
+/**
+ * Ограничивает количество одновременно выданных соединений семафором
+ *
+ * <p>При работе на виртуальных потоках число одновременных запросов не ограничено
+ * пулом потоков Tomcat, и тысячи потоков начинают ждать соединение внутри пула
+ * HikariCP. Семафор с честной очередью держит их в JVM: ожидание дешевое, порядок
+ * выдачи FIFO, а таймаут ожидания задается явно</p>
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    public ConnectionLimitingDataSource(DataSource target, int maxConnections, Duration acquireTimeout) {
+        super(target);
+        this.permits = new Semaphore(maxConnections, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return количество потоков, ожидающих соединение
+     */
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * @return количество свободных разрешений
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("Connection is not available, request timed out after "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private Connection limited(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        if (!released.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                    if (method.getName().equals("isClosed") && released.get()) {
+                        return true;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
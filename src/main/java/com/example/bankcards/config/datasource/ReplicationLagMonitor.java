@@ -0,0 +1,75 @@
+package com.example.bankcards.config.datasource;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Следит за отставанием реплики и решает, можно ли читать с нее
+ *
+ * <p>Реплика считается пригодной, только если последняя проверка прошла успешно и
+ * отставание не превышает {@code max-lag}. При ошибке проверки или большом отставании
+ * read-only транзакции уходят на основную базу до следующей успешной проверки</p>
+ */
+@Slf4j
+public class ReplicationLagMonitor {
+    /**
+     * Отставание в секундах для PostgreSQL; на простаивающем primary
+     * {@code pg_last_xact_replay_timestamp()} не обновляется, поэтому при
+     * полностью применённом WAL отставание считается нулевым
+     */
+    public static final String POSTGRES_LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicationLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+    }
+
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval}")
+    public void check() {
+        try {
+            Double lag = replica.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag == null ? 0 : lag;
+            boolean nowUsable = lagSeconds <= maxLagSeconds;
+            if (nowUsable != usable) {
+                log.info("Read replica {} (lag {}s)", nowUsable ? "enabled" : "disabled", lagSeconds);
+            }
+            usable = nowUsable;
+        } catch (RuntimeException e) {
+            if (usable) {
+                log.warn("Read replica disabled, lag check failed: {}", e.getMessage());
+            }
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * @return отставание по последней проверке в секундах или NaN, если проверка не удалась
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.bankcards.config.datasource;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ConfigurationCondition;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Основной пул, пулы классов нагрузки, пул реплики и маршрутизирующий источник поверх них
+ *
+ * <p>Включается, если задан {@code app.datasource.replica.enabled} или
+ * {@code app.datasource.workloads.enabled}. Пулы объявлены отдельными бинами, поэтому
+ * Spring Boot публикует метрики HikariCP для каждого из них (тег {@code pool}). Тип бинов
+ * {@link HikariDataSource} нужен для привязки {@code hikari.*} свойств; зависимости ниже
+ * берут их как {@link DataSource}, потому что ограничитель соединений может обернуть пул.
+ * JPA, Liquibase и JdbcTemplate получают {@link Primary} источник</p>
+ */
+@Configuration
+@Conditional(RoutingDataSourceConfig.RoutingEnabled.class)
+public class RoutingDataSourceConfig {
+
+    @Value("${app.datasource.replica.service-package}")
+    private String servicePackage;
+
+
+    static class RoutingEnabled extends AnyNestedCondition {
+        RoutingEnabled() {
+            super(ConfigurationCondition.ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+        static class ReplicaEnabled {
+        }
+
+        @ConditionalOnProperty(prefix = "app.datasource.workloads", name = "enabled", havingValue = "true")
+        static class WorkloadsEnabled {
+        }
+    }
+
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties properties) {
+        return pool(properties, WorkloadRoutingDataSource.PRIMARY);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.datasource.workloads", name = "enabled", havingValue = "true")
+    @ConfigurationProperties("app.datasource.workloads.auth.hikari")
+    public HikariDataSource authPool(DataSourceProperties properties) {
+        return pool(properties, WorkloadType.AUTH.getPoolName());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.datasource.workloads", name = "enabled", havingValue = "true")
+    @ConfigurationProperties("app.datasource.workloads.money.hikari")
+    public HikariDataSource moneyPool(DataSourceProperties properties) {
+        return pool(properties, WorkloadType.MONEY.getPoolName());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.datasource.workloads", name = "enabled", havingValue = "true")
+    @ConfigurationProperties("app.datasource.workloads.reporting.hikari")
+    public HikariDataSource reportingPool(DataSourceProperties properties) {
+        return pool(properties, WorkloadType.REPORTING.getPoolName());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.datasource.workloads", name = "enabled", havingValue = "true")
+    public WorkloadAspect workloadAspect() {
+        return new WorkloadAspect();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaPool(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username}") String username,
+            @Value("${app.datasource.replica.password}") String password) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setReadOnly(true);
+        pool.setPoolName(WorkloadRoutingDataSource.REPLICA);
+        return pool;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+    public ReplicationLagMonitor replicationLagMonitor(@Qualifier("replicaPool") DataSource replicaPool,
+            @Value("${app.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${app.datasource.replica.max-lag}") Duration maxLag,
+            MeterRegistry meterRegistry) {
+        ReplicationLagMonitor monitor = new ReplicationLagMonitor(replicaPool,
+                lagQuery.isBlank() ? ReplicationLagMonitor.POSTGRES_LAG_QUERY : lagQuery, maxLag);
+        monitor.check();
+
+        Gauge.builder("datasource.replica.lag", monitor, ReplicationLagMonitor::getLagSeconds)
+                .description("Отставание реплики по последней проверке")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", monitor, m -> m.isReplicaUsable() ? 1 : 0)
+                .description("1 если read-only транзакции направляются на реплику")
+                .register(meterRegistry);
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryPool") DataSource primaryPool,
+            @Qualifier("authPool") ObjectProvider<DataSource> authPool,
+            @Qualifier("moneyPool") ObjectProvider<DataSource> moneyPool,
+            @Qualifier("reportingPool") ObjectProvider<DataSource> reportingPool,
+            @Qualifier("replicaPool") ObjectProvider<DataSource> replicaPool,
+            ObjectProvider<ReplicationLagMonitor> lagMonitor) {
+        Map<WorkloadType, DataSource> workloadPools = new EnumMap<>(WorkloadType.class);
+        authPool.ifAvailable(pool -> workloadPools.put(WorkloadType.AUTH, pool));
+        moneyPool.ifAvailable(pool -> workloadPools.put(WorkloadType.MONEY, pool));
+        reportingPool.ifAvailable(pool -> workloadPools.put(WorkloadType.REPORTING, pool));
+
+        return new LazyConnectionDataSourceProxy(new WorkloadRoutingDataSource(primaryPool, workloadPools,
+                replicaPool.getIfAvailable(), lagMonitor.getIfAvailable(), servicePackage));
+    }
+
+
+    private static HikariDataSource pool(DataSourceProperties properties, String poolName) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName(poolName);
+        return pool;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.config.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Относит метод сервиса (или все методы класса) к классу нагрузки
+ *
+ * <p>Соединения, полученные во время вызова, берутся из пула этого класса,
+ * если включены {@code app.datasource.workloads}. Класс нагрузки определяет
+ * самый внешний аннотированный вызов</p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Workload {
+    WorkloadType value();
+}
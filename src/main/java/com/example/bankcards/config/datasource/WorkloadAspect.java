@@ -0,0 +1,56 @@
+package com.example.bankcards.config.datasource;
+
+import java.lang.reflect.Method;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+
+
+/**
+ * Запоминает класс нагрузки текущего потока на время вызова метода с {@link Workload}
+ *
+ * <p>Выполняется раньше транзакционного прокси, поэтому класс нагрузки известен
+ * к моменту, когда транзакция впервые берет соединение</p>
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadAspect {
+    private static final ThreadLocal<WorkloadType> CURRENT = new ThreadLocal<>();
+
+
+    /**
+     * @return класс нагрузки текущего потока или null вне аннотированных вызовов
+     */
+    public static WorkloadType currentWorkload() {
+        return CURRENT.get();
+    }
+
+    @Around("@within(com.example.bankcards.config.datasource.Workload) || @annotation(com.example.bankcards.config.datasource.Workload)")
+    public Object withWorkload(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (CURRENT.get() != null) {
+            return joinPoint.proceed();
+        }
+
+        CURRENT.set(resolve(joinPoint));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private WorkloadType resolve(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(), targetClass);
+        Workload workload = AnnotatedElementUtils.findMergedAnnotation(method, Workload.class);
+        if (workload == null) {
+            workload = AnnotatedElementUtils.findMergedAnnotation(targetClass, Workload.class);
+        }
+        return workload.value();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.config.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+
+/**
+ * Выбирает пул соединений по классу нагрузки и признаку read-only транзакции
+ *
+ * <ul>
+ *     <li>read-only транзакции классов из {@code servicePackage} идут на реплику,
+ *     если она настроена и {@link ReplicationLagMonitor} считает ее пригодной;</li>
+ *     <li>остальные обращения внутри вызова с {@link Workload} идут в пул его класса нагрузки;</li>
+ *     <li>все прочее идет в основной пул.</li>
+ * </ul>
+ *
+ * <p>Собственные read-only транзакции Spring Data (findById, findAll вне сервисной транзакции)
+ * на реплику не попадают, чтобы проверки владельца карты и вход сразу после регистрации видели
+ * только что записанные данные. Решение принимается при первом обращении к соединению, поэтому
+ * источник нужно оборачивать в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}</p>
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final Map<WorkloadType, DataSource> workloadPools;
+    private final ReplicationLagMonitor lagMonitor;
+    private final String servicePackage;
+
+    /**
+     * @param primary основной пул
+     * @param workloadPools пулы классов нагрузки, может быть пустым
+     * @param replica пул реплики или null
+     * @param lagMonitor монитор отставания реплики или null, если реплики нет
+     * @param servicePackage пакет сервисов, чьи read-only транзакции можно читать с реплики
+     */
+    public WorkloadRoutingDataSource(DataSource primary, Map<WorkloadType, DataSource> workloadPools,
+            DataSource replica, ReplicationLagMonitor lagMonitor, String servicePackage) {
+        this.workloadPools = Map.copyOf(workloadPools);
+        this.lagMonitor = lagMonitor;
+        this.servicePackage = servicePackage;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        workloadPools.forEach((workload, pool) -> targets.put(workload.getPoolName(), pool));
+        if (replica != null) {
+            targets.put(REPLICA, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (lagMonitor != null && isReplicaRead() && lagMonitor.isReplicaUsable()) {
+            return REPLICA;
+        }
+
+        WorkloadType workload = WorkloadAspect.currentWorkload();
+        if (workload != null && workloadPools.containsKey(workload)) {
+            return workload.getPoolName();
+        }
+        return PRIMARY;
+    }
+
+    private boolean isReplicaRead() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        return transactionName != null && transactionName.startsWith(servicePackage);
+    }
+}
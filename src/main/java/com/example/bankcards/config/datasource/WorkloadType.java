@@ -0,0 +1,27 @@
+package com.example.bankcards.config.datasource;
+
+
+/**
+ * Классы нагрузки, для которых выделяются отдельные пулы соединений
+ */
+public enum WorkloadType {
+    /** вход, регистрация, refresh и отзыв токенов */
+    AUTH("auth"),
+    /** переводы и пополнения, держащие блокировки FOR UPDATE */
+    MONEY("money"),
+    /** списки и выгрузки администратора */
+    REPORTING("reporting");
+
+    private final String poolName;
+
+    WorkloadType(String poolName) {
+        this.poolName = poolName;
+    }
+
+    /**
+     * @return имя пула HikariCP и ключ маршрутизации
+     */
+    public String getPoolName() {
+        return poolName;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.bankcards.config.logging;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Marker;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
+
+
+/**
+ * Прореживает одинаковые записи одного лога до создания события logback
+ *
+ * <p>Записи считаются одинаковыми, если совпадают их аргументы; вместо аргумента
+ * {@link SampledArgument} сравнивается его ключ. Для лога бизнес-отказов это код ошибки и
+ * причина отказа без идентификаторов карт, поэтому число разных записей ограничено числом
+ * видов отказов. За окно {@code window} пропускается не больше {@code allowedRepetitions}
+ * одинаковых записей, остальные отбрасываются. Когда после окна приходит следующая такая же
+ * запись, перед ней пишется число скрытых повторов. Запоминается не больше {@code cacheSize}
+ * разных записей, при переполнении счетчики сбрасываются</p>
+ *
+ * <p>Подключается в {@code logback-spring.xml} как {@code turboFilter}</p>
+ */
+public class RepeatedFailureFilter extends TurboFilter {
+    static final String SUPPRESSED_FORMAT = "{} identical records suppressed during the last window: {}";
+
+    private final Map<List<Object>, Window> windows = new ConcurrentHashMap<>();
+
+    private String loggerName;
+    private int allowedRepetitions = 5;
+    private long windowMillis = 10_000;
+    private int cacheSize = 1024;
+
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (params == null || format == SUPPRESSED_FORMAT || !logger.getName().equals(loggerName)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        List<Object> key = samplingKey(params);
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= cacheSize) {
+                windows.clear();
+            }
+            window = windows.computeIfAbsent(key, k -> new Window());
+        }
+
+        long now = System.currentTimeMillis();
+        long suppressed = window.rollIfExpired(now, windowMillis);
+        if (suppressed > 0) {
+            logger.warn(SUPPRESSED_FORMAT, suppressed, key);
+        }
+        return window.tryAcquire(allowedRepetitions) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+
+    private static List<Object> samplingKey(Object[] params) {
+        Object[] key = params.clone();
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] instanceof SampledArgument argument) {
+                key[i] = argument.samplingKey();
+            }
+        }
+        return Arrays.asList(key);
+    }
+
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setAllowedRepetitions(int allowedRepetitions) {
+        this.allowedRepetitions = allowedRepetitions;
+    }
+
+    public void setWindow(Duration window) {
+        this.windowMillis = window.getMilliseconds();
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public void start() {
+        if (loggerName == null) {
+            addError("loggerName is not set for " + getName());
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        windows.clear();
+        super.stop();
+    }
+
+
+    private static final class Window {
+        private long startedAt = -1;
+        private int count;
+        private long suppressed;
+
+        synchronized long rollIfExpired(long now, long windowMillis) {
+            if (startedAt >= 0 && now - startedAt < windowMillis) {
+                return 0;
+            }
+            long previous = suppressed;
+            startedAt = now;
+            count = 0;
+            suppressed = 0;
+            return previous;
+        }
+
+        synchronized boolean tryAcquire(int allowed) {
+            if (count < allowed) {
+                count++;
+                return true;
+            }
+            suppressed++;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.config.logging;
+
+
+/**
+ * Аргумент записи лога со своим ключом прореживания для {@link RepeatedFailureFilter}
+ *
+ * <p>Фильтр сравнивает записи по {@link #samplingKey()} вместо самого аргумента, поэтому
+ * идентификаторы в тексте сообщения не делают одинаковые отказы разными, а текст строится
+ * только для записей, которые фильтр пропустил</p>
+ */
+public interface SampledArgument {
+
+    /**
+     * @return ключ, по которому записи с этим аргументом считаются одинаковыми
+     */
+    Object samplingKey();
+}
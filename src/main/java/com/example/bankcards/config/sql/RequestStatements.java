@@ -0,0 +1,117 @@
+package com.example.bankcards.config.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * SQL-запросы, выполненные потоком в рамках одного вызова эндпоинта
+ *
+ * <p>Одинаковые по тексту запросы считаются вместе: подготовленный запрос содержит
+ * {@code ?} вместо параметров, поэтому цикл, загружающий или удаляющий записи по одной,
+ * дает один текст с большим счетчиком — признак N+1</p>
+ */
+public final class RequestStatements {
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final int budget;
+    private final int nPlusOneThreshold;
+    private final boolean enforce;
+    private final Map<String, Integer> bySql = new HashMap<>();
+
+    private int total;
+    private String mostRepeatedSql;
+    private int mostRepeatedCount;
+
+    private RequestStatements(String endpoint, int budget, int nPlusOneThreshold, boolean enforce) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.enforce = enforce;
+    }
+
+
+    /**
+     * Начинает учет запросов текущего потока
+     */
+    static RequestStatements begin(String endpoint, int budget, int nPlusOneThreshold, boolean enforce) {
+        RequestStatements statements = new RequestStatements(endpoint, budget, nPlusOneThreshold, enforce);
+        CURRENT.set(statements);
+        return statements;
+    }
+
+    /**
+     * @return учет текущего потока или null вне вызова эндпоинта
+     */
+    static RequestStatements current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Завершает учет запросов текущего потока
+     *
+     * @return завершенный учет или null, если он не начинался
+     */
+    static RequestStatements end() {
+        RequestStatements statements = CURRENT.get();
+        CURRENT.remove();
+        return statements;
+    }
+
+
+    /**
+     * Учитывает запрос перед выполнением
+     *
+     * @param sql текст запроса
+     * @throws StatementBudgetExceededException в режиме enforce, если бюджет или порог N+1 превышен
+     */
+    void record(String sql) {
+        total++;
+        int count = bySql.merge(sql, 1, Integer::sum);
+        if (count > mostRepeatedCount) {
+            mostRepeatedCount = count;
+            mostRepeatedSql = sql;
+        }
+
+        if (!enforce) {
+            return;
+        }
+        if (exceedsBudget()) {
+            throw new StatementBudgetExceededException(
+                    "%s executed more than %d SQL statements".formatted(endpoint, budget));
+        }
+        if (hasNPlusOne()) {
+            throw new StatementBudgetExceededException(
+                    "%s executed the same statement %d times (N+1): %s".formatted(endpoint, count, sql));
+        }
+    }
+
+    boolean exceedsBudget() {
+        return total > budget;
+    }
+
+    boolean hasNPlusOne() {
+        return mostRepeatedCount >= nPlusOneThreshold;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public String getMostRepeatedSql() {
+        return mostRepeatedSql;
+    }
+
+    public int getMostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+}
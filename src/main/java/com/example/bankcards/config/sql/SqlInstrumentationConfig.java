@@ -0,0 +1,82 @@
+package com.example.bankcards.config.sql;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import com.example.bankcards.config.datasource.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+
+/**
+ * Учет SQL-запросов через прокси datasource-proxy вместо {@code spring.jpa.show-sql}
+ *
+ * <p>Оборачивается каждый пул HikariCP, а не маршрутизирующий источник над ними, поэтому
+ * запрос учитывается ровно один раз и с именем пула. Пул, уже обернутый ограничителем
+ * соединений, оборачивается вместе с ним</p>
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.sql.instrumentation", name = "enabled", havingValue = "true")
+public class SqlInstrumentationConfig implements WebMvcConfigurer {
+
+    @Value("${app.sql.statement-budget.default}")
+    private int defaultBudget;
+
+    @Value("${app.sql.statement-budget.n-plus-one-threshold}")
+    private int nPlusOneThreshold;
+
+    @Value("${app.sql.statement-budget.enforce}")
+    private boolean enforce;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public SqlInstrumentationConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    /**
+     * Оборачивает пулы HikariCP в прокси datasource-proxy с {@link SqlStatementListener}
+     *
+     * @param environment окружение для чтения порога медленных запросов
+     * @param meterRegistry реестр метрик, берется при первом запросе
+     * @return пост-процессор бинов DataSource
+     */
+    @Bean
+    public static BeanPostProcessor sqlInstrumentationPostProcessor(Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        SqlStatementListener listener = new SqlStatementListener(meterRegistry,
+                environment.getProperty("app.sql.slow-query-threshold", Duration.class, Duration.ofMillis(200)),
+                environment.getProperty("app.sql.log-parameters", Boolean.class, true));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource || bean instanceof ConnectionLimitingDataSource) {
+                    log.info("Recording SQL statements of {}", beanName);
+                    return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                            .listener(listener)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementBudgetInterceptor(meterRegistry.getObject(), defaultBudget,
+                nPlusOneThreshold, enforce));
+    }
+}
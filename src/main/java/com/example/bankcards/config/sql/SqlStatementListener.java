@@ -0,0 +1,98 @@
+package com.example.bankcards.config.sql;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import net.ttddyy.dsproxy.listener.logging.QueryLogEntryCreator;
+
+
+/**
+ * Учитывает каждый SQL-запрос, прошедший через пулы соединений
+ *
+ * <p>Время запроса попадает в таймер {@code sql.query} с тегами {@code type},
+ * {@code outcome} и {@code datasource}. Запросы дольше {@code app.sql.slow-query-threshold}
+ * пишутся в лог {@code com.example.bankcards.sql.SlowQuery} вместе с параметрами; у этого
+ * лога асинхронный appender, поэтому запись не задерживает поток запроса. Внутри вызова
+ * эндпоинта запрос также учитывается в {@link RequestStatements}</p>
+ */
+public class SqlStatementListener implements QueryExecutionListener {
+    static final String SLOW_QUERY_LOGGER = "com.example.bankcards.sql.SlowQuery";
+    private static final Logger slowQueryLog = LoggerFactory.getLogger(SLOW_QUERY_LOGGER);
+    private static final String START_NANOS = SqlStatementListener.class.getName() + ".start";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long slowQueryNanos;
+    private final boolean logParameters;
+    private final QueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public SqlStatementListener(ObjectProvider<MeterRegistry> meterRegistry, Duration slowQueryThreshold,
+            boolean logParameters) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+        this.logParameters = logParameters;
+    }
+
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+
+        RequestStatements statements = RequestStatements.current();
+        if (statements != null && !queryInfoList.isEmpty()) {
+            statements.record(queryInfoList.get(0).getQuery());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (start == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+
+        QueryType type = queryInfoList.isEmpty()
+                ? QueryType.OTHER
+                : QueryUtils.getQueryType(queryInfoList.get(0).getQuery());
+        timer(type, execInfo.isSuccess(), execInfo.getDataSourceName()).record(nanos, TimeUnit.NANOSECONDS);
+
+        if (nanos >= slowQueryNanos && slowQueryLog.isWarnEnabled()) {
+            slowQueryLog.warn("Slow query {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos), describe(execInfo, queryInfoList));
+        }
+    }
+
+    private String describe(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (logParameters) {
+            return logEntryCreator.getLogEntry(execInfo, queryInfoList, true, false, false);
+        }
+        return queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+    }
+
+    private Timer timer(QueryType type, boolean success, String dataSource) {
+        String outcome = success ? "success" : "error";
+        String name = dataSource == null ? "" : dataSource;
+        return timers.computeIfAbsent(type + ":" + outcome + ":" + name, key -> Timer.builder("sql.query")
+                .description("Время выполнения SQL-запросов")
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .tag("datasource", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry.getObject()));
+    }
+}
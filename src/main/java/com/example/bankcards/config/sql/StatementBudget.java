@@ -0,0 +1,21 @@
+package com.example.bankcards.config.sql;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Максимальное число SQL-запросов за один вызов эндпоинта
+ *
+ * <p>Ставится на метод или класс контроллера; без аннотации действует
+ * {@code app.sql.statement-budget.default}</p>
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StatementBudget {
+    int value();
+}
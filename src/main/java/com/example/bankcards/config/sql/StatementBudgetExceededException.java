@@ -0,0 +1,14 @@
+package com.example.bankcards.config.sql;
+
+
+/**
+ * Запрос к эндпоинту выполнил больше SQL-запросов, чем разрешено его бюджетом,
+ * или повторил один и тот же запрос больше порога N+1
+ *
+ * <p>Бросается только при {@code app.sql.statement-budget.enforce=true}, то есть в тестах</p>
+ */
+public class StatementBudgetExceededException extends RuntimeException {
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
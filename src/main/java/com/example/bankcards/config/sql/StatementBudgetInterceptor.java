@@ -0,0 +1,105 @@
+package com.example.bankcards.config.sql;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Считает SQL-запросы каждого вызова эндпоинта и сверяет их с бюджетом
+ *
+ * <p>Число запросов публикуется в {@code http.server.sql.statements} с тегами
+ * {@code method} и {@code uri} (шаблон пути, а не сам путь). Превышение бюджета и
+ * повтор одного запроса больше порога N+1 пишутся в лог и считаются в
+ * {@code http.server.sql.budget.exceeded} и {@code http.server.sql.n-plus-one}.
+ * Запросы фильтров безопасности и асинхронной досылки ответа не учитываются</p>
+ */
+@Slf4j
+public class StatementBudgetInterceptor implements AsyncHandlerInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final int defaultBudget;
+    private final int nPlusOneThreshold;
+    private final boolean enforce;
+
+    public StatementBudgetInterceptor(MeterRegistry meterRegistry, int defaultBudget, int nPlusOneThreshold,
+            boolean enforce) {
+        this.meterRegistry = meterRegistry;
+        this.defaultBudget = defaultBudget;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.enforce = enforce;
+    }
+
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST && handler instanceof HandlerMethod method) {
+            RequestStatements.begin(request.getMethod() + " " + uri(request), budget(method), nPlusOneThreshold, enforce);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        complete(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        complete(request);
+    }
+
+    private void complete(HttpServletRequest request) {
+        RequestStatements statements = RequestStatements.end();
+        if (statements == null) {
+            return;
+        }
+
+        String method = request.getMethod();
+        String uri = uri(request);
+        DistributionSummary.builder("http.server.sql.statements")
+                .description("SQL-запросы за один вызов эндпоинта")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements.getTotal());
+
+        if (statements.exceedsBudget()) {
+            log.warn("{} executed {} SQL statements, budget is {}",
+                    statements.getEndpoint(), statements.getTotal(), statements.getBudget());
+            counter("http.server.sql.budget.exceeded", method, uri).increment();
+        }
+        if (statements.hasNPlusOne()) {
+            log.warn("Possible N+1 in {}: statement executed {} times: {}",
+                    statements.getEndpoint(), statements.getMostRepeatedCount(), statements.getMostRepeatedSql());
+            counter("http.server.sql.n-plus-one", method, uri).increment();
+        }
+    }
+
+    private Counter counter(String name, String method, String uri) {
+        return Counter.builder(name)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+    private int budget(HandlerMethod method) {
+        StatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(method.getMethod(), StatementBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(method.getBeanType(), StatementBudget.class);
+        }
+        return budget == null ? defaultBudget : budget.value();
+    }
+
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+}
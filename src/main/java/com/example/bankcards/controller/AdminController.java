@@ -4,9 +4,19 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.example.bankcards.dto.AddBallanceRequestDTO;
+import com.example.bankcards.dto.BulkCardStatusRequest;
+import com.example.bankcards.dto.BulkCardStatusResponse;
+import com.example.bankcards.dto.BulkDeleteUsersRequest;
+import com.example.bankcards.dto.BulkDeleteUsersResponse;
+import com.example.bankcards.config.sql.StatementBudget;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.SpendingLimitRequest;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.entity.SpendingLimit;
+import com.example.bankcards.feed.CardStatusFeed;
 import com.example.bankcards.service.DAO.AdminServiceDAO;
+import com.example.bankcards.util.CardExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -17,12 +27,18 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -31,6 +47,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 @RequiredArgsConstructor
 public class AdminController {
     private final AdminServiceDAO adminService;
+    private final CardStatusFeed statusFeed;
     
 
 
@@ -130,6 +147,62 @@ public class AdminController {
         
         return ResponseEntity.status(200).build();
     }
+
+
+
+    /**
+     * Блокирует набор карт (ACTIVE, INACTIVE или PENDING_BLOCK)
+     *
+     * @param request список ID карт или граница времени последней смены статуса
+     * @return ResponseEntity с измененными и пропущенными ID карт и статусом 200 (OK)
+     */
+
+    @PostMapping("/bulk/block")
+    public ResponseEntity<BulkCardStatusResponse> bulkBlock(@RequestBody @Valid BulkCardStatusRequest request) {
+        return ResponseEntity.status(200).body(adminService.changeCardsStatus(CardStatusTransition.BLOCK, request));
+    }
+
+
+
+    /**
+     * Активирует набор карт (INACTIVE или BLOCKED)
+     *
+     * @param request список ID карт или граница времени последней смены статуса
+     * @return ResponseEntity с измененными и пропущенными ID карт и статусом 200 (OK)
+     */
+
+    @PostMapping("/bulk/activate")
+    public ResponseEntity<BulkCardStatusResponse> bulkActivate(@RequestBody @Valid BulkCardStatusRequest request) {
+        return ResponseEntity.status(200).body(adminService.changeCardsStatus(CardStatusTransition.ACTIVATE, request));
+    }
+
+
+
+    /**
+     * Подтверждает запросы на блокировку набора карт
+     *
+     * @param request список ID карт или граница времени последней смены статуса
+     * @return ResponseEntity с измененными и пропущенными ID карт и статусом 200 (OK)
+     */
+
+    @PostMapping("/bulk/approve-block")
+    public ResponseEntity<BulkCardStatusResponse> bulkApproveBlock(@RequestBody @Valid BulkCardStatusRequest request) {
+        return ResponseEntity.status(200).body(adminService.changeCardsStatus(CardStatusTransition.APPROVE_BLOCK, request));
+    }
+
+
+
+    /**
+     * Отклоняет запросы на блокировку набора карт
+     *
+     * @param request список ID карт или граница времени последней смены статуса
+     * @return ResponseEntity с измененными и пропущенными ID карт и статусом 200 (OK)
+     */
+
+    @PostMapping("/bulk/reject")
+    public ResponseEntity<BulkCardStatusResponse> bulkRejectBlock(@RequestBody @Valid BulkCardStatusRequest request) {
+        return ResponseEntity.status(200).body(adminService.changeCardsStatus(CardStatusTransition.REJECT_BLOCK, request));
+    }
     
 
   
@@ -152,6 +225,38 @@ public class AdminController {
     
     
 
+    /**
+     * Задает суточный и месячный лимиты расходов карты
+     *
+     * @param cardId ID карты
+     * @param request лимиты; незаполненный лимит снимает ограничение
+     * @return ResponseEntity с сохраненным лимитом и статусом 200 (OK)
+     */
+
+    @PutMapping("/spending-limits/cards/{cardId}")
+    public ResponseEntity<SpendingLimit> setCardSpendingLimit(@PathVariable(name = "cardId") Long cardId,
+            @RequestBody @Valid SpendingLimitRequest request) {
+        return ResponseEntity.status(200).body(adminService.setCardSpendingLimit(cardId, request));
+    }
+
+
+
+    /**
+     * Задает суточный и месячный лимиты расходов пользователя по всем его картам
+     *
+     * @param userId ID пользователя
+     * @param request лимиты; незаполненный лимит снимает ограничение
+     * @return ResponseEntity с сохраненным лимитом и статусом 200 (OK)
+     */
+
+    @PutMapping("/spending-limits/users/{userId}")
+    public ResponseEntity<SpendingLimit> setUserSpendingLimit(@PathVariable(name = "userId") Long userId,
+            @RequestBody @Valid SpendingLimitRequest request) {
+        return ResponseEntity.status(200).body(adminService.setUserSpendingLimit(userId, request));
+    }
+
+
+
     /**
      * Удаляет карту по её ID
      * 
@@ -185,6 +290,20 @@ public class AdminController {
     }
 
 
+
+    /**
+     * Удаляет набор пользователей вместе с их картами
+     *
+     * @param request список ID пользователей
+     * @return ResponseEntity с количеством удаленных и ненайденными ID и статусом 200 (OK)
+     */
+
+    @PostMapping("/bulk/delete-users")
+    public ResponseEntity<BulkDeleteUsersResponse> deleteUsers(@RequestBody @Valid BulkDeleteUsersRequest request) {
+        return ResponseEntity.status(200).body(adminService.deleteUsers(request.getIds()));
+    }
+
+
     /**
      * Получает список всех карт с пагинацией
      * 
@@ -204,6 +323,31 @@ public class AdminController {
 
 
 
+    /**
+     * Выгружает все карты одним потоковым ответом
+     *
+     * <p>Тело пишется асинхронно по мере чтения курсора, без пагинации и подсчета строк</p>
+     *
+     * @param format формат выгрузки: NDJSON (по умолчанию) или CSV
+     * @return ResponseEntity с потоковым телом и статусом 200 (OK)
+     */
+
+    @GetMapping("/export-cards")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @Parameter(description = "Формат выгрузки")
+            @RequestParam(defaultValue = "NDJSON") CardExportFormat format) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("cards." + format.getExtension())
+                .build();
+
+        return ResponseEntity.status(200)
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(out -> adminService.exportAllCards(format, out));
+    }
+
+
+
     /**
      * Получает список карт, ожидающих блокировки, с пагинацией
      * 
@@ -221,6 +365,24 @@ public class AdminController {
         return ResponseEntity.status(200).body(adminService.getPendingBlockCards(page, size));
     }
 
+
+
+    /**
+     * Подписывает на смены статусов PENDING_BLOCK, BLOCKED и ACTIVE (Server-Sent Events)
+     *
+     * <p>Заменяет периодический опрос /get-pending-block-cards: страница очереди читается один раз,
+     * дальше приходят события {@code card-status}. Пропуск в их номерах значит, что клиент не успевал
+     * читать и старые события были вытеснены - тогда очередь нужно перечитать</p>
+     *
+     * @return поток событий
+     */
+
+    @StatementBudget(0)
+    @GetMapping(path = "/card-status-feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter cardStatusFeed() {
+        return statusFeed.subscribe();
+    }
+
     
     /**
      * Получает полный расшифрованный номер карты
@@ -2,12 +2,17 @@ package com.example.bankcards.controller;
 
 
 import org.springframework.web.bind.annotation.RestController;
+import com.example.bankcards.config.sql.StatementBudget;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.JwtAuthenticationResponse;
+import com.example.bankcards.dto.RefreshTokenRequest;
 import com.example.bankcards.dto.SignInRequest;
 import com.example.bankcards.dto.SignUpRequest;
+import com.example.bankcards.dto.TransferHistoryPage;
 import com.example.bankcards.dto.TransferRequestDTO;
 import com.example.bankcards.exception.CardException.CardNotFoundException;
+import com.example.bankcards.exception.CardException.InvalidHistoryCursorException;
+import com.example.bankcards.exception.UserException.InvalidRefreshTokenException;
 import com.example.bankcards.exception.UserException.UserNotOwnsThisCardException;
 import com.example.bankcards.security.AuthenticationService;
 import com.example.bankcards.service.DAO.UserServiceDAO;
@@ -62,11 +67,26 @@ public class UserController {
      */
 
     @PostMapping("/sign-in") 
+    @StatementBudget(6)
     public ResponseEntity<JwtAuthenticationResponse> signIn(@RequestBody @Valid SignInRequest request) {
         return ResponseEntity.ok().body(authenticationService.signIn(request)) ;
     }
 
 
+      /**
+     * Обменивает refresh-токен на новую пару access/refresh токенов
+     *
+     * @param request DTO с refresh-токеном
+     * @return ResponseEntity с новой парой токенов и статусом 200 (OK)
+     * @throws InvalidRefreshTokenException если refresh-токен недействителен, использован или истек
+     */
+
+    @PostMapping("/refresh")
+    public ResponseEntity<JwtAuthenticationResponse> refresh(@RequestBody @Valid RefreshTokenRequest request) {
+        return ResponseEntity.ok().body(authenticationService.refresh(request));
+    }
+
+
         /**
      * Выполняет перевод денежных средств между картами текущего пользователя
      *
@@ -77,6 +97,7 @@ public class UserController {
      */
  
     @PostMapping("/transfer-between-cards")
+    @StatementBudget(10)
     public ResponseEntity<Void> transferMoneyBetweenCards(@RequestBody @Valid  TransferRequestDTO dto) {
         userService.UserCardsTransfer(dto);
        return ResponseEntity.status(200).build();
@@ -113,6 +134,7 @@ public class UserController {
      */
 
     @GetMapping("/cards")
+    @StatementBudget(5)
     public ResponseEntity<Page<CardDto>> getUserCards (
             @Parameter(description = "Номер страницы") 
             @RequestParam(defaultValue = "0") int page,
@@ -133,10 +155,34 @@ public class UserController {
      */
 
     @GetMapping("/check-ballance/{cardId}")
+    @StatementBudget(2)
     public ResponseEntity<BigDecimal> getBallance(@PathVariable(name = "cardId") Long cardId) {
         return ResponseEntity.status(200).body(userService.getUserBallance(cardId));
     }
 
+        /**
+     * Получает историю переводов карты текущего пользователя, от новых к старым
+     *
+     * @param cardId ID карты
+     * @param cursor курсор nextCursor из предыдущей страницы, без него - первая страница
+     * @param size размер страницы (не больше 100)
+     * @return ResponseEntity со страницей переводов и статусом 200 (OK)
+     * @throws CardNotFoundException если карта не найдена
+     * @throws UserNotOwnsThisCardException если карта не принадлежит текущему пользователю
+     * @throws InvalidHistoryCursorException если курсор некорректен
+     */
+
+    @GetMapping("/cards/{cardId}/transfers")
+    @StatementBudget(2)
+    public ResponseEntity<TransferHistoryPage> getCardTransfers(
+            @PathVariable(name = "cardId") Long cardId,
+            @Parameter(description = "Курсор следующей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы")
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.status(200).body(userService.getCardTransfers(cardId, cursor, size));
+    }
+
        /**
      * Получает полный расшифрованный номер карты пользователя
      *
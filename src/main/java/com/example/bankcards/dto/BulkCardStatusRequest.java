@@ -0,0 +1,30 @@
+package com.example.bankcards.dto;
+
+import java.time.Instant;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkCardStatusRequest {
+
+    @Size(max = 10000, message = "За один запрос можно изменить не более 10000 карт")
+    private List<@NotNull @Positive Long> ids;
+
+    @Schema(description = "Выбрать карты, статус которых не менялся с указанного момента")
+    private Instant changedBefore;
+
+    @Schema(hidden = true)
+    @AssertTrue(message = "Нужно указать либо ids, либо changedBefore")
+    public boolean isSelectorValid() {
+        return (ids != null && !ids.isEmpty()) != (changedBefore != null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkCardStatusResponse {
+    private List<Long> updatedIds;
+    private List<Long> skippedIds;
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDeleteUsersRequest {
+
+    @NotEmpty(message = "Список пользователей не должен быть пустым")
+    @Size(max = 100000, message = "За один запрос можно удалить не более 100000 пользователей")
+    private List<@NotNull @Positive Long> ids;
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import java.time.Instant;
+import com.example.bankcards.entity.CARD_STATUS;
+
+
+/**
+ * Смена статуса карты в ленте администратора
+ *
+ * @param id номер события, растет на единицу; пропуск номера значит, что события были вытеснены
+ * @param cardId идентификатор карты
+ * @param status новый статус
+ * @param changedAt время коммита изменения
+ */
+public record CardStatusEvent(long id, Long cardId, CARD_STATUS status, Instant changedAt) {
+}
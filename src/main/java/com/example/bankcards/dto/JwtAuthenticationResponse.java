@@ -11,4 +11,5 @@ import lombok.NoArgsConstructor;
 @Builder
 public class JwtAuthenticationResponse {
     private String token;
+    private String refreshToken;
 }
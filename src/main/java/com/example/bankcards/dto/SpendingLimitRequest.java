@@ -0,0 +1,25 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Лимиты расходов карты или пользователя; незаполненный лимит не ограничивает переводы
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpendingLimitRequest {
+    @DecimalMin(value = "0.00", message = "Лимит не может быть отрицательным")
+    @Digits(integer = 17, fraction = 2, message = "Лимит должен содержать максимум 17 целых и 2 дробных цифры")
+    private BigDecimal dailyLimit;
+
+    @DecimalMin(value = "0.00", message = "Лимит не может быть отрицательным")
+    @Digits(integer = 17, fraction = 2, message = "Лимит должен содержать максимум 17 целых и 2 дробных цифры")
+    private BigDecimal monthlyLimit;
+}
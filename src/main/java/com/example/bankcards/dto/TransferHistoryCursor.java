@@ -0,0 +1,56 @@
+package com.example.bankcards.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import com.example.bankcards.entity.CardTransfer;
+import com.example.bankcards.exception.CardException.InvalidHistoryCursorException;
+
+
+/**
+ * Позиция в истории переводов: время и id последнего перевода на прочитанной странице
+ *
+ * <p>Клиенту отдается непрозрачной строкой base64url</p>
+ *
+ * @param createdAt время перевода
+ * @param id идентификатор перевода
+ */
+public record TransferHistoryCursor(Instant createdAt, long id) {
+    /** позиция перед самым новым переводом - первая страница */
+    public static final TransferHistoryCursor FIRST =
+            new TransferHistoryCursor(Instant.parse("9999-12-31T00:00:00Z"), Long.MAX_VALUE);
+
+    private static final char SEPARATOR = '|';
+
+
+    public static TransferHistoryCursor after(CardTransfer transfer) {
+        return new TransferHistoryCursor(transfer.getCreatedAt(), transfer.getId());
+    }
+
+    /**
+     * Разбирает курсор из запроса
+     *
+     * @param cursor строка курсора или null для первой страницы
+     * @return позиция в истории
+     * @throws InvalidHistoryCursorException если строка не является курсором
+     */
+    public static TransferHistoryCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            return new TransferHistoryCursor(Instant.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidHistoryCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt.toString() + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferHistoryDto {
+    private Long id;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private Instant createdAt;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Страница истории переводов карты
+ *
+ * <p>{@code nextCursor} передается в следующий запрос; null - страниц больше нет</p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferHistoryPage {
+    private List<TransferHistoryDto> items;
+    private String nextCursor;
+}
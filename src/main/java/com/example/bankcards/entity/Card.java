@@ -1,6 +1,7 @@
 package com.example.bankcards.entity;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import org.springframework.data.annotation.CreatedDate;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -12,8 +13,10 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -56,9 +59,36 @@ public class Card {
 
     @Enumerated(EnumType.STRING)
     private CARD_STATUS status;
+
+    private Instant statusChangedAt;
     
     private BigDecimal ballance;
 
+    /** карта, выпущенная взамен этой при перевыпуске */
+    private Long replacedByCardId;
+
+    /** увеличивается при каждом изменении строки, в том числе массовыми UPDATE */
+    @JsonIgnore
+    @Version
+    private Long version;
+
+    /**
+     * Меняет статус и запоминает момент смены, если статус действительно изменился
+     */
+    public void setStatus(CARD_STATUS status) {
+        if (this.status != status) {
+            this.statusChangedAt = Instant.now();
+        }
+        this.status = status;
+    }
+
+    @PrePersist
+    void initStatusChangedAt() {
+        if (statusChangedAt == null) {
+            statusChangedAt = Instant.now();
+        }
+    }
+
       public String getMaskedNumber() {
         return "**** **** **** " + lastFour;
     }
@@ -0,0 +1,47 @@
+package com.example.bankcards.entity;
+
+import java.time.LocalDate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * Неизменяемые поля карты из CARD_TABLE
+ *
+ * <p>Номер, срок действия и владелец не меняются после выпуска карты, поэтому
+ * их можно держать в кэше второго уровня без риска отдать устаревшие данные.
+ * Баланс и статус сюда намеренно не входят. Удаление карты массовым DELETE
+ * вытесняет регион целиком</p>
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "CARD_TABLE")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "card-details")
+public class CardDetails {
+    @Id
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long ownerId;
+
+    private String bin;
+
+    private String lastFour;
+
+    private String encryptedCardNumber;
+
+    private LocalDate createDate;
+
+    private LocalDate expirationDate;
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.Getter;
+
+
+/**
+ * Допустимые административные переходы статуса карты
+ *
+ * <p>Переход применяется только к картам в одном из исходных статусов, остальные
+ * карты остаются без изменений</p>
+ */
+@Getter
+public enum CardStatusTransition {
+    BLOCK(CARD_STATUS.BLOCKED, EnumSet.of(CARD_STATUS.ACTIVE, CARD_STATUS.INACTIVE, CARD_STATUS.PENDING_BLOCK)),
+    ACTIVATE(CARD_STATUS.ACTIVE, EnumSet.of(CARD_STATUS.INACTIVE, CARD_STATUS.BLOCKED)),
+    APPROVE_BLOCK(CARD_STATUS.BLOCKED, EnumSet.of(CARD_STATUS.PENDING_BLOCK)),
+    REJECT_BLOCK(CARD_STATUS.ACTIVE, EnumSet.of(CARD_STATUS.PENDING_BLOCK));
+
+    private final CARD_STATUS target;
+    private final Set<CARD_STATUS> sources;
+
+    CardStatusTransition(CARD_STATUS target, Set<CARD_STATUS> sources) {
+        this.target = target;
+        this.sources = sources;
+    }
+
+    /**
+     * @return имена исходных статусов для передачи в запрос как массив
+     */
+    public String[] sourceNames() {
+        return sources.stream().map(Enum::name).toArray(String[]::new);
+    }
+}
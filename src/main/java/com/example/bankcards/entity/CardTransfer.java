@@ -0,0 +1,52 @@
+package com.example.bankcards.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Запись истории переводов
+ *
+ * <p>TRANSFER_TABLE секционирована по месяцам {@code created_at}, ее первичный ключ -
+ * {@code (created_at, id)}; {@code id} уникален сам по себе, поэтому Hibernate достаточно его.
+ * Ссылок на CARD_TABLE нет: история остается после удаления карты</p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "TRANSFER_TABLE")
+@Builder
+public class CardTransfer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long fromCardId;
+
+    private Long toCardId;
+
+    private BigDecimal amount;
+
+    /** с точностью до микросекунд, как хранит PostgreSQL, чтобы курсор истории совпадал с записью */
+    private Instant createdAt;
+
+    @PrePersist
+    void initCreatedAt() {
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+}
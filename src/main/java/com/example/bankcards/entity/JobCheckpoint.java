@@ -0,0 +1,46 @@
+package com.example.bankcards.entity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Прогресс фонового задания, которое проходит CARD_TABLE диапазонами id
+ *
+ * <p>{@code lastId} - граница, до которой (включительно) обработаны все карты в запуске
+ * за {@code runDate}; прерванный запуск продолжается с {@code lastId + 1}</p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "JOB_CHECKPOINT_TABLE")
+@Builder
+public class JobCheckpoint {
+    @Id
+    private String jobName;
+
+    private LocalDate runDate;
+
+    private Long lastId;
+
+    private boolean completed;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bankcards.entity;
+
+import java.time.Instant;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Событие, ожидающее доставки во внешние системы
+ *
+ * <p>{@code aggregateId} - карта, к которой относится событие (для перевода - карта списания),
+ * {@code payload} - тело события в JSON</p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "OUTBOX_TABLE")
+@Builder
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxEventType eventType;
+
+    private Long aggregateId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private String payload;
+
+    private Instant createdAt;
+
+    @PrePersist
+    void initCreatedAt() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.entity;
+
+public enum OutboxEventType {
+    CARD_CREATED,
+    CARD_STATUS_CHANGED,
+    CARD_RENEWED,
+    TRANSFER_COMPLETED
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.entity;
+
+import java.time.Instant;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "REVOKED_TOKEN_TABLE")
+@Builder
+public class RevokedToken {
+    @Id
+    private String jti;
+
+    private Instant revokedAt;
+
+    private Instant expiresAt;
+}
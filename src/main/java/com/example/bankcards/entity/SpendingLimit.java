@@ -0,0 +1,52 @@
+package com.example.bankcards.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Лимит расходов карты или пользователя
+ *
+ * <p>Задан ровно один из {@code cardId} и {@code userId}. Суточный лимит действует на скользящие
+ * 24 часа, месячный - на скользящие 30 суток; {@code null} - без лимита. Лимит пользователя
+ * ограничивает сумму переводов со всех его карт</p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "SPENDING_LIMIT_TABLE")
+@Builder
+public class SpendingLimit {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long cardId;
+
+    private Long userId;
+
+    private BigDecimal dailyLimit;
+
+    private BigDecimal monthlyLimit;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+}
@@ -4,6 +4,8 @@ package com.example.bankcards.entity;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,6 +27,7 @@ import lombok.Setter;
 
 @Table(name = "USER_TABLE")
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -0,0 +1,58 @@
+package com.example.bankcards.exception;
+
+
+/**
+ * Базовое исключение бизнес-отказов {@link CardException} и {@link UserException}
+ *
+ * <p>Отказ вроде "Недостаточно средств" - ожидаемый исход запроса, а не ошибка, поэтому
+ * исключение не собирает стек и не поддерживает suppressed, а текст сообщения строится
+ * только при первом обращении к {@link #getMessage()}. Отказы без параметров можно
+ * создавать один раз и бросать повторно. Код ошибки отдается клиенту в {@link ErrorResponse}</p>
+ */
+public abstract class BusinessException extends RuntimeException {
+    private final String code;
+    private String message;
+
+    protected BusinessException(String code) {
+        super(null, null, false, false);
+        this.code = code;
+    }
+
+    protected BusinessException(String code, String message) {
+        this(code);
+        this.message = message;
+    }
+
+
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public String getMessage() {
+        String result = message;
+        if (result == null) {
+            result = buildMessage();
+            message = result;
+        }
+        return result;
+    }
+
+    /**
+     * Причина отказа без параметров запроса: одинакова для всех отказов одного вида
+     *
+     * @return причина отказа или {@code null}, если код ошибки уже описывает отказ полностью
+     */
+    public String getReason() {
+        return null;
+    }
+
+    /**
+     * Строит текст сообщения для исключений с параметрами
+     *
+     * @return текст сообщения
+     */
+    protected String buildMessage() {
+        return code;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import com.example.bankcards.config.logging.SampledArgument;
+
+
+/**
+ * Общий путь ответа на бизнес-отказ для обработчиков исключений
+ *
+ * <p>Отказы пишутся в отдельный лог {@value #LOGGER_NAME}: в {@code logback-spring.xml} он
+ * выводится асинхронно в JSON, а одинаковые повторы (тот же код и причина) прореживаются
+ * {@link com.example.bankcards.config.logging.RepeatedFailureFilter} еще до создания события лога.
+ * Сообщение передается в лог без форматирования и превращается в строку только для
+ * пропущенных фильтром записей</p>
+ */
+final class BusinessFailures {
+    static final String LOGGER_NAME = "com.example.bankcards.BusinessFailure";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private BusinessFailures() {
+    }
+
+
+    static ResponseEntity<ErrorResponse> respond(BusinessException ex, HttpStatus status) {
+        return ResponseEntity.status(status).body(logged(ex));
+    }
+
+    static ErrorResponse logged(BusinessException ex) {
+        log.warn("{}: {}", ex.getCode(), new FailureMessage(ex));
+        return ErrorResponse.of(ex);
+    }
+
+
+    /**
+     * Сообщение отказа, которое фильтр лога сравнивает по причине, а не по тексту
+     */
+    private record FailureMessage(BusinessException ex) implements SampledArgument {
+
+        @Override
+        public Object samplingKey() {
+            return ex.getReason();
+        }
+
+        @Override
+        public String toString() {
+            return ex.getMessage();
+        }
+    }
+}
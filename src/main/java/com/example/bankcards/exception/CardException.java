@@ -2,42 +2,108 @@ package com.example.bankcards.exception;
 
 public class CardException {
     
-public static class CardNotFoundException extends RuntimeException {
+public static class CardNotFoundException extends BusinessException {
+    private final Long cardId;
+
      public CardNotFoundException(Long cardId) {
-            super(String.format("Карта с ID %d не найдена", cardId));
+            super("CARD_NOT_FOUND");
+            this.cardId = cardId;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Карта с ID " + cardId + " не найдена";
     }
 }
 
 
-public  static class CardTransferMoneyException extends RuntimeException {
+public  static class CardTransferMoneyException extends BusinessException {
+    private final Long sourceCardId;
+    private final Long targetCardId;
+    private final String reason;
+
     public CardTransferMoneyException (Long sourceCardId , Long targetCardId) {
-         super(String.format("Ошибка перевода между картами %d и %d", sourceCardId, targetCardId));
+         this(sourceCardId, targetCardId, null);
     }
 
     public CardTransferMoneyException(Long sourceCardId, Long targetCardId, String reason) {
-            super(String.format("Ошибка перевода между картами %d и %d: %s", sourceCardId, targetCardId, reason));
+            super("CARD_TRANSFER_FAILED");
+            this.sourceCardId = sourceCardId;
+            this.targetCardId = targetCardId;
+            this.reason = reason;
+    }
+
+    @Override
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    protected String buildMessage() {
+        String message = "Ошибка перевода между картами " + sourceCardId + " и " + targetCardId;
+        return reason == null ? message : message + ": " + reason;
     }
 }
 
 
-public  static class CardBlockException extends RuntimeException {
+public  static class CardBlockException extends BusinessException {
+    private final Long cardId;
+
     public CardBlockException (Long cardId ) {
-        super("Ошибка блокировки карты " + cardId);
+        super("CARD_BLOCK_FAILED");
+        this.cardId = cardId;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Ошибка блокировки карты " + cardId;
     }
 }
 
 
-public  static class CardCreateException extends RuntimeException {
+public  static class CardCreateException extends BusinessException {
+    private final String cardNumber;
+
     public CardCreateException (String cardNumber ) {
-        super("Ошибка создания карты  " + cardNumber);
+        super("CARD_CREATE_FAILED");
+        this.cardNumber = cardNumber;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Ошибка создания карты  " + cardNumber;
     }
 }
 
 
 
-public  static class CardRequestBlockException extends RuntimeException {
+public  static class CardRequestBlockException extends BusinessException {
+    private final String reason;
+
     public CardRequestBlockException (Long cardId , String reason) {
-        super(String.format("Ошибка запроса блокировки карты:  %s ", reason));
+        super("CARD_BLOCK_REQUEST_FAILED", "Ошибка запроса блокировки карты:  " + reason + " ");
+        this.reason = reason;
+    }
+
+    @Override
+    public String getReason() {
+        return reason;
+    }
+}
+
+
+
+public  static class InvalidHistoryCursorException extends BusinessException {
+    private final String cursor;
+
+    public InvalidHistoryCursorException (String cursor) {
+        super("INVALID_HISTORY_CURSOR");
+        this.cursor = cursor;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Некорректный курсор истории переводов: " + cursor;
     }
 }
 
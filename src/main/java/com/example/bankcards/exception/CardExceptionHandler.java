@@ -1,7 +1,5 @@
-
 package com.example.bankcards.exception;
 
-import java.time.Instant;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,80 +9,49 @@ import com.example.bankcards.exception.CardException.CardCreateException;
 import com.example.bankcards.exception.CardException.CardNotFoundException;
 import com.example.bankcards.exception.CardException.CardRequestBlockException;
 import com.example.bankcards.exception.CardException.CardTransferMoneyException;
-import lombok.extern.slf4j.Slf4j;
+import com.example.bankcards.exception.CardException.InvalidHistoryCursorException;
 
 
-@Slf4j
 @RestControllerAdvice
 public class CardExceptionHandler {
 
     @ExceptionHandler(CardNotFoundException.class)
     public ResponseEntity<ErrorResponse> cardNotFoundExceptionHandler(CardNotFoundException ex) {
-        log.warn("Card not found: {}", ex.getMessage());
-        ErrorResponse error = new ErrorResponse(
-            "CARD_NOT_FOUND", 
-            ex.getMessage(),
-            Instant.now()
-        );
-
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+        return BusinessFailures.respond(ex, HttpStatus.NOT_FOUND);
     }
 
 
-  
-
 
-        @ExceptionHandler(CardTransferMoneyException.class)
+    @ExceptionHandler(CardTransferMoneyException.class)
     public ResponseEntity<ErrorResponse> cardTransferMoneyExceptionHandler(CardTransferMoneyException ex) {
-        log.warn("Card transfer exception : {}", ex.getMessage());
-        ErrorResponse error = new ErrorResponse(
-            "CARD_TRANSFER_FAILED", 
-            ex.getMessage(),
-            Instant.now()
-        );
-
-        return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+        return BusinessFailures.respond(ex, HttpStatus.UNPROCESSABLE_ENTITY);
     }
 
 
 
     @ExceptionHandler(CardBlockException.class)
-    public ResponseEntity<ErrorResponse>   cardBlockExceptionHandler(CardBlockException ex) {
-        log.warn("Error  : {}", ex.getMessage());
-        ErrorResponse error = new ErrorResponse(
-            "CARD_BLOCK_FAILED", 
-            ex.getMessage(),
-            Instant.now()
-        );
-        
-        return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+    public ResponseEntity<ErrorResponse> cardBlockExceptionHandler(CardBlockException ex) {
+        return BusinessFailures.respond(ex, HttpStatus.UNPROCESSABLE_ENTITY);
     }
 
 
-       @ExceptionHandler(CardCreateException.class)
+
+    @ExceptionHandler(CardCreateException.class)
     public ResponseEntity<ErrorResponse> cardCreateExceptionHandler(CardCreateException ex) {
-        log.warn("Error  : {}", ex.getMessage());
-        ErrorResponse error = new ErrorResponse(
-            "CARD_CREATE_FAILED", 
-            ex.getMessage(),
-            Instant.now()
-        );
-        
-        return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+        return BusinessFailures.respond(ex, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+
+
+    @ExceptionHandler(CardRequestBlockException.class)
+    public ResponseEntity<ErrorResponse> cardRequestBlockException(CardRequestBlockException ex) {
+        return BusinessFailures.respond(ex, HttpStatus.UNPROCESSABLE_ENTITY);
     }
 
-   
-
-
-        @ExceptionHandler(CardRequestBlockException.class)
-    public ResponseEntity<ErrorResponse> cardRequestBlockException(CardRequestBlockException
- ex) {
-        log.warn("Error  : {}", ex.getMessage());
-        ErrorResponse error = new ErrorResponse(
-            "CARD_BLOCK_REQUEST_FAILED", 
-            ex.getMessage(),
-            Instant.now()
-        );
-         return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
- }
-}
\ No newline at end of file
+
+
+    @ExceptionHandler(InvalidHistoryCursorException.class)
+    public ResponseEntity<ErrorResponse> invalidHistoryCursorExceptionHandler(InvalidHistoryCursorException ex) {
+        return BusinessFailures.respond(ex, HttpStatus.BAD_REQUEST);
+    }
+}
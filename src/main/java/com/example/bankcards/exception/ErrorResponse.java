@@ -1,7 +1,7 @@
 package com.example.bankcards.exception;
 
 import java.time.Instant;
-
+import com.example.bankcards.util.CachedClock;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -11,4 +11,12 @@ public class ErrorResponse {
     private String code;
     private String message;
     private Instant timestamp;
-}
\ No newline at end of file
+
+    public ErrorResponse(String code, String message) {
+        this(code, message, CachedClock.now());
+    }
+
+    public static ErrorResponse of(BusinessException ex) {
+        return new ErrorResponse(ex.getCode(), ex.getMessage());
+    }
+}
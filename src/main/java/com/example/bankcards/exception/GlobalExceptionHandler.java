@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -33,4 +34,21 @@ public class GlobalExceptionHandler {
        
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+
+
+    /**
+     * Строку изменил другой запрос между чтением и сохранением: повтор операции прочитает новую версию
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification of {} {}", ex.getPersistentClassName(), ex.getIdentifier());
+
+        ErrorResponse error = new ErrorResponse(
+            "CONCURRENT_MODIFICATION",
+            "Данные изменены другим запросом, повторите операцию"
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+}
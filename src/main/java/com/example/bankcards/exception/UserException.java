@@ -2,22 +2,59 @@ package com.example.bankcards.exception;
 
 public class UserException {
     
-public  static class UserNotFoundException extends RuntimeException {
+public  static class UserNotFoundException extends BusinessException {
+    public static final UserNotFoundException INSTANCE = new UserNotFoundException();
+
     public UserNotFoundException () {
-        super("Пользователь не найден");
+        super("USER_NOT_FOUND", "Пользователь не найден");
     }
 }
 
-public  static class UserNotOwnsThisCardException extends RuntimeException {
+public  static class UserNotOwnsThisCardException extends BusinessException {
+    private final Long userId;
+    private final Long cardId;
+
     public UserNotOwnsThisCardException (Long userId , Long cardId) {
-        super("Пользователь с id:  " + userId + " не владеет картой: " + cardId);
+        super("USER_NOT_OWNS_THIS_CARD");
+        this.userId = userId;
+        this.cardId = cardId;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Пользователь с id:  " + userId + " не владеет картой: " + cardId;
     }
 }
 
 
-public  static class UserAlreadyExistException extends RuntimeException {
+public  static class UserAlreadyExistException extends BusinessException {
+    public static final UserAlreadyExistException INSTANCE = new UserAlreadyExistException();
+
     public UserAlreadyExistException () {
-        super("Пользователь с этими данными уже существует");
+        super("USER_ALREADY_EXIST", "Пользователь с этими данными уже существует");
+    }
+}
+
+
+public  static class TooManyRequestsException extends BusinessException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException (long retryAfterSeconds) {
+        super("TOO_MANY_REQUESTS", "Слишком много запросов, повторите позже");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
+
+
+public  static class InvalidRefreshTokenException extends BusinessException {
+    public static final InvalidRefreshTokenException INSTANCE = new InvalidRefreshTokenException();
+
+    public InvalidRefreshTokenException () {
+        super("INVALID_REFRESH_TOKEN", "Refresh-токен недействителен или истек");
     }
 }
 }
@@ -0,0 +1,212 @@
+package com.example.bankcards.expiration;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.entity.JobCheckpoint;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.JobCheckpointRepository;
+import com.example.bankcards.service.DAO.CardServiceDAO;
+import com.example.bankcards.util.AdvisoryLocks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Переводит активные карты с истекшим сроком действия в EXPIRED
+ *
+ * <p>CARD_TABLE проходится диапазонами id по {@code chunk-size}; каждый диапазон - один UPDATE
+ * в собственной транзакции, поэтому транзакция блокирует строки только своего диапазона и не
+ * держит их дольше одного запроса. Диапазоны обрабатывают {@code workers} потоков, в работе
+ * одновременно не больше {@code workers} диапазонов. Каждый поток занимает соединение основного пула,
+ * и еще одно весь запуск держит advisory lock, поэтому {@code workers} урезается так, чтобы задание
+ * занимало не больше половины пула, а вторая половина оставалась запросам. После каждого диапазона в JOB_CHECKPOINT_TABLE
+ * сохраняется граница, до которой обработаны все диапазоны; прерванный запуск продолжается с нее,
+ * а завершенный за сегодня не повторяется до следующего дня. Одновременно задание идет только
+ * на одном экземпляре - под advisory lock</p>
+ *
+ * <p>Метрики: {@code card.expiration.expired} - переведенные карты, {@code card.expiration.chunk} -
+ * время диапазона, {@code card.expiration.position} - сохраненная граница текущего запуска</p>
+ */
+@Slf4j
+@Component
+public class CardExpirationSweeper {
+    static final String JOB_NAME = "card-expiration";
+    private static final long ADVISORY_LOCK_KEY = 0x6361726465787069L;
+
+    private final CardServiceDAO cardService;
+    private final CardRepository cardRepository;
+    private final JobCheckpointRepository checkpoints;
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final int workers;
+    private final Counter expired;
+    private final Timer chunkTimer;
+    private final AtomicLong position = new AtomicLong();
+
+    public CardExpirationSweeper(
+            CardServiceDAO cardService,
+            CardRepository cardRepository,
+            JobCheckpointRepository checkpoints,
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.card-expiration.chunk-size}") int chunkSize,
+            @Value("${app.card-expiration.workers}") int workers,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.cardService = cardService;
+        this.cardRepository = cardRepository;
+        this.checkpoints = checkpoints;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.chunkSize = chunkSize;
+        this.workers = workersFor(workers, poolSize);
+        if (this.workers < workers) {
+            log.warn("Card expiration limited to {} workers by connection pool of {}", this.workers, poolSize);
+        }
+        this.expired = Counter.builder("card.expiration.expired")
+                .description("Карты, переведенные в EXPIRED по истечении срока действия")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("card.expiration.chunk")
+                .description("Время обработки одного диапазона id")
+                .register(meterRegistry);
+        Gauge.builder("card.expiration.position", position, AtomicLong::get)
+                .description("Граница id, до которой обработаны карты в текущем запуске")
+                .register(meterRegistry);
+    }
+
+
+    @Scheduled(cron = "${app.card-expiration.cron}")
+    public void sweep() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!AdvisoryLocks.tryLock(connection, ADVISORY_LOCK_KEY)) {
+                    log.debug("Card expiration runs on another instance");
+                    return null;
+                }
+                try {
+                    int count = sweep(LocalDate.now());
+                    if (count > 0) {
+                        log.info("Expired {} cards", count);
+                    }
+                } finally {
+                    AdvisoryLocks.unlock(connection, ADVISORY_LOCK_KEY);
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Card expiration stopped, will resume from checkpoint: {}", ex.getMessage());
+        }
+    }
+
+
+    /**
+     * Проходит карты, начиная с сохраненной границы запуска за {@code runDate}
+     *
+     * @param runDate день запуска
+     * @return количество карт, переведенных в EXPIRED
+     */
+    int sweep(LocalDate runDate) {
+        JobCheckpoint checkpoint = checkpoints.findById(JOB_NAME)
+                .filter(saved -> runDate.equals(saved.getRunDate()))
+                .orElseGet(() -> JobCheckpoint.builder().jobName(JOB_NAME).runDate(runDate).lastId(0L).build());
+        if (checkpoint.isCompleted()) {
+            return 0;
+        }
+        Long maxId = cardRepository.findMaxId();
+        long committed = checkpoint.getLastId();
+        position.set(committed);
+        int total = 0;
+
+        if (maxId != null && committed < maxId) {
+            ExecutorService pool = Executors.newFixedThreadPool(workers, threads());
+            CompletionService<Chunk> chunks = new ExecutorCompletionService<>(pool);
+            Map<Long, Long> done = new HashMap<>();
+            long next = committed + 1;
+            int inFlight = 0;
+            try {
+                while (next <= maxId || inFlight > 0) {
+                    while (inFlight < workers && next <= maxId) {
+                        long from = next;
+                        long to = Math.min(maxId, from + chunkSize - 1);
+                        chunks.submit(() -> expire(from, to));
+                        inFlight++;
+                        next = to + 1;
+                    }
+                    Chunk chunk = chunks.take().get();
+                    inFlight--;
+                    total += chunk.expired();
+                    done.put(chunk.from(), chunk.to());
+                    long advanced = committed;
+                    while (done.containsKey(advanced + 1)) {
+                        advanced = done.remove(advanced + 1);
+                    }
+                    if (advanced > committed) {
+                        committed = advanced;
+                        save(checkpoint, committed, false);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Card expiration interrupted", ex);
+            } catch (ExecutionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(ex.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        save(checkpoint, maxId == null ? committed : Math.max(committed, maxId), true);
+        return total;
+    }
+
+    private Chunk expire(long from, long to) {
+        int count = chunkTimer.record(() -> cardService.expireCards(from, to).size());
+        expired.increment(count);
+        return new Chunk(from, to, count);
+    }
+
+    private void save(JobCheckpoint checkpoint, long lastId, boolean completed) {
+        checkpoint.setLastId(lastId);
+        checkpoint.setCompleted(completed);
+        checkpoints.save(checkpoint);
+        position.set(lastId);
+    }
+
+    /**
+     * @param configured {@code app.card-expiration.workers}
+     * @param poolSize размер основного пула соединений
+     * @return число потоков, при котором вместе с соединением advisory lock задание
+     *         занимает не больше половины пула
+     */
+    static int workersFor(int configured, int poolSize) {
+        return Math.max(1, Math.min(configured, poolSize / 2 - 1));
+    }
+
+    private static ThreadFactory threads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "card-expiration-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+
+    private record Chunk(long from, long to, int expired) {
+    }
+}
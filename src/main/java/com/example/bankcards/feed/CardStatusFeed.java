@@ -0,0 +1,198 @@
+package com.example.bankcards.feed;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.example.bankcards.cache.AfterCommit;
+import com.example.bankcards.dto.CardStatusEvent;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Лента смен статусов PENDING_BLOCK, BLOCKED и ACTIVE для консолей администраторов (Server-Sent Events)
+ *
+ * <p>Событие публикуется после коммита изменения, сериализуется один раз и раскладывается
+ * в буферы всех подписчиков. Буфер подписчика ограничен {@code buffer-size} событиями: если клиент
+ * не успевает читать, вытесняются самые старые, а пропуск в номерах событий подсказывает клиенту
+ * перечитать очередь целиком. Отправка идет на общем пуле из {@code dispatch-threads} потоков,
+ * поэтому медленный клиент не задерживает транзакции и других подписчиков</p>
+ */
+@Slf4j
+@Component
+public class CardStatusFeed {
+    static final String EVENT_NAME = "card-status";
+    private static final Set<CARD_STATUS> FEED_STATUSES =
+            EnumSet.of(CARD_STATUS.PENDING_BLOCK, CARD_STATUS.BLOCKED, CARD_STATUS.ACTIVE);
+
+    private final Set<FeedSubscriber> subscribers = new CopyOnWriteArraySet<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final Executor dispatcher;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Counter dropped;
+
+    @Autowired
+    public CardStatusFeed(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.admin.status-feed.buffer-size}") int bufferSize,
+            @Value("${app.admin.status-feed.timeout}") Duration timeout,
+            @Value("${app.admin.status-feed.dispatch-threads}") int dispatchThreads) {
+        this(objectMapper, meterRegistry, bufferSize, timeout, Executors.newFixedThreadPool(dispatchThreads, daemon()));
+    }
+
+    CardStatusFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry, int bufferSize, Duration timeout,
+            Executor dispatcher) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.dispatcher = dispatcher;
+        Gauge.builder("card.status.feed.subscribers", subscribers, Set::size)
+                .description("Открытые подписки на ленту статусов карт")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("card.status.feed.dropped")
+                .description("События ленты статусов, вытесненные из буфера медленного подписчика")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Открывает подписку на ленту
+     *
+     * @return emitter, который возвращается из контроллера
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        FeedSubscriber subscriber = new FeedSubscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Публикует смену статуса карт после коммита текущей транзакции
+     *
+     * <p>Статусы вне ленты и пустой список игнорируются; вне транзакции событие публикуется сразу</p>
+     *
+     * @param cardIds идентификаторы карт
+     * @param status новый статус
+     */
+    public void publishAfterCommit(Collection<Long> cardIds, CARD_STATUS status) {
+        if (cardIds.isEmpty() || !FEED_STATUSES.contains(status)) {
+            return;
+        }
+        List<Long> ids = List.copyOf(cardIds);
+        AfterCommit.run(() -> publish(ids, status));
+    }
+
+    /**
+     * Поддерживает соединения: комментарий не виден клиенту, но обнаруживает закрытые соединения
+     */
+    @Scheduled(fixedDelayString = "${app.admin.status-feed.heartbeat-interval}")
+    public void heartbeat() {
+        for (FeedSubscriber subscriber : subscribers) {
+            subscriber.offerHeartbeat();
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+        if (dispatcher instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+
+    void publish(List<Long> cardIds, CARD_STATUS status) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Instant changedAt = Instant.now();
+        for (Long cardId : cardIds) {
+            CardStatusEvent event = new CardStatusEvent(sequence.incrementAndGet(), cardId, status, changedAt);
+            String data;
+            try {
+                data = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException("Card status event is not serializable", ex);
+            }
+            Set<DataWithMediaType> message = SseEmitter.event()
+                    .id(Long.toString(event.id()))
+                    .name(EVENT_NAME)
+                    .data(data, MediaType.APPLICATION_JSON)
+                    .build();
+            for (FeedSubscriber subscriber : subscribers) {
+                if (subscriber.offer(message)) {
+                    dropped.increment();
+                }
+            }
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void schedule(FeedSubscriber subscriber) {
+        if (subscriber.startDraining()) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(FeedSubscriber subscriber) {
+        try {
+            subscriber.drain();
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Card status feed subscriber disconnected: {}", ex.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter().completeWithError(ex);
+            return;
+        }
+        if (subscriber.finishDraining()) {
+            schedule(subscriber);
+        }
+    }
+
+    private static ThreadFactory daemon() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "card-status-feed-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
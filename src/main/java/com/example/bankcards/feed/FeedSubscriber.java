@@ -0,0 +1,95 @@
+package com.example.bankcards.feed;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+
+/**
+ * Подписчик ленты с ограниченным буфером неотправленных событий
+ *
+ * <p>Буфер пополняют потоки публикации, а разбирает не больше одного потока отправки за раз</p>
+ */
+final class FeedSubscriber {
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Deque<Set<DataWithMediaType>> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    FeedSubscriber(SseEmitter emitter, int capacity) {
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.buffer = new ArrayDeque<>(capacity);
+    }
+
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    /**
+     * Добавляет событие в буфер, вытесняя самое старое при переполнении
+     *
+     * @param event собранное событие, общее для всех подписчиков
+     *
+     * @return true если событие было вытеснено
+     */
+    synchronized boolean offer(Set<DataWithMediaType> event) {
+        boolean overflow = buffer.size() == capacity;
+        if (overflow) {
+            buffer.pollFirst();
+        }
+        buffer.addLast(event);
+        return overflow;
+    }
+
+    /**
+     * Добавляет комментарий для проверки соединения, если отправлять больше нечего
+     */
+    synchronized void offerHeartbeat() {
+        if (buffer.isEmpty()) {
+            buffer.addLast(HEARTBEAT);
+        }
+    }
+
+    /**
+     * @return true если вызывающий поток должен начать отправку
+     */
+    boolean startDraining() {
+        return draining.compareAndSet(false, true);
+    }
+
+    /**
+     * Отправляет все события из буфера
+     */
+    void drain() throws IOException {
+        Set<DataWithMediaType> event;
+        while ((event = poll()) != null) {
+            emitter.send(event);
+        }
+    }
+
+    /**
+     * Завершает отправку
+     *
+     * @return true если за время отправки в буфер пришли новые события
+     */
+    boolean finishDraining() {
+        draining.set(false);
+        return !isEmpty();
+    }
+
+    private synchronized Set<DataWithMediaType> poll() {
+        return buffer.pollFirst();
+    }
+
+    private synchronized boolean isEmpty() {
+        return buffer.isEmpty();
+    }
+}
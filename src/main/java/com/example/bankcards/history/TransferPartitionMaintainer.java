@@ -0,0 +1,181 @@
+package com.example.bankcards.history;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.util.AdvisoryLocks;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Обслуживает секции TRANSFER_TABLE: создает секции будущих месяцев и архивирует старые
+ *
+ * <p>Секции создаются функцией {@code create_transfer_partitions} на
+ * {@code app.transfer-history.partitions-ahead} месяцев вперед при старте и по
+ * {@code maintenance-cron}; строки, успевшие попасть в секцию по умолчанию, переносятся в новую.
+ * При {@code archive.enabled} секции месяцев старше {@code retention-months} выгружаются
+ * {@code COPY} в {@code <dir>/transfer_table_YYYY_MM.csv.gz}, затем отсоединяются и удаляются
+ * в одной транзакции. Файл пишется до отсоединения, поэтому сбой посередине оставляет секцию
+ * на месте, и следующий запуск повторит выгрузку. Одновременно обслуживание идет только на одном
+ * экземпляре - под advisory lock</p>
+ */
+@Slf4j
+@Component
+public class TransferPartitionMaintainer {
+    private static final long ADVISORY_LOCK_KEY = 0x7472616e73666572L;
+    private static final Pattern MONTH_PARTITION = Pattern.compile("transfer_table_(\\d{4})_(\\d{2})");
+    private static final String PARTITIONS_QUERY = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass('transfer_table')
+            ORDER BY c.relname
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int partitionsAhead;
+    private final boolean archiveEnabled;
+    private final int retentionMonths;
+    private final Path archiveDir;
+
+    public TransferPartitionMaintainer(
+            DataSource dataSource,
+            @Value("${app.transfer-history.partitions-ahead}") int partitionsAhead,
+            @Value("${app.transfer-history.archive.enabled}") boolean archiveEnabled,
+            @Value("${app.transfer-history.archive.retention-months}") int retentionMonths,
+            @Value("${app.transfer-history.archive.dir}") Path archiveDir) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.partitionsAhead = partitionsAhead;
+        this.archiveEnabled = archiveEnabled;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = archiveDir;
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.transfer-history.maintenance-cron}")
+    public void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!AdvisoryLocks.tryLock(connection, ADVISORY_LOCK_KEY)) {
+                    log.debug("Transfer partitions are maintained by another instance");
+                    return null;
+                }
+                try {
+                    int created = createPartitions(connection);
+                    if (created > 0) {
+                        log.info("Created {} transfer history partitions", created);
+                    }
+                    if (archiveEnabled) {
+                        archive(connection, YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths));
+                    }
+                } finally {
+                    AdvisoryLocks.unlock(connection, ADVISORY_LOCK_KEY);
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Transfer partition maintenance failed: {}", ex.getMessage());
+        }
+    }
+
+
+    /**
+     * Архивирует и удаляет секции месяцев раньше {@code before}
+     *
+     * @param connection соединение с захваченным advisory lock
+     * @param before первый месяц, который остается в таблице
+     * @return имена удаленных секций
+     */
+    List<String> archive(Connection connection, YearMonth before) throws SQLException {
+        List<String> archived = new ArrayList<>();
+        for (String partition : monthPartitionsBefore(connection, before)) {
+            long rows = copyOut(connection, partition);
+            dropPartition(connection, partition);
+            archived.add(partition);
+            log.info("Archived transfer history partition {} ({} rows)", partition, rows);
+        }
+        return archived;
+    }
+
+    private static List<String> monthPartitionsBefore(Connection connection, YearMonth before) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(PARTITIONS_QUERY)) {
+            while (rs.next()) {
+                Matcher matcher = MONTH_PARTITION.matcher(rs.getString(1));
+                if (matcher.matches() && YearMonth.of(Integer.parseInt(matcher.group(1)),
+                        Integer.parseInt(matcher.group(2))).isBefore(before)) {
+                    partitions.add(matcher.group());
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private long copyOut(Connection connection, String partition) throws SQLException {
+        Path target = archiveDir.resolve(partition + ".csv.gz");
+        Path temp = archiveDir.resolve(partition + ".csv.gz.tmp");
+        try {
+            Files.createDirectories(archiveDir);
+            long rows;
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                rows = connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyOut("COPY " + partition + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Transfer partition " + partition + " is not archived", ex);
+        }
+    }
+
+    private static void dropPartition(Connection connection, String partition) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE transfer_table DETACH PARTITION " + partition);
+            statement.execute("DROP TABLE " + partition);
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int createPartitions(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT create_transfer_partitions(?)")) {
+            statement.setInt(1, partitionsAhead);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.bankcards.limits;
+
+
+/**
+ * Расходы одной карты или одного пользователя: суточное окно из 24 часовых корзин
+ * и месячное из 30 суточных
+ *
+ * <p>Окна восстанавливаются из истории переводов и считаются устаревшими через
+ * {@code reconcile-interval}: следующая проверка перечитает их из базы. Каждая перезагрузка
+ * увеличивает {@code generation}, чтобы отмена резерва, сделанного до нее, не вычиталась
+ * из уже пересчитанных окон. Незавершенные резервы считаются, чтобы счетчик с ними не выгружался
+ * из памяти. Все методы, кроме {@link #isStale}, вызываются под монитором счетчика</p>
+ */
+final class SpendingCounter {
+    static final long HOUR_MILLIS = 3_600_000L;
+    static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private final SpendingWindow day = new SpendingWindow(HOUR_MILLIS, 24);
+    private final SpendingWindow month = new SpendingWindow(DAY_MILLIS, 30);
+    private volatile long loadedAt;
+    private long generation;
+    private int pending;
+
+    long daily(long now) {
+        return day.total(now);
+    }
+
+    long monthly(long now) {
+        return month.total(now);
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    boolean isStale(long now, long reconcileMillis) {
+        return now - loadedAt > reconcileMillis;
+    }
+
+    /**
+     * @return есть резервы, транзакции которых еще не завершились
+     */
+    boolean hasPending() {
+        return pending > 0;
+    }
+
+
+    /**
+     * Учитывает перевод
+     *
+     * @param time момент перевода, мс от эпохи
+     * @param amount сумма в копейках
+     */
+    void add(long time, long amount) {
+        day.add(time, amount);
+        month.add(time, amount);
+    }
+
+
+    /**
+     * Учитывает перевод как резерв до завершения его транзакции
+     *
+     * @param time момент перевода, мс от эпохи
+     * @param amount сумма в копейках
+     */
+    void hold(long time, long amount) {
+        add(time, amount);
+        pending++;
+    }
+
+
+    /**
+     * Завершает резерв; при откате перевода снимает его сумму, если окна с тех пор не перезагружались
+     *
+     * @param rolledBack транзакция перевода откатилась
+     */
+    void complete(long generation, long time, long amount, boolean rolledBack) {
+        pending--;
+        if (rolledBack && this.generation == generation) {
+            add(time, -amount);
+        }
+    }
+
+
+    /**
+     * Начинает перезагрузку: очищает окна, дальше они заполняются через {@link #add}
+     *
+     * @param now момент чтения истории
+     */
+    void reset(long now) {
+        day.reset(now);
+        month.reset(now);
+        loadedAt = now;
+        generation++;
+    }
+}
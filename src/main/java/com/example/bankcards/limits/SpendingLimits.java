@@ -0,0 +1,371 @@
+package com.example.bankcards.limits;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.bankcards.cache.AfterCommit;
+import com.example.bankcards.entity.SpendingLimit;
+import com.example.bankcards.repository.CardTransferRepository;
+import com.example.bankcards.repository.CardTransferRepository.HourlySpending;
+import com.example.bankcards.repository.SpendingLimitRepository;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Лимиты расходов карт и пользователей на скользящих окнах в памяти
+ *
+ * <p>Лимиты из SPENDING_LIMIT_TABLE держатся в памяти целиком; карта без своей строки получает
+ * лимит по умолчанию {@code app.spending-limits.card-daily} / {@code card-monthly}. Расходы
+ * считаются {@link SpendingCounter} на карту и на пользователя, поэтому проверка перевода -
+ * несколько сравнений с готовыми итогами окон вместо SUM по истории. Перевод резервирует сумму
+ * в окнах сразу после проверки, а при откате транзакции резерв снимается</p>
+ *
+ * <p>Окна строятся лениво: первая проверка карты после старта или после {@code reconcile-interval}
+ * восстанавливает окна карты и ее владельца одним запросом к TRANSFER_TABLE. Так счетчики
+ * сверяются с базой и учитывают переводы других экземпляров приложения. Переводы, еще
+ * не закоммиченные в момент сверки, до следующей сверки не учитываются - превышение
+ * лимита ограничено суммой таких переводов</p>
+ *
+ * <p>Метрики: {@code card.spending.limit.rejected} с тегами {@code scope} и {@code period} -
+ * отклоненные переводы, {@code card.spending.window.reloads} - восстановления окон из базы,
+ * {@code card.spending.windows} - окна в памяти</p>
+ */
+@Slf4j
+@Component
+public class SpendingLimits {
+    private static final Limit NONE = new Limit(Long.MAX_VALUE, Long.MAX_VALUE);
+    private static final Function<Long, SpendingCounter> NEW_COUNTER = id -> new SpendingCounter();
+
+    /**
+     * Результат проверки перевода; для отказа - причина для {@code CardTransferMoneyException}
+     */
+    public enum Verdict {
+        ALLOWED(null, null, null),
+        CARD_DAILY("card", "daily", "Превышен суточный лимит карты"),
+        CARD_MONTHLY("card", "monthly", "Превышен месячный лимит карты"),
+        USER_DAILY("user", "daily", "Превышен суточный лимит пользователя"),
+        USER_MONTHLY("user", "monthly", "Превышен месячный лимит пользователя");
+
+        private final String scope;
+        private final String period;
+        private final String reason;
+
+        Verdict(String scope, String period, String reason) {
+            this.scope = scope;
+            this.period = period;
+            this.reason = reason;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private final SpendingLimitRepository repository;
+    private final CardTransferRepository transferRepository;
+    private final Clock clock;
+    private final Limit defaultCardLimit;
+    private final long reconcileMillis;
+    private final Map<Long, SpendingCounter> cardCounters = new ConcurrentHashMap<>();
+    private final Map<Long, SpendingCounter> userCounters = new ConcurrentHashMap<>();
+    private final Map<Verdict, Counter> rejected = new EnumMap<>(Verdict.class);
+    private final Counter reloads;
+
+    private volatile Map<Long, Limit> cardLimits = Map.of();
+    private volatile Map<Long, Limit> userLimits = Map.of();
+
+    @Autowired
+    public SpendingLimits(
+            SpendingLimitRepository repository,
+            CardTransferRepository transferRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.spending-limits.card-daily}") BigDecimal cardDaily,
+            @Value("${app.spending-limits.card-monthly}") BigDecimal cardMonthly,
+            @Value("${app.spending-limits.reconcile-interval}") long reconcileMillis) {
+        this(repository, transferRepository, meterRegistry, cardDaily, cardMonthly, reconcileMillis, Clock.systemUTC());
+    }
+
+    SpendingLimits(
+            SpendingLimitRepository repository,
+            CardTransferRepository transferRepository,
+            MeterRegistry meterRegistry,
+            BigDecimal cardDaily,
+            BigDecimal cardMonthly,
+            long reconcileMillis,
+            Clock clock) {
+        this.repository = repository;
+        this.transferRepository = transferRepository;
+        this.clock = clock;
+        this.defaultCardLimit = Limit.of(cardDaily, cardMonthly);
+        this.reconcileMillis = reconcileMillis;
+        for (Verdict verdict : Verdict.values()) {
+            if (verdict != Verdict.ALLOWED) {
+                rejected.put(verdict, Counter.builder("card.spending.limit.rejected")
+                        .description("Переводы, отклоненные лимитом расходов")
+                        .tag("scope", verdict.scope)
+                        .tag("period", verdict.period)
+                        .register(meterRegistry));
+            }
+        }
+        this.reloads = Counter.builder("card.spending.window.reloads")
+                .description("Восстановления окон расходов из истории переводов")
+                .register(meterRegistry);
+        Gauge.builder("card.spending.windows", this, limits -> limits.cardCounters.size() + limits.userCounters.size())
+                .description("Окна расходов карт и пользователей в памяти")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Загружает лимиты при старте
+     */
+    @PostConstruct
+    void init() {
+        reloadLimits();
+    }
+
+
+    /**
+     * Проверяет перевод по лимитам карты и ее владельца и резервирует сумму в окнах
+     *
+     * <p>Вызывается под блокировкой строки карты-отправителя. Если лимитов нет, возвращает
+     * {@link Verdict#ALLOWED} без обращения к окнам и без создания объектов. Иначе сумма один раз
+     * переводится в копейки, а проверка и резерв - сравнения с итогами окон под мониторами
+     * счетчиков, без запросов к базе (кроме восстановления окон раз в {@code reconcile-interval}).
+     * Память выделяется под счетчики карты и владельца при первой проверке после старта или
+     * выгрузки и под синхронизацию транзакции на каждый разрешенный перевод: она снимает резерв
+     * при откате</p>
+     *
+     * @param cardId идентификатор карты-отправителя
+     * @param userId идентификатор владельца карты
+     * @param amount сумма перевода
+     * @return {@link Verdict#ALLOWED} или превышенный лимит
+     */
+    public Verdict reserve(Long cardId, Long userId, BigDecimal amount) {
+        Limit cardLimit = cardLimits.getOrDefault(cardId, defaultCardLimit);
+        Limit userLimit = userLimits.getOrDefault(userId, NONE);
+        if (cardLimit == NONE && userLimit == NONE) {
+            return Verdict.ALLOWED;
+        }
+
+        long now = clock.millis();
+        long cents = toCents(amount);
+        SpendingCounter card = cardCounters.computeIfAbsent(cardId, NEW_COUNTER);
+        SpendingCounter user = userCounters.computeIfAbsent(userId, NEW_COUNTER);
+        if (card.isStale(now, reconcileMillis) || user.isStale(now, reconcileMillis)) {
+            reload(card, user, cardId, userId, now);
+        }
+
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        Verdict verdict;
+        long cardGeneration;
+        long userGeneration;
+        synchronized (card) {
+            synchronized (user) {
+                verdict = check(card, cardLimit, user, userLimit, now, cents);
+                if (verdict == Verdict.ALLOWED && inTransaction) {
+                    card.hold(now, cents);
+                    user.hold(now, cents);
+                } else if (verdict == Verdict.ALLOWED) {
+                    card.add(now, cents);
+                    user.add(now, cents);
+                }
+                cardGeneration = card.generation();
+                userGeneration = user.generation();
+            }
+        }
+        if (verdict != Verdict.ALLOWED) {
+            rejected.get(verdict).increment();
+            return verdict;
+        }
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new Reservation(card, cardGeneration, user, userGeneration, now, cents));
+        }
+        return Verdict.ALLOWED;
+    }
+
+
+    /**
+     * Задает лимиты карты; {@code null} - без лимита, в том числе без лимита по умолчанию
+     *
+     * @param cardId идентификатор карты
+     * @param dailyLimit лимит за 24 часа
+     * @param monthlyLimit лимит за 30 суток
+     * @return сохраненный лимит
+     */
+    @Transactional
+    public SpendingLimit setCardLimit(Long cardId, BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        SpendingLimit limit = repository.findByCardId(cardId)
+                .orElseGet(() -> SpendingLimit.builder().cardId(cardId).build());
+        return save(limit, dailyLimit, monthlyLimit);
+    }
+
+
+    /**
+     * Задает лимиты на сумму переводов со всех карт пользователя; {@code null} - без лимита
+     *
+     * @param userId идентификатор пользователя
+     * @param dailyLimit лимит за 24 часа
+     * @param monthlyLimit лимит за 30 суток
+     * @return сохраненный лимит
+     */
+    @Transactional
+    public SpendingLimit setUserLimit(Long userId, BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        SpendingLimit limit = repository.findByUserId(userId)
+                .orElseGet(() -> SpendingLimit.builder().userId(userId).build());
+        return save(limit, dailyLimit, monthlyLimit);
+    }
+
+
+    /**
+     * Подтягивает лимиты, измененные другими экземплярами, и выгружает устаревшие окна
+     *
+     * <p>Выгруженное окно восстановится из базы при следующем переводе карты. Окна с резервами
+     * незавершенных транзакций остаются в памяти до следующего вызова, иначе снятие резерва
+     * при откате ушло бы в уже выгруженный счетчик</p>
+     */
+    @Scheduled(fixedDelayString = "${app.spending-limits.reconcile-interval}")
+    public void sync() {
+        reloadLimits();
+        long now = clock.millis();
+        cardCounters.values().removeIf(counter -> isEvictable(counter, now));
+        userCounters.values().removeIf(counter -> isEvictable(counter, now));
+    }
+
+
+    private boolean isEvictable(SpendingCounter counter, long now) {
+        synchronized (counter) {
+            return counter.isStale(now, reconcileMillis) && !counter.hasPending();
+        }
+    }
+
+
+    void reloadLimits() {
+        Map<Long, Limit> cards = new HashMap<>();
+        Map<Long, Limit> users = new HashMap<>();
+        for (SpendingLimit limit : repository.findAll()) {
+            Limit value = Limit.of(limit.getDailyLimit(), limit.getMonthlyLimit());
+            if (limit.getCardId() != null) {
+                cards.put(limit.getCardId(), value);
+            } else {
+                users.put(limit.getUserId(), value);
+            }
+        }
+        cardLimits = cards;
+        userLimits = users;
+    }
+
+
+    private SpendingLimit save(SpendingLimit limit, BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        limit.setDailyLimit(dailyLimit);
+        limit.setMonthlyLimit(monthlyLimit);
+        SpendingLimit saved = repository.save(limit);
+        AfterCommit.run(this::reloadLimits);
+        return saved;
+    }
+
+
+    /**
+     * Восстанавливает устаревшие окна карты и владельца по переводам за последние 30 суток
+     *
+     * <p>Свежее окно не трогается: в нем могут быть резервы переводов, еще не видимые в истории</p>
+     */
+    private void reload(SpendingCounter card, SpendingCounter user, Long cardId, Long userId, long now) {
+        long since = (now / SpendingCounter.DAY_MILLIS - 29) * SpendingCounter.DAY_MILLIS;
+        List<HourlySpending> hours = transferRepository.sumOutgoingByHour(cardId, userId, Instant.ofEpochMilli(since));
+        synchronized (card) {
+            if (card.isStale(now, reconcileMillis)) {
+                card.reset(now);
+                for (HourlySpending hour : hours) {
+                    card.add(since + hour.getHour() * SpendingCounter.HOUR_MILLIS, toCents(hour.getCardAmount()));
+                }
+            }
+        }
+        synchronized (user) {
+            if (user.isStale(now, reconcileMillis)) {
+                user.reset(now);
+                for (HourlySpending hour : hours) {
+                    user.add(since + hour.getHour() * SpendingCounter.HOUR_MILLIS, toCents(hour.getUserAmount()));
+                }
+            }
+        }
+        reloads.increment();
+        log.debug("Spending windows of card {} and user {} rebuilt from {} hours of history", cardId, userId, hours.size());
+    }
+
+
+    private static Verdict check(SpendingCounter card, Limit cardLimit, SpendingCounter user, Limit userLimit,
+            long now, long cents) {
+        if (card.daily(now) + cents > cardLimit.daily) {
+            return Verdict.CARD_DAILY;
+        }
+        if (card.monthly(now) + cents > cardLimit.monthly) {
+            return Verdict.CARD_MONTHLY;
+        }
+        if (user.daily(now) + cents > userLimit.daily) {
+            return Verdict.USER_DAILY;
+        }
+        if (user.monthly(now) + cents > userLimit.monthly) {
+            return Verdict.USER_MONTHLY;
+        }
+        return Verdict.ALLOWED;
+    }
+
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.UP).longValueExact();
+    }
+
+
+    /**
+     * Лимиты в копейках; {@link Long#MAX_VALUE} - без лимита
+     */
+    private record Limit(long daily, long monthly) {
+
+        static Limit of(BigDecimal daily, BigDecimal monthly) {
+            if (daily == null && monthly == null) {
+                return NONE;
+            }
+            return new Limit(daily == null ? Long.MAX_VALUE : toCents(daily),
+                    monthly == null ? Long.MAX_VALUE : toCents(monthly));
+        }
+    }
+
+
+    /**
+     * Резерв перевода: завершается вместе с транзакцией, при откате его сумма снимается
+     */
+    private record Reservation(SpendingCounter card, long cardGeneration, SpendingCounter user, long userGeneration,
+            long time, long cents) implements TransactionSynchronization {
+
+        @Override
+        public void afterCompletion(int status) {
+            boolean rolledBack = status != STATUS_COMMITTED;
+            synchronized (card) {
+                card.complete(cardGeneration, time, cents, rolledBack);
+            }
+            synchronized (user) {
+                user.complete(userGeneration, time, cents, rolledBack);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bankcards.limits;
+
+import java.util.Arrays;
+
+
+/**
+ * Скользящее окно сумм в копейках: кольцо из {@code buckets} корзин по {@code bucketMillis}
+ *
+ * <p>Окно покрывает текущую корзину и {@code buckets - 1} предыдущих. Итог окна хранится отдельно
+ * и меняется при каждом добавлении, а при сдвиге окна из него вычитаются только вышедшие корзины,
+ * поэтому чтение итога не пересчитывает кольцо и не создает объектов. Не потокобезопасно:
+ * доступ синхронизирует {@link SpendingCounter}</p>
+ */
+final class SpendingWindow {
+    private final long bucketMillis;
+    private final long[] amounts;
+    private long head = Long.MIN_VALUE;
+    private long total;
+
+    SpendingWindow(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.amounts = new long[buckets];
+    }
+
+
+    /**
+     * @param now текущее время, мс от эпохи
+     * @return сумма в окне, заканчивающемся корзиной {@code now}
+     */
+    long total(long now) {
+        advance(now / bucketMillis);
+        return total;
+    }
+
+
+    /**
+     * Добавляет сумму в корзину момента {@code time}; сумма из уже вышедшей корзины отбрасывается
+     *
+     * @param time момент операции, мс от эпохи
+     * @param amount сумма в копейках, отрицательная - отмена
+     */
+    void add(long time, long amount) {
+        long bucket = time / bucketMillis;
+        advance(bucket);
+        if (bucket <= head - amounts.length) {
+            return;
+        }
+        amounts[index(bucket)] += amount;
+        total += amount;
+    }
+
+
+    /**
+     * Очищает окно и ставит его текущей корзиной {@code now}
+     */
+    void reset(long now) {
+        Arrays.fill(amounts, 0L);
+        total = 0;
+        head = now / bucketMillis;
+    }
+
+
+    private void advance(long bucket) {
+        if (bucket <= head) {
+            return;
+        }
+        for (long expired = Math.max(head + 1, bucket - amounts.length + 1); expired <= bucket; expired++) {
+            int index = index(expired);
+            total -= amounts[index];
+            amounts[index] = 0;
+        }
+        head = bucket;
+    }
+
+
+    private int index(long bucket) {
+        return Math.floorMod(bucket, amounts.length);
+    }
+}
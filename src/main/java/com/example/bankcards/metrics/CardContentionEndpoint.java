@@ -0,0 +1,22 @@
+package com.example.bankcards.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * {@code /actuator/cardcontention}: карты, за блокировку которых сейчас ждут переводы
+ */
+@Component
+@Endpoint(id = "cardcontention")
+@RequiredArgsConstructor
+public class CardContentionEndpoint {
+    private final CardLockContentionSampler sampler;
+
+    @ReadOperation
+    public CardLockContentionSampler.Snapshot contention() {
+        return sampler.getLast();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bankcards.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Периодически снимает из pg_locks и pg_stat_activity карты, за блокировку строк
+ * которых сейчас конкурируют транзакции
+ *
+ * <p>В очереди за строкой, заблокированной {@code SELECT ... FOR UPDATE}, каждая ожидающая
+ * сессия держит или ждет блокировку типа {@code tuple} на эту строку. По странице и
+ * номеру кортежа из pg_locks строка находится через {@code ctid} — это id карты.
+ * Последний снимок отдается эндпоинтом {@code /actuator/cardcontention}, общее число
+ * ожидающих сессий — метрикой {@code card.lock.waiters}</p>
+ */
+@Slf4j
+@Component
+public class CardLockContentionSampler {
+    static final String CONTENTION_QUERY = """
+            SELECT c.id AS card_id,
+                   count(*) AS waiters,
+                   COALESCE(max(EXTRACT(EPOCH FROM clock_timestamp() - a.query_start)), 0) * 1000 AS longest_wait_ms
+            FROM pg_locks l
+            JOIN pg_stat_activity a ON a.pid = l.pid
+            JOIN LATERAL (
+                SELECT id FROM CARD_TABLE WHERE ctid = format('(%s,%s)', l.page, l.tuple)::tid
+            ) c ON true
+            WHERE l.locktype = 'tuple'
+              AND l.relation = to_regclass('card_table')
+            GROUP BY c.id
+            ORDER BY waiters DESC, longest_wait_ms DESC
+            LIMIT ?
+            """;
+
+    /**
+     * Карта с очередью на блокировку строки
+     *
+     * @param cardId идентификатор карты
+     * @param waiters количество ожидающих сессий
+     * @param longestWaitMs время самого долгого ожидания, мс
+     */
+    public record CardContention(long cardId, long waiters, long longestWaitMs) {
+    }
+
+    /**
+     * Снимок конкуренции за карты
+     *
+     * @param sampledAt момент снимка или null, если снимков еще не было
+     * @param cards карты с наибольшей очередью
+     */
+    public record Snapshot(Instant sampledAt, List<CardContention> cards) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int top;
+
+    private volatile Snapshot last = new Snapshot(null, List.of());
+
+    public CardLockContentionSampler(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.metrics.lock-contention.top}") int top) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.top = top;
+        Gauge.builder("card.lock.waiters", this,
+                        sampler -> sampler.last.cards().stream().mapToLong(CardContention::waiters).sum())
+                .description("Сессии, ожидающие блокировку строк карт, по последнему снимку")
+                .register(meterRegistry);
+    }
+
+
+    @Scheduled(fixedDelayString = "${app.metrics.lock-contention.sample-interval}")
+    public void sample() {
+        try {
+            List<CardContention> cards = jdbcTemplate.query(CONTENTION_QUERY,
+                    (rs, rowNum) -> new CardContention(
+                            rs.getLong("card_id"), rs.getLong("waiters"), rs.getLong("longest_wait_ms")),
+                    top);
+            last = new Snapshot(Instant.now(), cards);
+        } catch (RuntimeException ex) {
+            log.warn("Card lock contention is not sampled: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * @return последний снимок
+     */
+    public Snapshot getLast() {
+        return last;
+    }
+}
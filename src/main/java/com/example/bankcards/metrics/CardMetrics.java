@@ -0,0 +1,84 @@
+package com.example.bankcards.metrics;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.repository.CardRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Метрики карт: глубина очереди запросов на блокировку, суммы и фазы переводов
+ *
+ * <p>Очередь {@code cards.pending.block} пересчитывается по расписанию, а не при каждом
+ * чтении метрики, чтобы частый сбор метрик не превращался в запросы к базе</p>
+ */
+@Slf4j
+@Component
+public class CardMetrics {
+    private final CardRepository repository;
+    private final AtomicLong pendingBlock = new AtomicLong();
+    private final DistributionSummary transferAmount;
+    private final Map<TransferPhases.Phase, Timer> transferPhases = new EnumMap<>(TransferPhases.Phase.class);
+
+    public CardMetrics(CardRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        Gauge.builder("cards.pending.block", pendingBlock, AtomicLong::get)
+                .description("Карты, ожидающие блокировки администратором")
+                .register(meterRegistry);
+        this.transferAmount = DistributionSummary.builder("card.transfer.amount")
+                .description("Суммы переводов между картами")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (TransferPhases.Phase phase : TransferPhases.Phase.values()) {
+            transferPhases.put(phase, Timer.builder("card.transfer.phase")
+                    .description("Время фаз перевода: ожидание блокировок, проверки, коммит или откат")
+                    .tag("phase", phase.tagValue())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+
+    /**
+     * Учитывает сумму выполненного перевода
+     *
+     * @param sum сумма перевода
+     */
+    public void recordTransfer(BigDecimal sum) {
+        transferAmount.record(sum.doubleValue());
+    }
+
+
+    /**
+     * Учитывает время фазы перевода
+     *
+     * @param phase фаза перевода
+     * @param nanos длительность в наносекундах
+     */
+    public void recordPhase(TransferPhases.Phase phase, long nanos) {
+        transferPhases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Пересчитывает количество карт в статусе PENDING_BLOCK
+     */
+    @Scheduled(fixedDelayString = "${app.metrics.pending-block-refresh-interval}")
+    public void refreshPendingBlock() {
+        try {
+            pendingBlock.set(repository.countByStatus(CARD_STATUS.PENDING_BLOCK));
+        } catch (RuntimeException ex) {
+            log.warn("Pending block queue size is not refreshed: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bankcards.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.exception.CardException;
+import com.example.bankcards.exception.UserException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+
+/**
+ * Время выполнения операций сервисов и счетчики исключений предметной области
+ *
+ * <p>Каждый вызов методов сервисов, {@code JwtService} и {@code CardGenerator} через прокси
+ * попадает в таймер {@code service.operation} с тегами {@code class}, {@code method},
+ * {@code outcome} и {@code exception}. Значения тегов берутся из имен классов и методов,
+ * а не из данных запроса, поэтому число рядов ограничено кодом.</p>
+ *
+ * <p>Исключения из {@link CardException} и {@link UserException} считаются в
+ * {@code service.exceptions} один раз — на самом внешнем вызове, из которого они вышли,
+ * а не на каждом сервисе по пути</p>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ServiceMetricsAspect {
+    static final String OPERATION_TIMER = "service.operation";
+    static final String EXCEPTION_COUNTER = "service.exceptions";
+    private static final String NO_EXCEPTION = "none";
+    private static final ThreadLocal<int[]> DEPTH = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.example.bankcards.service.Impl..*)"
+            + " || within(com.example.bankcards.security.JwtService)"
+            + " || within(com.example.bankcards.util.CardGenerator)")
+    public Object timed(ProceedingJoinPoint joinPoint) throws Throwable {
+        int[] depth = DEPTH.get();
+        if (depth == null) {
+            depth = new int[1];
+            DEPTH.set(depth);
+        }
+        depth[0]++;
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Object result = joinPoint.proceed();
+            sample.stop(successTimer(joinPoint));
+            return result;
+        } catch (Throwable ex) {
+            sample.stop(timer(joinPoint, "error", ex.getClass().getSimpleName()));
+            if (depth[0] == 1) {
+                countException(ex);
+            }
+            throw ex;
+        } finally {
+            if (--depth[0] == 0) {
+                DEPTH.remove();
+            }
+        }
+    }
+
+    private Timer successTimer(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return successTimers.computeIfAbsent(method, m -> timer(joinPoint, "success", NO_EXCEPTION));
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String outcome, String exception) {
+        return Timer.builder(OPERATION_TIMER)
+                .description("Время выполнения операций сервисов")
+                .tag("class", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void countException(Throwable ex) {
+        Class<?> domain = ex.getClass().getEnclosingClass();
+        if (domain != CardException.class && domain != UserException.class) {
+            return;
+        }
+
+        Counter.builder(EXCEPTION_COUNTER)
+                .description("Исключения предметной области, вышедшие из сервисов")
+                .tag("domain", domain == CardException.class ? "card" : "user")
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Событие JFR для одной фазы перевода между картами
+ *
+ * <p>Пока запись JFR не ведется, событие почти ничего не стоит.
+ * Смотреть в JDK Mission Control или {@code jfr print --events com.example.bankcards.TransferPhase}</p>
+ */
+@Name("com.example.bankcards.TransferPhase")
+@Label("Transfer Phase")
+@Category({"Bank Cards", "Transfers"})
+@Description("Ожидание блокировок, проверки или коммит перевода между картами")
+@StackTrace(false)
+class TransferPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("From Card")
+    long fromCardId;
+
+    @Label("To Card")
+    long toCardId;
+}
@@ -0,0 +1,99 @@
+package com.example.bankcards.metrics;
+
+import java.util.Locale;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+
+/**
+ * Замер фаз одного перевода между картами
+ *
+ * <p>Фазы идут друг за другом: ожидание блокировок строк карт, проверки с изменением
+ * балансов и flush с коммитом транзакции. Коммит выполняется уже после выхода из метода
+ * перевода, поэтому его время снимается синхронизацией транзакции. Каждая фаза попадает
+ * в таймер {@code card.transfer.phase} и в событие JFR {@link TransferPhaseEvent}.
+ * Фаза, прерванная исключением, не учитывается</p>
+ */
+public class TransferPhases {
+
+    public enum Phase {
+        LOCK,
+        LOGIC,
+        COMMIT,
+        ROLLBACK;
+
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final CardMetrics metrics;
+    private final long fromCardId;
+    private final long toCardId;
+
+    private long phaseStart;
+    private TransferPhaseEvent event;
+
+    /**
+     * Начинает фазу ожидания блокировок
+     */
+    public TransferPhases(CardMetrics metrics, Long fromCardId, Long toCardId) {
+        this.metrics = metrics;
+        this.fromCardId = fromCardId;
+        this.toCardId = toCardId;
+        begin();
+    }
+
+
+    /**
+     * Обе карты заблокированы: завершает ожидание блокировок и начинает проверки
+     */
+    public void locked() {
+        end(Phase.LOCK);
+        begin();
+    }
+
+
+    /**
+     * Проверки пройдены и балансы изменены: завершает фазу проверок
+     *
+     * <p>Время от начала завершения транзакции до его конца учитывается как {@code commit}
+     * или {@code rollback}</p>
+     */
+    public void applied() {
+        end(Phase.LOGIC);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCompletion() {
+                begin();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                end(status == STATUS_COMMITTED ? Phase.COMMIT : Phase.ROLLBACK);
+            }
+        });
+    }
+
+    private void begin() {
+        event = new TransferPhaseEvent();
+        event.begin();
+        phaseStart = System.nanoTime();
+    }
+
+    private void end(Phase phase) {
+        metrics.recordPhase(phase, System.nanoTime() - phaseStart);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.tagValue();
+            event.fromCardId = fromCardId;
+            event.toCardId = toCardId;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Дописывает события в файл NDJSON, по одному JSON-объекту на строку
+ *
+ * <p>Пачка сбрасывается на диск до возврата из {@link #publish}, поэтому удаленные из
+ * OUTBOX_TABLE события уже лежат в файле</p>
+ */
+public class FileOutboxSink implements OutboxSink {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            StringBuilder lines = new StringBuilder();
+            for (OutboxMessage message : messages) {
+                lines.append(objectMapper.writeValueAsString(message)).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Outbox events are not written to " + path, ex);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.outbox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+
+/**
+ * Хранит последние {@code capacity} событий в памяти, вытесняя самые старые
+ *
+ * <p>Для разработки и тестов, когда внешнего получателя нет</p>
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+    private final Deque<OutboxMessage> messages = new ArrayDeque<>();
+    private final int capacity;
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) {
+        for (OutboxMessage message : batch) {
+            if (messages.size() == capacity) {
+                messages.removeFirst();
+            }
+            messages.addLast(message);
+        }
+    }
+
+    /**
+     * @return сохраненные события от старых к новым
+     */
+    public synchronized List<OutboxMessage> recent() {
+        return List.copyOf(messages);
+    }
+}
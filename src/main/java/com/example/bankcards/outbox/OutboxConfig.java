@@ -0,0 +1,38 @@
+package com.example.bankcards.outbox;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Получатели событий outbox, каждый включается своим {@code app.outbox.sinks.<имя>.enabled}
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.outbox.sinks.memory", name = "enabled", havingValue = "true")
+    public InMemoryOutboxSink inMemoryOutboxSink(@Value("${app.outbox.sinks.memory.capacity}") int capacity) {
+        return new InMemoryOutboxSink(capacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.outbox.sinks.file", name = "enabled", havingValue = "true")
+    public FileOutboxSink fileOutboxSink(@Value("${app.outbox.sinks.file.path}") Path path,
+            ObjectMapper objectMapper) {
+        return new FileOutboxSink(path, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.outbox.sinks.webhook", name = "enabled", havingValue = "true")
+    public WebhookOutboxSink webhookOutboxSink(@Value("${app.outbox.sinks.webhook.url}") URI url,
+            @Value("${app.outbox.sinks.webhook.timeout}") Duration timeout, ObjectMapper objectMapper) {
+        return new WebhookOutboxSink(url, timeout, objectMapper);
+    }
+}
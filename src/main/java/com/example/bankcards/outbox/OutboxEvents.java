@@ -0,0 +1,75 @@
+package com.example.bankcards.outbox;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.entity.OutboxEventType;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Записывает события карт и переводов в OUTBOX_TABLE
+ *
+ * <p>Методы вызываются только внутри транзакции изменения: событие фиксируется вместе с ним
+ * или не фиксируется вовсе. Доставку выполняет {@link OutboxRelay} вне транзакции изменения,
+ * поэтому блокировки строк карт не держатся на время отправки</p>
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxEvents {
+    private final OutboxEventRepository repository;
+    private final ObjectMapper objectMapper;
+
+
+    public void cardCreated(Card card) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("cardId", card.getId());
+        payload.put("ownerId", card.getOwner() == null ? null : card.getOwner().getId());
+        payload.put("status", card.getStatus());
+        save(OutboxEventType.CARD_CREATED, card.getId(), payload);
+    }
+
+    public void cardStatusChanged(Long cardId, CARD_STATUS status) {
+        save(OutboxEventType.CARD_STATUS_CHANGED, cardId, Map.of("cardId", cardId, "status", status));
+    }
+
+    public void cardsStatusChanged(Collection<Long> cardIds, CARD_STATUS status) {
+        if (!cardIds.isEmpty()) {
+            repository.insertCardStatusChanged(cardIds.toArray(Long[]::new), status.name());
+        }
+    }
+
+    public void cardRenewed(Card oldCard, Card newCard) {
+        save(OutboxEventType.CARD_RENEWED, oldCard.getId(),
+                Map.of("oldCardId", oldCard.getId(), "newCardId", newCard.getId(), "balance", newCard.getBallance()));
+    }
+
+    public void transferCompleted(Long fromCardId, Long toCardId, BigDecimal amount) {
+        save(OutboxEventType.TRANSFER_COMPLETED, fromCardId,
+                Map.of("fromCardId", fromCardId, "toCardId", toCardId, "amount", amount));
+    }
+
+
+    private void save(OutboxEventType type, Long aggregateId, Map<String, Object> payload) {
+        try {
+            repository.save(OutboxEvent.builder()
+                    .eventType(type)
+                    .aggregateId(aggregateId)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .build());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Outbox payload of " + type + " is not serializable", ex);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.outbox;
+
+import java.time.Instant;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.entity.OutboxEventType;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+
+/**
+ * Событие в том виде, в котором оно уходит во внешние системы
+ *
+ * <p>Доставка at-least-once: получатель может увидеть событие повторно и должен
+ * отбрасывать дубли по {@code id}</p>
+ *
+ * @param id идентификатор события, растет в порядке записи
+ * @param type тип события
+ * @param aggregateId карта, к которой относится событие
+ * @param createdAt время записи события
+ * @param payload тело события в JSON
+ */
+public record OutboxMessage(long id, OutboxEventType type, long aggregateId, Instant createdAt,
+        @JsonRawValue String payload) {
+
+    static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getEventType(), event.getAggregateId(),
+                event.getCreatedAt(), event.getPayload());
+    }
+}
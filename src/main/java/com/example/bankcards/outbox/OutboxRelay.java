@@ -0,0 +1,166 @@
+package com.example.bankcards.outbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Ретранслятор outbox: разбирает OUTBOX_TABLE пачками и отправляет их всем {@link OutboxSink}
+ *
+ * <p>Пачка блокируется {@code FOR UPDATE SKIP LOCKED}, отправляется получателям и удаляется
+ * в одной транзакции. Если хотя бы один получатель не принял пачку, транзакция откатывается
+ * и пачка уйдет всем получателям повторно на следующем проходе - доставка at-least-once.
+ * Экземпляры приложения разбирают таблицу параллельно, не получая одну пачку одновременно.
+ * Без включенных получателей события остаются в таблице. За проход отправляется не больше {@code max-batches} пачек, чтобы накопившаяся очередь
+ * не занимала поток планировщика надолго</p>
+ *
+ * <p>Метрики: {@code outbox.events.published} и {@code outbox.publish.failures} по получателям,
+ * {@code outbox.publish.lag} - время от записи события до его приема получателем,
+ * {@code outbox.oldest.age} - возраст самого старого недоставленного события</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.outbox.relay", name = "enabled", havingValue = "true")
+public class OutboxRelay {
+    private final OutboxEventRepository repository;
+    private final List<SinkChannel> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+
+    public OutboxRelay(
+            OutboxEventRepository repository,
+            ObjectProvider<OutboxSink> sinks,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.outbox.relay.batch-size}") int batchSize,
+            @Value("${app.outbox.relay.max-batches}") int maxBatches) {
+        this.repository = repository;
+        this.sinks = sinks.orderedStream().map(sink -> new SinkChannel(sink, meterRegistry)).toList();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        Gauge.builder("outbox.oldest.age", oldestAgeMillis, AtomicLong::get)
+                .description("Возраст самого старого недоставленного события outbox")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        if (this.sinks.isEmpty()) {
+            log.warn("Outbox relay is enabled without sinks, events are kept in the table");
+        } else {
+            log.info("Outbox events are relayed to {}", this.sinks.stream().map(channel -> channel.sink.name()).toList());
+        }
+    }
+
+
+    /**
+     * Отправляет накопившиеся события, пока они есть, но не больше {@code max-batches} пачек
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval}", initialDelayString = "${app.outbox.relay.poll-interval}")
+    public void relay() {
+        if (sinks.isEmpty()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < maxBatches; i++) {
+                if (relayBatch() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Outbox batch is not delivered and will be retried: {}", ex.getMessage());
+        }
+        refreshOldestAge();
+    }
+
+
+    /**
+     * Отправляет одну пачку событий
+     *
+     * @return количество отправленных событий
+     */
+    int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = repository.lockBatch(batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            List<OutboxMessage> messages = events.stream().map(OutboxMessage::of).toList();
+            for (SinkChannel sink : sinks) {
+                sink.publish(messages);
+            }
+            repository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+            return events.size();
+        });
+        return published == null ? 0 : published;
+    }
+
+    private void refreshOldestAge() {
+        try {
+            oldestAgeMillis.set(repository.findOldestCreatedAt()
+                    .map(createdAt -> Math.max(0, Duration.between(createdAt, Instant.now()).toMillis()))
+                    .orElse(0L));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to refresh outbox age: {}", ex.getMessage());
+        }
+    }
+
+
+    /**
+     * Получатель вместе с его метриками
+     */
+    private static final class SinkChannel {
+        private final OutboxSink sink;
+        private final Counter published;
+        private final Counter failures;
+        private final Timer lag;
+
+        SinkChannel(OutboxSink sink, MeterRegistry meterRegistry) {
+            this.sink = sink;
+            this.published = Counter.builder("outbox.events.published")
+                    .description("События outbox, принятые получателем")
+                    .tag("sink", sink.name())
+                    .register(meterRegistry);
+            this.failures = Counter.builder("outbox.publish.failures")
+                    .description("Пачки outbox, не принятые получателем")
+                    .tag("sink", sink.name())
+                    .register(meterRegistry);
+            this.lag = Timer.builder("outbox.publish.lag")
+                    .description("Время от записи события outbox до его приема получателем")
+                    .tag("sink", sink.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        void publish(List<OutboxMessage> messages) {
+            try {
+                sink.publish(messages);
+            } catch (RuntimeException ex) {
+                failures.increment();
+                throw ex;
+            }
+            Instant now = Instant.now();
+            for (OutboxMessage message : messages) {
+                lag.record(Math.max(0, Duration.between(message.createdAt(), now).toNanos()), TimeUnit.NANOSECONDS);
+            }
+            published.increment(messages.size());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.outbox;
+
+import java.util.List;
+
+
+/**
+ * Получатель событий outbox
+ *
+ * <p>{@link #publish} возвращается только после того, как получатель принял всю пачку;
+ * исключение означает, что пачка будет отправлена повторно</p>
+ */
+public interface OutboxSink {
+
+    /**
+     * @return имя получателя для метрик и логов
+     */
+    String name();
+
+    /**
+     * Отправляет пачку событий
+     *
+     * @param messages события в порядке записи
+     */
+    void publish(List<OutboxMessage> messages);
+}
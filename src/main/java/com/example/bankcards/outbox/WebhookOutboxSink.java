@@ -0,0 +1,67 @@
+package com.example.bankcards.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Отправляет пачку событий POST-запросом с JSON-массивом
+ *
+ * <p>Пачка считается доставленной только при ответе 2xx. Заголовок {@code Idempotency-Key}
+ * содержит диапазон id событий пачки</p>
+ */
+public class WebhookOutboxSink implements OutboxSink {
+    private final URI url;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+
+    public WebhookOutboxSink(URI url, Duration timeout, ObjectMapper objectMapper) {
+        this.url = url;
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(url)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header("Idempotency-Key", messages.get(0).id() + "-" + messages.get(messages.size() - 1).id())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(messages)))
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Outbox batch is not serializable", ex);
+        }
+
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Outbox webhook " + url + " is unavailable", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Outbox webhook call interrupted", ex);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Outbox webhook " + url + " responded " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.reactive;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.CARD_STATUS;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Неблокирующее чтение карт из CARD_TABLE через R2DBC
+ */
+@RequiredArgsConstructor
+public class ReactiveCardReader {
+    private final DatabaseClient client;
+
+
+    /**
+     * Выбирает все карты пользователя в порядке убывания id, как и страничный /cards
+     *
+     * @param userId идентификатор владельца
+     * @return поток карт, строки читаются по мере запроса подписчика
+     */
+    public Flux<CardDto> findUserCards(Long userId) {
+        return client.sql("""
+                    SELECT id, bin, last_four, cvv, expiration_date, status, ballance
+                    FROM CARD_TABLE
+                    WHERE user_id = :userId
+                    ORDER BY id DESC
+                    """)
+                .bind("userId", userId)
+                .map((row, metadata) -> CardDto.builder()
+                        .id(row.get("id", Long.class))
+                        .bin(row.get("bin", String.class))
+                        .lastFour(row.get("last_four", String.class))
+                        .cvv(row.get("cvv", String.class))
+                        .expirationDate(row.get("expiration_date", LocalDate.class))
+                        .status(CARD_STATUS.valueOf(row.get("status", String.class)))
+                        .ballance(row.get("ballance", BigDecimal.class))
+                        .build())
+                .all();
+    }
+
+
+    /**
+     * Читает владельца и баланс карты
+     *
+     * @param cardId идентификатор карты
+     * @return владелец и баланс или пустой Mono если карты нет
+     */
+    public Mono<CardBalance> findBalance(Long cardId) {
+        return client.sql("SELECT user_id, ballance FROM CARD_TABLE WHERE id = :cardId")
+                .bind("cardId", cardId)
+                .map((row, metadata) -> new CardBalance(
+                        row.get("user_id", Long.class),
+                        row.get("ballance", BigDecimal.class)))
+                .one();
+    }
+
+
+    public record CardBalance(Long ownerId, BigDecimal ballance) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bankcards.reactive;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+
+/**
+ * Реактивное API чтения карт и балансов на отдельном порту
+ *
+ * <p>Пул R2DBC намеренно не регистрируется как бин {@code ConnectionFactory}: при его
+ * наличии Spring Boot не создает JDBC {@code DataSource}, на котором работают JPA и Liquibase</p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.reactive-read", name = "enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    @Value("${app.reactive-read.port}")
+    private int port;
+
+    @Value("${app.reactive-read.event-loop-threads}")
+    private int eventLoopThreads;
+
+    @Value("${app.reactive-read.r2dbc.url}")
+    private String url;
+
+    @Value("${app.reactive-read.r2dbc.username}")
+    private String username;
+
+    @Value("${app.reactive-read.r2dbc.password}")
+    private String password;
+
+    @Value("${app.reactive-read.r2dbc.max-pool-size}")
+    private int maxPoolSize;
+
+
+    @Bean
+    public ReactiveReadServer reactiveReadServer(JwtService jwtService, TokenRevocationService revocationService,
+            ObjectMapper objectMapper) {
+        ConnectionPool connectionPool = connectionPool();
+        ReactiveReadHandler handler = new ReactiveReadHandler(
+                new ReactiveCardReader(DatabaseClient.create(connectionPool)), jwtService, revocationService);
+
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+
+        return new ReactiveReadServer(
+                RouterFunctions.toHttpHandler(handler.routes(), strategies), port, eventLoopThreads, connectionPool);
+    }
+
+
+    private ConnectionPool connectionPool() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive-read")
+                .maxSize(maxPoolSize)
+                .maxIdleTime(Duration.ofMinutes(30))
+                .build());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bankcards.reactive;
+
+import java.util.function.Function;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.exception.BusinessException;
+import com.example.bankcards.exception.CardException.CardNotFoundException;
+import com.example.bankcards.exception.ErrorResponse;
+import com.example.bankcards.exception.UserException.UserNotOwnsThisCardException;
+import com.example.bankcards.security.JwtAuthenticationFilter;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * Обработчики реактивного API чтения
+ *
+ * <p>Сервер работает на отдельном порту вне цепочки Spring Security, поэтому
+ * access-токен проверяется здесь тем же {@link JwtService#parseAccessToken}, что и
+ * в {@link JwtAuthenticationFilter}. Проверка подписи и фильтра Блума выполняется
+ * на event loop; в базу за списком отзыва ходим на boundedElastic и только когда
+ * фильтр Блума не может дать отрицательный ответ</p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveReadHandler {
+    private final ReactiveCardReader cardReader;
+    private final JwtService jwtService;
+    private final TokenRevocationService revocationService;
+
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/cards", this::cards)
+                .GET("/check-ballance/{cardId}", this::ballance)
+                .build();
+    }
+
+
+    /**
+     * Отдает все карты текущего пользователя потоком NDJSON, по одной карте в строке
+     */
+    Mono<ServerResponse> cards(ServerRequest request) {
+        return authenticated(request, userId -> ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cardReader.findUserCards(userId), CardDto.class));
+    }
+
+
+    /**
+     * Отдает баланс карты текущего пользователя
+     */
+    Mono<ServerResponse> ballance(ServerRequest request) {
+        Long cardId;
+        try {
+            cardId = Long.valueOf(request.pathVariable("cardId"));
+        } catch (NumberFormatException e) {
+            return error(HttpStatus.BAD_REQUEST, "INVALID_CARD_ID", "Некорректный идентификатор карты");
+        }
+
+        return authenticated(request, userId -> cardReader.findBalance(cardId)
+                .flatMap(card -> userId.equals(card.ownerId())
+                        ? ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(card.ballance())
+                        : error(HttpStatus.FORBIDDEN, new UserNotOwnsThisCardException(userId, cardId)))
+                .switchIfEmpty(Mono.defer(() -> error(HttpStatus.NOT_FOUND, new CardNotFoundException(cardId)))));
+    }
+
+
+    private Mono<ServerResponse> authenticated(ServerRequest request, Function<Long, Mono<ServerResponse>> handler) {
+        return currentUserId(request)
+                .flatMap(handler)
+                .switchIfEmpty(Mono.defer(() -> error(HttpStatus.UNAUTHORIZED, "UNAUTHORIZED",
+                        "Требуется действующий access-токен")));
+    }
+
+    private Mono<Long> currentUserId(ServerRequest request) {
+        String authHeader = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith(JwtAuthenticationFilter.BEARER_PREFIX)) {
+            return Mono.empty();
+        }
+
+        Claims claims;
+        try {
+            claims = jwtService.parseAccessToken(authHeader.substring(JwtAuthenticationFilter.BEARER_PREFIX.length()));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected access token: {}", e.getMessage());
+            return Mono.empty();
+        }
+
+        Mono<Long> userId = Mono.justOrEmpty(claims.get("id", Long.class));
+        if (!revocationService.mightBeRevoked(claims.getId())) {
+            return userId;
+        }
+        return Mono.fromCallable(() -> revocationService.isRevoked(claims.getId()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(revoked -> revoked ? Mono.empty() : userId);
+    }
+
+    private Mono<ServerResponse> error(HttpStatus status, BusinessException ex) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ErrorResponse.of(ex));
+    }
+
+    private Mono<ServerResponse> error(HttpStatus status, String code, String message) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(code, message));
+    }
+}
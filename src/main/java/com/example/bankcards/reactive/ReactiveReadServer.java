@@ -0,0 +1,67 @@
+package com.example.bankcards.reactive;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import io.r2dbc.pool.ConnectionPool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+
+/**
+ * Reactor Netty сервер реактивного API, запускается рядом с Tomcat на своем порту
+ *
+ * <p>Владеет пулом R2DBC соединений и закрывает его при остановке контекста</p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveReadServer implements SmartLifecycle {
+    private final HttpHandler httpHandler;
+    private final int port;
+    private final int eventLoopThreads;
+    private final ConnectionPool connectionPool;
+
+    private volatile LoopResources loopResources;
+    private volatile DisposableServer server;
+
+
+    @Override
+    public void start() {
+        int threads = eventLoopThreads > 0 ? eventLoopThreads : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        loopResources = LoopResources.create("reactive-read", threads, true);
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loopResources)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive read API started on port {} with {} event loop threads", server.port(), threads);
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+        connectionPool.dispose();
+        if (loopResources != null) {
+            loopResources.dispose();
+            loopResources = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * @return фактический порт сервера (полезно при port=0)
+     */
+    public int getPort() {
+        return server != null ? server.port() : port;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.bankcards.renewal;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.JobCheckpoint;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.JobCheckpointRepository;
+import com.example.bankcards.service.DAO.CardServiceDAO;
+import com.example.bankcards.util.AdvisoryLocks;
+import com.example.bankcards.util.CardGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Перевыпускает карты, срок действия которых истекает в ближайшие {@code within-days} дней
+ *
+ * <p>Кандидаты читаются пачками по {@code batch-size} по возрастанию id. Номера, CVV и шифрование
+ * новых карт готовятся {@link CardGenerator} параллельно на {@code generator-threads} потоках,
+ * причем следующая пачка генерируется, пока предыдущая сохраняется. Сохранение пачки -
+ * одна транзакция {@link CardServiceDAO#renewCards}: новая карта получает баланс старой,
+ * старая обнуляется и ссылается на новую</p>
+ *
+ * <p>После каждой пачки граница id сохраняется в JOB_CHECKPOINT_TABLE: запуск, прерванный сбоем,
+ * продолжается с нее, а уже перевыпущенные карты в кандидаты не попадают. Сгенерированные, но не
+ * сохраненные карты при сбое просто теряются. Одновременно задание идет только на одном экземпляре -
+ * под advisory lock</p>
+ *
+ * <p>Запуск занимает поток общего пула планировщика ({@code spring.task.scheduling.pool.size}) на все
+ * время работы, а из пула соединений - соединение advisory lock и соединение транзакции сохранения;
+ * потоки генерации к базе не обращаются</p>
+ *
+ * <p>Метрики: {@code card.renewal.renewed} - выпущенные карты, {@code card.renewal.batch} с тегом
+ * {@code stage} - время генерации ({@code generate}) и сохранения ({@code persist}) пачки</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.card-renewal", name = "enabled", havingValue = "true")
+public class CardRenewalJob {
+    static final String JOB_NAME = "card-renewal";
+    private static final long ADVISORY_LOCK_KEY = 0x72656e6577616cL;
+
+    private final CardServiceDAO cardService;
+    private final CardRepository cardRepository;
+    private final CardGenerator cardGenerator;
+    private final JobCheckpointRepository checkpoints;
+    private final JdbcTemplate jdbcTemplate;
+    private final int withinDays;
+    private final int batchSize;
+    private final int generatorThreads;
+    private final Counter renewed;
+    private final Timer generateTimer;
+    private final Timer persistTimer;
+
+    public CardRenewalJob(
+            CardServiceDAO cardService,
+            CardRepository cardRepository,
+            CardGenerator cardGenerator,
+            JobCheckpointRepository checkpoints,
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.card-renewal.within-days}") int withinDays,
+            @Value("${app.card-renewal.batch-size}") int batchSize,
+            @Value("${app.card-renewal.generator-threads}") int generatorThreads) {
+        this.cardService = cardService;
+        this.cardRepository = cardRepository;
+        this.cardGenerator = cardGenerator;
+        this.checkpoints = checkpoints;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.withinDays = withinDays;
+        this.batchSize = batchSize;
+        this.generatorThreads = generatorThreads;
+        this.renewed = Counter.builder("card.renewal.renewed")
+                .description("Карты, выпущенные взамен истекающих")
+                .register(meterRegistry);
+        this.generateTimer = batchTimer(meterRegistry, "generate");
+        this.persistTimer = batchTimer(meterRegistry, "persist");
+    }
+
+
+    @Scheduled(cron = "${app.card-renewal.cron}")
+    public void renew() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!AdvisoryLocks.tryLock(connection, ADVISORY_LOCK_KEY)) {
+                    log.debug("Card renewal runs on another instance");
+                    return null;
+                }
+                try {
+                    int count = renew(LocalDate.now());
+                    if (count > 0) {
+                        log.info("Renewed {} cards", count);
+                    }
+                } finally {
+                    AdvisoryLocks.unlock(connection, ADVISORY_LOCK_KEY);
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Card renewal stopped, will resume from checkpoint: {}", ex.getMessage());
+        }
+    }
+
+
+    /**
+     * Перевыпускает карты, истекающие не позже {@code runDate + within-days}
+     *
+     * @param runDate день запуска
+     * @return количество выпущенных карт
+     */
+    int renew(LocalDate runDate) {
+        JobCheckpoint checkpoint = checkpoints.findById(JOB_NAME)
+                .filter(saved -> runDate.equals(saved.getRunDate()))
+                .orElseGet(() -> JobCheckpoint.builder().jobName(JOB_NAME).runDate(runDate).lastId(0L).build());
+        if (checkpoint.isCompleted()) {
+            return 0;
+        }
+        LocalDate expiringUntil = runDate.plusDays(withinDays);
+        ExecutorService pool = Executors.newFixedThreadPool(generatorThreads, threads());
+        int total = 0;
+        try {
+            List<Long> batch = cardRepository.findRenewalCandidates(expiringUntil, checkpoint.getLastId(), batchSize);
+            CompletableFuture<Map<Long, Card>> generated = generate(batch, pool);
+            while (!batch.isEmpty()) {
+                long lastId = batch.get(batch.size() - 1);
+                List<Long> nextBatch = batch.size() < batchSize
+                        ? List.of()
+                        : cardRepository.findRenewalCandidates(expiringUntil, lastId, batchSize);
+                CompletableFuture<Map<Long, Card>> nextGenerated = generate(nextBatch, pool);
+
+                Map<Long, Card> replacements = generated.join();
+                int count = persistTimer.record(() -> cardService.renewCards(replacements).size());
+                renewed.increment(count);
+                total += count;
+                save(checkpoint, lastId, false);
+
+                batch = nextBatch;
+                generated = nextGenerated;
+            }
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        } finally {
+            pool.shutdownNow();
+        }
+        save(checkpoint, checkpoint.getLastId(), true);
+        return total;
+    }
+
+    /**
+     * Готовит замены для пачки карт на пуле генерации
+     *
+     * @return новые карты без владельца и баланса по id заменяемых карт, в порядке пачки
+     */
+    private CompletableFuture<Map<Long, Card>> generate(List<Long> cardIds, ExecutorService pool) {
+        if (cardIds.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        long started = System.nanoTime();
+        List<CompletableFuture<Card>> cards = cardIds.stream()
+                .map(id -> CompletableFuture.supplyAsync(() -> cardGenerator.generateCard(null), pool))
+                .toList();
+        return CompletableFuture.allOf(cards.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<Long, Card> replacements = new LinkedHashMap<>();
+            for (int i = 0; i < cardIds.size(); i++) {
+                replacements.put(cardIds.get(i), cards.get(i).join());
+            }
+            generateTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return replacements;
+        });
+    }
+
+    private void save(JobCheckpoint checkpoint, long lastId, boolean completed) {
+        checkpoint.setLastId(lastId);
+        checkpoint.setCompleted(completed);
+        checkpoints.save(checkpoint);
+    }
+
+    private static Timer batchTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("card.renewal.batch")
+                .description("Время генерации и сохранения пачки перевыпускаемых карт")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory threads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "card-renewal-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.repository;
+
+import java.util.Optional;
+import org.springframework.data.repository.Repository;
+import com.example.bankcards.entity.CardDetails;
+
+
+public interface CardDetailsRepository extends Repository<CardDetails, Long> {
+
+    /**
+     * Находит неизменяемые поля карты, при включенном кэше второго уровня без обращения к базе
+     *
+     * @param id идентификатор карты
+     * @return Optional с данными карты или пустой, если карта не найдена
+     */
+    Optional<CardDetails> findById(Long id);
+}
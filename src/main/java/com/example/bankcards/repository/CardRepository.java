@@ -1,17 +1,28 @@
 package com.example.bankcards.repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import com.example.bankcards.cache.CardBalanceSnapshot;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 
 public interface CardRepository extends JpaRepository<Card,Long>{
@@ -40,13 +51,31 @@ public interface CardRepository extends JpaRepository<Card,Long>{
      */
     Page<Card> findByStatus(CARD_STATUS status, Pageable pageable);
 
+    /**
+     * Считает карты с указанным статусом
+     *
+     * <p>Для PENDING_BLOCK читает только частичный индекс очереди блокировок</p>
+     *
+     * @param status статус карты
+     * @return количество карт
+     */
+    long countByStatus(CARD_STATUS status);
+
     /**
      * Находит страницу с картами пользователя
      *
+     * <p>При включенном кэше запросов (профиль {@code l2cache}) страница и count
+     * кэшируются в регионе {@code card-pages}; любая запись в CARD_TABLE через
+     * Hibernate делает их устаревшими</p>
+     *
      * @param userId идентификатор пользователя-владельца
      * @param pageable параметры пагинации и сортировки
      * @return страница с картами пользователя
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheInvalidator.CARD_PAGES_REGION)
+    })
     Page<Card> findByOwnerId(Long userId, Pageable pageable);
     
     /**
@@ -60,4 +89,150 @@ public interface CardRepository extends JpaRepository<Card,Long>{
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT c FROM Card c WHERE c.id = :id")
     Optional<Card> findByIdWithLock(Long id);
+
+    /**
+     * Читает владельца, статус, баланс и версию карты без загрузки сущности
+     *
+     * @param id идентификатор карты
+     * @return Optional с состоянием карты или пустой, если карта не найдена
+     */
+    @Query("""
+            SELECT new com.example.bankcards.cache.CardBalanceSnapshot(
+                c.id, c.owner.id, c.status, c.ballance, c.version)
+            FROM Card c
+            WHERE c.id = :id
+            """)
+    Optional<CardBalanceSnapshot> findBalanceSnapshot(Long id);
+
+    /**
+     * Выбирает все карты потоком DTO по серверному курсору
+     *
+     * <p>Проекция в конструктор не попадает в контекст персистентности, а fetch size
+     * заставляет драйвер PostgreSQL читать строки порциями вместо загрузки всего
+     * результата в память. Курсор работает только внутри транзакции, поэтому поток
+     * нужно прочитать и закрыть до ее завершения. Поток нужен только для выгрузки,
+     * поэтому CVV не читается и в DTO остается пустым</p>
+     *
+     * @return поток всех карт в порядке возрастания id
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.example.bankcards.dto.CardDto(
+                c.id, c.bin, c.lastFour, CAST(NULL AS String), c.expirationDate, c.status, c.ballance)
+            FROM Card c
+            ORDER BY c.id
+            """)
+    Stream<CardDto> streamAllCards();
+
+
+    /**
+     * Переводит карты из списка в целевой статус одним запросом
+     *
+     * <p>Условие по исходному статусу проверяется в том же UPDATE, поэтому карта,
+     * статус которой успел измениться, просто не попадет в результат. Карты, замененные
+     * при перевыпуске ({@code replaced_by_card_id} задан), не меняются никаким переходом:
+     * их баланс уже перенесен на новую карту</p>
+     *
+     * <p>RETURNING здесь намеренный: вызывающему коду нужны id измененных карт. Метод с
+     * {@code @Modifying} мог бы вернуть только число строк, поэтому запрос объявлен как
+     * обычный и выполняется Hibernate как чтение. Контекст персистентности он не обновляет,
+     * это делает вызывающий сервис ({@code CardServiceImpl.bulkUpdate})</p>
+     *
+     * @param ids идентификаторы карт
+     * @param sources допустимые исходные статусы
+     * @param target целевой статус
+     * @return идентификаторы измененных карт
+     */
+    @Query(value = """
+            UPDATE CARD_TABLE
+            SET status = :target, status_changed_at = CURRENT_TIMESTAMP, version = version + 1
+            WHERE status = ANY(CAST(:sources AS VARCHAR[]))
+              AND id = ANY(CAST(:ids AS BIGINT[]))
+              AND replaced_by_card_id IS NULL
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> updateStatusByIds(Long[] ids, String[] sources, String target);
+
+    /**
+     * Переводит в целевой статус карты, статус которых не менялся с указанного момента
+     *
+     * <p>Строки, заблокированные другими транзакциями, пропускаются и будут
+     * обработаны следующим вызовом. Как и {@link #updateStatusByIds}, возвращает id
+     * через RETURNING без {@code @Modifying}</p>
+     *
+     * @param sources допустимые исходные статусы
+     * @param changedBefore граница момента последней смены статуса
+     * @param target целевой статус
+     * @param limit максимальное количество карт за вызов
+     * @return идентификаторы измененных карт
+     */
+    @Query(value = """
+            UPDATE CARD_TABLE
+            SET status = :target, status_changed_at = CURRENT_TIMESTAMP, version = version + 1
+            WHERE id IN (
+                SELECT id FROM CARD_TABLE
+                WHERE status = ANY(CAST(:sources AS VARCHAR[]))
+                  AND status_changed_at < :changedBefore
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> updateStatusChangedBefore(String[] sources, Instant changedBefore, String target, int limit);
+
+    /**
+     * Находит активные и еще не перевыпущенные карты, срок действия которых истекает не позже даты
+     *
+     * @param expiringUntil последний день срока действия, включительно
+     * @param afterId id, после которого продолжается выборка
+     * @param limit максимальное количество карт
+     * @return идентификаторы карт по возрастанию
+     */
+    @Query(value = """
+            SELECT id FROM CARD_TABLE
+            WHERE status = 'ACTIVE'
+              AND replaced_by_card_id IS NULL
+              AND expiration_date <= :expiringUntil
+              AND id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findRenewalCandidates(LocalDate expiringUntil, long afterId, int limit);
+
+    /**
+     * Блокирует карты из списка в порядке возрастания id
+     *
+     * @param ids идентификаторы карт
+     * @return найденные карты
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids ORDER BY c.id")
+    List<Card> findAllByIdWithLock(Collection<Long> ids);
+
+    /**
+     * @return наибольший id карты или null, если карт нет
+     */
+    @Query("SELECT max(c.id) FROM Card c")
+    Long findMaxId();
+
+    /**
+     * Переводит в EXPIRED активные карты с истекшим сроком из диапазона id
+     *
+     * <p>Диапазон читается по первичному ключу, поэтому запрос блокирует только строки
+     * своего диапазона. Id переведенных карт нужны для outbox и кэша, поэтому они
+     * возвращаются через RETURNING, а не через {@code @Modifying}</p>
+     *
+     * @param fromId начало диапазона, включительно
+     * @param toId конец диапазона, включительно
+     * @return идентификаторы измененных карт
+     */
+    @Query(value = """
+            UPDATE CARD_TABLE
+            SET status = 'EXPIRED', status_changed_at = CURRENT_TIMESTAMP, version = version + 1
+            WHERE expiration_date < CURRENT_DATE
+              AND status = 'ACTIVE'
+              AND id BETWEEN :fromId AND :toId
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> expireInRange(long fromId, long toId);
 }
@@ -0,0 +1,81 @@
+package com.example.bankcards.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import com.example.bankcards.entity.CardTransfer;
+
+
+public interface CardTransferRepository extends JpaRepository<CardTransfer, Long> {
+
+    /**
+     * Находит переводы карты (входящие и исходящие), сделанные раньше позиции курсора
+     *
+     * <p>Keyset-пагинация по {@code (created_at, id)}: каждая половина читает индекс
+     * idx_transfer_from_card / idx_transfer_to_card с позиции курсора и останавливается на
+     * {@code size} строках, поэтому стоимость страницы не зависит от ее номера. Условие
+     * {@code created_at <= :beforeTime} отдельно от сравнения строк отсекает более новые секции</p>
+     *
+     * @param cardId идентификатор карты
+     * @param beforeTime время перевода из курсора
+     * @param beforeId идентификатор перевода из курсора
+     * @param size размер страницы
+     * @return переводы от новых к старым
+     */
+    @Query(value = """
+            SELECT * FROM (
+                (SELECT * FROM TRANSFER_TABLE
+                 WHERE from_card_id = :cardId
+                   AND created_at <= :beforeTime AND (created_at, id) < (:beforeTime, :beforeId)
+                 ORDER BY created_at DESC, id DESC
+                 LIMIT :size)
+                UNION ALL
+                (SELECT * FROM TRANSFER_TABLE
+                 WHERE to_card_id = :cardId
+                   AND created_at <= :beforeTime AND (created_at, id) < (:beforeTime, :beforeId)
+                 ORDER BY created_at DESC, id DESC
+                 LIMIT :size)
+            ) t
+            ORDER BY created_at DESC, id DESC
+            LIMIT :size
+            """, nativeQuery = true)
+    List<CardTransfer> findHistory(Long cardId, Instant beforeTime, long beforeId, int size);
+
+
+    /**
+     * Суммирует исходящие переводы пользователя по часам, начиная с {@code since}
+     *
+     * <p>Один запрос восстанавливает окна расходов и карты, и ее владельца. Номер часа считается
+     * разностью с {@code since}, а не от эпохи: обе метки - timestamptz, поэтому разность
+     * не зависит от часового пояса сессии</p>
+     *
+     * @param cardId идентификатор карты
+     * @param userId идентификатор владельца карты
+     * @param since начало выборки, граница часа
+     * @return непустые часы
+     */
+    @Query(value = """
+            SELECT CAST(floor(extract(epoch FROM (t.created_at - :since)) / 3600) AS BIGINT) AS "hour",
+                   COALESCE(sum(t.amount) FILTER (WHERE t.from_card_id = :cardId), 0) AS "cardAmount",
+                   sum(t.amount) AS "userAmount"
+            FROM TRANSFER_TABLE t
+            WHERE t.from_card_id IN (SELECT c.id FROM CARD_TABLE c WHERE c.user_id = :userId)
+              AND t.created_at >= :since
+            GROUP BY 1
+            """, nativeQuery = true)
+    List<HourlySpending> sumOutgoingByHour(Long cardId, Long userId, Instant since);
+
+
+    /**
+     * Исходящие переводы за один час
+     */
+    interface HourlySpending {
+        Long getHour();
+
+        BigDecimal getCardAmount();
+
+        BigDecimal getUserAmount();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.bankcards.entity.JobCheckpoint;
+
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import com.example.bankcards.entity.OutboxEvent;
+
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Блокирует до {@code limit} самых старых событий, пропуская заблокированные другими
+     *
+     * <p>Несколько экземпляров ретранслятора разбирают таблицу параллельно, не дожидаясь
+     * друг друга и не получая одно событие дважды, пока его транзакция не завершилась</p>
+     *
+     * @param limit максимальное количество событий
+     * @return события в порядке записи
+     */
+    @Query(value = """
+            SELECT * FROM OUTBOX_TABLE
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockBatch(int limit);
+
+    /**
+     * Записывает событие смены статуса для каждой карты из списка одним запросом
+     *
+     * @param ids идентификаторы карт
+     * @param status новый статус
+     * @return количество записанных событий
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO OUTBOX_TABLE (event_type, aggregate_id, payload, created_at)
+            SELECT 'CARD_STATUS_CHANGED', card_id, jsonb_build_object('cardId', card_id, 'status', :status),
+                   CURRENT_TIMESTAMP
+            FROM unnest(CAST(:ids AS BIGINT[])) AS card_id
+            """, nativeQuery = true)
+    int insertCardStatusChanged(Long[] ids, String status);
+
+    /**
+     * @return время записи самого старого недоставленного события
+     */
+    @Query(value = "SELECT created_at FROM OUTBOX_TABLE ORDER BY id LIMIT 1", nativeQuery = true)
+    Optional<Instant> findOldestCreatedAt();
+}
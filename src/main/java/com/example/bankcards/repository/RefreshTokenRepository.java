@@ -0,0 +1,56 @@
+package com.example.bankcards.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.bankcards.entity.RefreshToken;
+
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Находит refresh-токен вместе с владельцем по хешу токена
+     *
+     * @param tokenHash SHA-256 хеш токена
+     * @return Optional с найденным токеном или пустой, если токен не найден
+     */
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.user WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Удаляет refresh-токен по идентификатору
+     *
+     * <p>Количество удаленных строк используется как признак того, что токен
+     * не был использован параллельным запросом</p>
+     *
+     * @param id идентификатор токена
+     * @return количество удаленных строк (0 или 1)
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.id = :id")
+    int deleteTokenById(Long id);
+
+    /**
+     * Удаляет все refresh-токены пользователя
+     *
+     * @param userId идентификатор пользователя
+     * @return количество удаленных токенов
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.user.id = :userId")
+    int deleteAllByUserId(Long userId);
+
+    /**
+     * Удаляет все просроченные refresh-токены
+     *
+     * @param now текущий момент времени
+     * @return количество удаленных токенов
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(Instant now);
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.bankcards.entity.RevokedToken;
+
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Находит отозванные токены, срок действия которых еще не истек
+     *
+     * @param now текущий момент времени
+     * @return список отозванных и еще действующих токенов
+     */
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+
+    /**
+     * Находит токены, отозванные после указанного момента
+     *
+     * <p>Используется для инкрементальной синхронизации локального списка отзыва
+     * с другими экземплярами приложения</p>
+     *
+     * @param since нижняя граница времени отзыва
+     * @return список отозванных токенов
+     */
+    List<RevokedToken> findByRevokedAtAfter(Instant since);
+
+    /**
+     * Удаляет записи о токенах, срок действия которых истек
+     *
+     * @param now текущий момент времени
+     * @return количество удаленных записей
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :now")
+    int deleteExpired(Instant now);
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.repository;
+
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.bankcards.entity.SpendingLimit;
+
+
+public interface SpendingLimitRepository extends JpaRepository<SpendingLimit, Long> {
+    Optional<SpendingLimit> findByCardId(Long cardId);
+
+    Optional<SpendingLimit> findByUserId(Long userId);
+}
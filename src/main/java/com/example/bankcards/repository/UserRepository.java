@@ -1,8 +1,11 @@
 package com.example.bankcards.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.bankcards.entity.User;
 
@@ -11,4 +14,27 @@ public interface UserRepository  extends JpaRepository<User,Long>{
     Optional<User>findByPhoneNumber(String phoneNumber);
     boolean existsByPhoneNumber(String phoneNUmber);
     Optional<User> findByUsername(String username);
+
+
+    /**
+     * Удаляет пользователя одним запросом
+     *
+     * <p>Карты и refresh-токены удаляются базой по ON DELETE CASCADE, без загрузки
+     * в контекст персистентности</p>
+     *
+     * @param id идентификатор пользователя
+     * @return количество удаленных пользователей (0 или 1)
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteUserById(Long id);
+
+    /**
+     * Удаляет пользователей из списка одним запросом, каскадно вместе с картами
+     *
+     * @param ids идентификаторы пользователей
+     * @return идентификаторы удаленных пользователей
+     */
+    @Query(value = "DELETE FROM USER_TABLE WHERE id = ANY(CAST(:ids AS BIGINT[])) RETURNING id", nativeQuery = true)
+    List<Long> deleteUsersByIds(Long[] ids);
 }
@@ -10,11 +10,16 @@ import org.springframework.security.authentication.AuthenticationServiceExceptio
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.datasource.Workload;
+import com.example.bankcards.config.datasource.WorkloadType;
 import com.example.bankcards.dto.JwtAuthenticationResponse;
+import com.example.bankcards.dto.RefreshTokenRequest;
 import com.example.bankcards.dto.SignInRequest;
 import com.example.bankcards.dto.SignUpRequest;
 import com.example.bankcards.entity.ROLE;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.security.ratelimit.RateLimiter;
 import com.example.bankcards.service.DAO.UserServiceDAO;
 import lombok.RequiredArgsConstructor;
 
@@ -22,12 +27,15 @@ import lombok.RequiredArgsConstructor;
 
 
 @Service
+@Workload(WorkloadType.AUTH)
 @RequiredArgsConstructor
 public class AuthenticationService {
     private final JwtService jwtService;
     private final UserServiceDAO userService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final RateLimiter rateLimiter;
+    private final RefreshTokenService refreshTokenService;
 
 
 
@@ -36,6 +44,8 @@ public class AuthenticationService {
 
     
     public JwtAuthenticationResponse signUp(SignUpRequest request ) {
+        rateLimiter.checkPhone(request.getPhoneNumber());
+
         var user = User.builder()
                 .username(generateUsernameFromPhone(request.getPhoneNumber()))
                 .firstName(request.getFirstName())
@@ -46,15 +56,15 @@ public class AuthenticationService {
                 .build();
   
         userService.create(user);
-        var jwt = jwtService.generateToken(user);
-        return new JwtAuthenticationResponse(jwt);
+        return issueTokens(user);
     }
 
 
     public JwtAuthenticationResponse signIn(SignInRequest request) {
+        rateLimiter.checkPhone(request.getPhoneNumber());
+
         try {
-            var user = userService.userDetailsService()
-                .loadUserByUsername(userService.getUsernameByPhoneNumber(request.getPhoneNumber()));
+            User user = userService.getUserByUsername(userService.getUsernameByPhoneNumber(request.getPhoneNumber()));
                 
             authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -65,8 +75,7 @@ public class AuthenticationService {
        
             
 
-            var jwt = jwtService.generateToken(user);
-            return new JwtAuthenticationResponse(jwt);
+            return issueTokens(user);
 
         } catch (Exception e) {
             throw new RuntimeException("Invalid phone number or password");
@@ -74,6 +83,30 @@ public class AuthenticationService {
     }
 
 
+    /**
+     * Обменивает refresh-токен на новую пару токенов
+     *
+     * <p>Использованный refresh-токен удаляется (ротация), пользователь загружается
+     * из базы, поэтому актуальная роль попадает в новый access-токен</p>
+     *
+     * @param request DTO с refresh-токеном
+     * @return новая пара access/refresh токенов
+     */
+    @Transactional
+    public JwtAuthenticationResponse refresh(RefreshTokenRequest request) {
+        User user = refreshTokenService.consume(request.getRefreshToken());
+        return issueTokens(user);
+    }
+
+
+    private JwtAuthenticationResponse issueTokens(User user) {
+        return new JwtAuthenticationResponse(
+            jwtService.generateToken(user),
+            refreshTokenService.issue(user)
+        );
+    }
+
+
     private String generateUsernameFromPhone(String phoneNumber) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
@@ -0,0 +1,53 @@
+package com.example.bankcards.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+
+
+
+@Slf4j
+public final class BCryptWorkFactorCalibrator {
+    private static final String SAMPLE_PASSWORD = "Calibration1Password";
+
+    private BCryptWorkFactorCalibrator() {
+    }
+
+
+    /**
+     * Подбирает стоимость BCrypt под целевое время хеширования на текущем железе
+     *
+     * <p>Стоимость увеличивается с {@code minStrength}, пока время одного хеширования
+     * остается строго меньше {@code targetMillis}; время замеряется в наносекундах, чтобы
+     * быстрые хеши не округлялись до нуля миллисекунд. Каждый шаг удваивает время, поэтому замер
+     * занимает не больше двух целевых интервалов сверх уже пройденных шагов</p>
+     *
+     * @param targetMillis целевое время одного хеширования в миллисекундах
+     * @param minStrength минимально допустимая стоимость
+     * @param maxStrength максимально допустимая стоимость
+     * @return наибольшая стоимость в диапазоне, укладывающаяся в целевое время
+     */
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        new BCryptPasswordEncoder(minStrength).encode(SAMPLE_PASSWORD);
+        return calibrate(targetMillis, minStrength, maxStrength, BCryptWorkFactorCalibrator::measureNanos);
+    }
+
+    static int calibrate(long targetMillis, int minStrength, int maxStrength, IntToLongFunction hashNanos) {
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        int strength = minStrength;
+        while (strength < maxStrength && hashNanos.applyAsLong(strength + 1) < targetNanos) {
+            strength++;
+        }
+
+        log.info("BCrypt work factor calibrated to {} (target {} ms)", strength, targetMillis);
+        return strength;
+    }
+
+    private static long measureNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return System.nanoTime() - start;
+    }
+}
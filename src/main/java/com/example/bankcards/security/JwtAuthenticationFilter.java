@@ -1,33 +1,44 @@
 package com.example.bankcards.security;
 
 
-import io.micrometer.common.util.StringUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import com.example.bankcards.service.DAO.UserServiceDAO;
+import com.example.bankcards.entity.ROLE;
+import com.example.bankcards.entity.User;
 import java.io.IOException;
 
 
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     public static final String BEARER_PREFIX = "Bearer ";
     public static final String HEADER_NAME = "Authorization";
     private final JwtService jwtService;
-    private final UserServiceDAO userService;
+    private final TokenRevocationService revocationService;
     
+    /**
+     * Аутентифицирует запрос по access-токену без обращения к базе
+     *
+     * <p>Access-токен живет несколько минут, поэтому claims id и role принимаются
+     * на веру после проверки подписи и срока действия. Изменения роли или удаление
+     * пользователя вступают в силу не позже истечения текущего access-токена.
+     * Токены, отозванные через /logout, отсекаются проверкой по фильтру Блума</p>
+     */
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -36,30 +47,43 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
     
         var authHeader = request.getHeader(HEADER_NAME);
-        if (StringUtils.isEmpty(authHeader) ) {
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
             filterChain.doFilter(request, response);
             return;
         }
    
         var jwt = authHeader.substring(BEARER_PREFIX.length());
-        var username = jwtService.extractUserName(jwt);
-        if (StringUtils.isNotEmpty(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService
-                    .userDetailsService()
-                    .loadUserByUsername(username);
-            
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                Claims claims = jwtService.parseAccessToken(jwt);
+                if (revocationService.isRevoked(claims.getId())) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                User principal = toPrincipal(claims);
+
                 SecurityContext context = SecurityContextHolder.createEmptyContext();
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.getAuthorities()
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 context.setAuthentication(authToken);
                 SecurityContextHolder.setContext(context);
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Rejected access token: {}", e.getMessage());
             }
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+
+    private User toPrincipal(Claims claims) {
+        return User.builder()
+                .id(claims.get("id", Long.class))
+                .username(claims.getSubject())
+                .role(ROLE.valueOf(claims.get("role", String.class)))
+                .build();
+    }
+}
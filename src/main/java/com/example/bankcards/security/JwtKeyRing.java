@@ -0,0 +1,148 @@
+package com.example.bankcards.security;
+
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.HashMap;
+import java.util.Map;
+import javax.crypto.SecretKey;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.MacAlgorithm;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+
+/**
+ * Кольцо ключей подписи JWT
+ *
+ * <p>Все ключи разбираются один раз при создании кольца и хранятся в памяти.
+ * Новые токены подписываются активным ключом и получают заголовок {@code kid},
+ * при проверке ключ выбирается по {@code kid} из заголовка токена. Это позволяет
+ * выполнять ротацию без инвалидации уже выданных токенов и проверять токены,
+ * подписанные ES256/EdDSA, без доступа к закрытому ключу</p>
+ */
+public class JwtKeyRing extends LocatorAdapter<Key> {
+    public static final String DEFAULT_KID = "default";
+
+    private final Map<String, Key> verificationKeys;
+    private final String activeKid;
+    private final Key activeSigningKey;
+    private final Object activeAlgorithm;
+
+
+    private JwtKeyRing(Map<String, Key> verificationKeys, String activeKid, Key activeSigningKey, Object activeAlgorithm) {
+        this.verificationKeys = Map.copyOf(verificationKeys);
+        this.activeKid = activeKid;
+        this.activeSigningKey = activeSigningKey;
+        this.activeAlgorithm = activeAlgorithm;
+    }
+
+
+    /**
+     * Собирает кольцо ключей из настроек
+     *
+     * @param properties настройки {@code token.signing.*}
+     * @return кольцо ключей
+     * @throws IllegalStateException если активный ключ не найден или не может подписывать
+     */
+    public static JwtKeyRing from(JwtKeyRingProperties properties) {
+        Map<String, Key> verificationKeys = new HashMap<>();
+        Map<String, Key> signingKeys = new HashMap<>();
+        Map<String, Object> algorithms = new HashMap<>();
+
+        if (properties.getKey() != null && !properties.getKey().isBlank()) {
+            SecretKey legacy = Keys.hmacShaKeyFor(Decoders.BASE64.decode(properties.getKey()));
+            verificationKeys.put(DEFAULT_KID, legacy);
+            signingKeys.put(DEFAULT_KID, legacy);
+            algorithms.put(DEFAULT_KID, Jwts.SIG.HS256);
+        }
+
+        for (JwtKeyRingProperties.KeyProperties key : properties.getKeys()) {
+            switch (key.getAlgorithm().toUpperCase()) {
+                case "HS256" -> {
+                    SecretKey secret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(key.getSecret()));
+                    verificationKeys.put(key.getKid(), secret);
+                    signingKeys.put(key.getKid(), secret);
+                    algorithms.put(key.getKid(), Jwts.SIG.HS256);
+                }
+                case "ES256" -> putAsymmetric(key, "EC", Jwts.SIG.ES256, verificationKeys, signingKeys, algorithms);
+                case "EDDSA" -> putAsymmetric(key, "Ed25519", Jwts.SIG.EdDSA, verificationKeys, signingKeys, algorithms);
+                default -> throw new IllegalStateException("Unsupported JWT algorithm: " + key.getAlgorithm());
+            }
+        }
+
+        String activeKid = properties.getActiveKid();
+        Key signingKey = signingKeys.get(activeKid);
+        if (signingKey == null) {
+            throw new IllegalStateException("No signing key configured for active kid " + activeKid);
+        }
+        return new JwtKeyRing(verificationKeys, activeKid, signingKey, algorithms.get(activeKid));
+    }
+
+
+    /**
+     * Подписывает токен активным ключом и проставляет заголовок kid
+     *
+     * @param builder построитель токена
+     * @return тот же построитель
+     */
+    public JwtBuilder sign(JwtBuilder builder) {
+        builder.header().keyId(activeKid);
+        if (activeAlgorithm instanceof MacAlgorithm mac) {
+            return builder.signWith((SecretKey) activeSigningKey, mac);
+        }
+        return builder.signWith((PrivateKey) activeSigningKey, (SignatureAlgorithm) activeAlgorithm);
+    }
+
+    /**
+     * @return kid ключа, которым подписываются новые токены
+     */
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    /**
+     * Выбирает ключ проверки по заголовку kid
+     *
+     * <p>Токены без kid выпущены до появления кольца и проверяются ключом {@link #DEFAULT_KID}</p>
+     */
+    @Override
+    protected Key locate(ProtectedHeader header) {
+        String kid = header.getKeyId() != null ? header.getKeyId() : DEFAULT_KID;
+        Key key = verificationKeys.get(kid);
+        if (key == null) {
+            throw new InvalidKeyException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+
+
+    private static void putAsymmetric(
+            JwtKeyRingProperties.KeyProperties key,
+            String keyFactoryAlgorithm,
+            SignatureAlgorithm algorithm,
+            Map<String, Key> verificationKeys,
+            Map<String, Key> signingKeys,
+            Map<String, Object> algorithms) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance(keyFactoryAlgorithm);
+            PublicKey publicKey = factory.generatePublic(new X509EncodedKeySpec(Decoders.BASE64.decode(key.getPublicKey())));
+            verificationKeys.put(key.getKid(), publicKey);
+            if (key.getPrivateKey() != null && !key.getPrivateKey().isBlank()) {
+                PrivateKey privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(Decoders.BASE64.decode(key.getPrivateKey())));
+                signingKeys.put(key.getKid(), privateKey);
+            }
+            algorithms.put(key.getKid(), algorithm);
+        } catch (java.security.GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid " + key.getAlgorithm() + " key " + key.getKid(), e);
+        }
+    }
+}
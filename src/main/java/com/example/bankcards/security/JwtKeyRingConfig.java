@@ -0,0 +1,16 @@
+package com.example.bankcards.security;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+@Configuration
+@EnableConfigurationProperties(JwtKeyRingProperties.class)
+public class JwtKeyRingConfig {
+
+    @Bean
+    public JwtKeyRing jwtKeyRing(JwtKeyRingProperties properties) {
+        return JwtKeyRing.from(properties);
+    }
+}
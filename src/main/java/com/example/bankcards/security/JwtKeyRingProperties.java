@@ -0,0 +1,54 @@
+package com.example.bankcards.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import lombok.Data;
+
+
+/**
+ * Настройки ключей подписи JWT ({@code token.signing.*})
+ *
+ * <p>{@code key} - исходный HS256 ключ, доступен в кольце под kid {@link JwtKeyRing#DEFAULT_KID}
+ * и используется для проверки токенов без заголовка kid. {@code keys} - дополнительные
+ * ключи, {@code active-kid} - ключ, которым подписываются новые токены. Ключи,
+ * выведенные из ротации, остаются в списке только для проверки до истечения
+ * выданных ими токенов</p>
+ */
+@Data
+@ConfigurationProperties(prefix = "token.signing")
+public class JwtKeyRingProperties {
+
+    private String key;
+
+    private String activeKid = JwtKeyRing.DEFAULT_KID;
+
+    private List<KeyProperties> keys = new ArrayList<>();
+
+
+    @Data
+    public static class KeyProperties {
+
+        private String kid;
+
+        /**
+         * HS256, ES256 или EdDSA
+         */
+        private String algorithm = "HS256";
+
+        /**
+         * Секрет HS256 в base64
+         */
+        private String secret;
+
+        /**
+         * Закрытый ключ ES256/EdDSA в base64 (PKCS#8 DER), нужен только активному ключу
+         */
+        private String privateKey;
+
+        /**
+         * Открытый ключ ES256/EdDSA в base64 (X.509 DER)
+         */
+        private String publicKey;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bankcards.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.stereotype.Component;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtLogoutHandler implements LogoutHandler {
+    private final JwtService jwtService;
+    private final TokenRevocationService revocationService;
+    private final RefreshTokenService refreshTokenService;
+
+
+    /**
+     * Отзывает access-токен из заголовка Authorization и все refresh-токены пользователя
+     *
+     * <p>Сессии не создаются (STATELESS), поэтому выход из системы сводится к внесению
+     * jti токена в список отзыва до истечения его срока действия</p>
+     */
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        var authHeader = request.getHeader(JwtAuthenticationFilter.HEADER_NAME);
+        if (authHeader == null || !authHeader.startsWith(JwtAuthenticationFilter.BEARER_PREFIX)) {
+            return;
+        }
+
+        try {
+            Claims claims = jwtService.parseAccessToken(authHeader.substring(JwtAuthenticationFilter.BEARER_PREFIX.length()));
+            revocationService.revoke(claims.getId(), claims.getExpiration().toInstant());
+
+            Long userId = claims.get("id", Long.class);
+            if (userId != null) {
+                refreshTokenService.revokeAll(userId);
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Logout with invalid access token: {}", e.getMessage());
+        }
+    }
+}
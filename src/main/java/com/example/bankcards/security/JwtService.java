@@ -4,28 +4,40 @@ package com.example.bankcards.security;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
-import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
+import jakarta.annotation.PostConstruct;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import com.example.bankcards.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
-    
-    @Value("${token.signing.key}")
-    private String jwtSigningKey;
+    private final JwtKeyRing keyRing;
 
     @Value("${token.expiration.access}")
     private long accessTokenExpiration;
 
+    private JwtParser parser;
+
+
+    /**
+     * Создает парсер один раз при старте, ключ проверки выбирается
+     * из кольца ключей по заголовку kid
+     */
+    @PostConstruct
+    void init() {
+        this.parser = Jwts.parser().keyLocator(keyRing).build();
+    }
+
      /**
      * Извлекает имя пользователя (subject) из JWT токена
      *
@@ -42,24 +54,37 @@ public class JwtService {
      *
      * @param userDetails данные пользователя
      * @return сгенерированный JWT токен
-     * <p>Дополнительно включает в токен следующие claims:
+     * <p>Токен короткоживущий ({@code token.expiration.access}) и компактный,
+     * содержит уникальный идентификатор jti для отзыва и дополнительно включает
+     * в токен следующие claims:
      * <ul>
      *   <li>id - идентификатор пользователя</li>
-     *   <li>phone - номер телефона пользователя</li>
      *   <li>role - роль пользователя</li>
      * </ul>
+     * Этих данных достаточно, чтобы аутентифицировать запрос без обращения к базе
      * </p>
      */
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         if (userDetails instanceof User customUserDetails) {
             claims.put("id", customUserDetails.getId());
-            claims.put("phone", customUserDetails.getPhoneNumber());
             claims.put("role", customUserDetails.getRole());
         }
         return generateToken(claims, userDetails);
     }
 
+
+    /**
+     * Проверяет подпись и срок действия access-токена и возвращает его claims
+     *
+     * @param token JWT токен
+     * @return claims токена
+     * @throws JwtException если токен невалиден, подделан или просрочен
+     */
+    public Claims parseAccessToken(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
      /**
      * Проверяет валидность токена для указанного пользователя
      *
@@ -96,12 +121,13 @@ public class JwtService {
      */
     private String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
 
-        return Jwts.builder()
+        return keyRing.sign(Jwts.builder()
+            .id(UUID.randomUUID().toString())
             .subject(userDetails.getUsername())
             .claims(extraClaims)
             .issuedAt(new Date(System.currentTimeMillis()))
-            .expiration(new Date(System.currentTimeMillis() + accessTokenExpiration))
-            .signWith(getSigningKey() , Jwts.SIG.HS256).compact();
+            .expiration(new Date(System.currentTimeMillis() + accessTokenExpiration)))
+            .compact();
           
     }
 
@@ -114,7 +140,7 @@ public class JwtService {
      * @return объект Claims со всеми данными токена
      */
     private Claims extractAllClaims(String token) {
-         return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
+         return parseAccessToken(token);
     }
 
 
@@ -139,17 +165,4 @@ public class JwtService {
     private Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
-
-
-   
-    /**
-     * Создает ключ для подписи токенов на основе конфигурации
-     *
-     * @return секретный ключ для подписи JWT
-     * @throws IllegalArgumentException если ключ подписи невалиден
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSigningKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
@@ -0,0 +1,77 @@
+package com.example.bankcards.security;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.config.datasource.Workload;
+import com.example.bankcards.config.datasource.WorkloadType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+
+@Slf4j
+@Service
+@Workload(WorkloadType.AUTH)
+@RequiredArgsConstructor
+public class PasswordUpgradeService implements UserDetailsPasswordService {
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityCacheInvalidator entityCacheInvalidator;
+
+    private final Map<String, String> pendingUpgrades = new ConcurrentHashMap<>();
+
+
+    /**
+     * Ставит в очередь перехешированный пароль пользователя
+     *
+     * <p>Вызывается {@code DaoAuthenticationProvider} после успешного входа, если хеш
+     * пароля устарел (старый формат или стоимость ниже текущей). Запись в базу
+     * выполняется пакетно в {@link #flush()}, вход пользователя не ждет UPDATE</p>
+     *
+     * @param user пользователь, прошедший аутентификацию
+     * @param newPassword новый хеш пароля
+     * @return тот же пользователь
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        pendingUpgrades.put(user.getUsername(), newPassword);
+        return user;
+    }
+
+
+    /**
+     * Записывает накопленные хеши паролей одним пакетным UPDATE
+     */
+    @Scheduled(fixedDelayString = "${app.security.password.upgrade-flush-interval}")
+    @PreDestroy
+    public void flush() {
+        if (pendingUpgrades.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        Iterator<Map.Entry<String, String>> iterator = pendingUpgrades.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, String> entry = iterator.next();
+            batch.add(new Object[] {entry.getValue(), entry.getKey()});
+            iterator.remove();
+        }
+
+        try {
+            jdbcTemplate.batchUpdate("UPDATE USER_TABLE SET password = ? WHERE username = ?", batch);
+            entityCacheInvalidator.usersChangedInBulk();
+            log.info("Upgraded password hashes for {} users", batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Password hash upgrade failed, will retry on next login: {}", e.getMessage());
+        }
+    }
+}
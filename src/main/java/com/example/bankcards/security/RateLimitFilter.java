@@ -0,0 +1,71 @@
+package com.example.bankcards.security;
+
+import java.io.IOException;
+import java.util.Set;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import com.example.bankcards.exception.ErrorResponse;
+import com.example.bankcards.security.ratelimit.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+
+
+/**
+ * Ограничивает частоту запросов к эндпоинтам аутентификации по адресу клиента
+ *
+ * <p>Адрес берется из {@link HttpServletRequest#getRemoteAddr()}. За балансировщиком его
+ * подставляет Tomcat из {@code X-Forwarded-For} ({@code server.forward-headers-strategy: native}),
+ * но только для запросов от прокси из {@code server.tomcat.remoteip.internal-proxies}: клиент,
+ * обратившийся напрямую, не может подменить свой адрес заголовком</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Set<String> LIMITED_PATHS = Set.of("/sign-in", "/sign-up");
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+
+    /**
+     * Фильтр применяется только к POST-запросам на эндпоинты аутентификации
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !LIMITED_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        long retryAfter = rateLimiter.tryAcquireForClient(request.getRemoteAddr());
+        if (retryAfter > 0) {
+            ErrorResponse error = new ErrorResponse(
+                "TOO_MANY_REQUESTS",
+                "Слишком много запросов, повторите позже"
+            );
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            objectMapper.writeValue(response.getOutputStream(), error);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
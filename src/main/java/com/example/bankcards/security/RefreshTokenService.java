@@ -0,0 +1,121 @@
+package com.example.bankcards.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.datasource.Workload;
+import com.example.bankcards.config.datasource.WorkloadType;
+import com.example.bankcards.entity.RefreshToken;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.UserException.InvalidRefreshTokenException;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+
+@Slf4j
+@Service
+@Workload(WorkloadType.AUTH)
+@RequiredArgsConstructor
+public class RefreshTokenService {
+    private static final SecureRandom random = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository repository;
+
+    @Value("${token.expiration.refresh}")
+    private long refreshTokenExpiration;
+
+
+    /**
+     * Выпускает новый непрозрачный refresh-токен для пользователя
+     *
+     * <p>В базе хранится только SHA-256 хеш токена, сам токен возвращается клиенту один раз</p>
+     *
+     * @param user владелец токена
+     * @return refresh-токен в виде base64url строки
+     */
+    @Transactional
+    public String issue(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant now = Instant.now();
+        repository.save(RefreshToken.builder()
+            .tokenHash(hash(token))
+            .user(user)
+            .createdAt(now)
+            .expiresAt(now.plusMillis(refreshTokenExpiration))
+            .build());
+
+        return token;
+    }
+
+
+    /**
+     * Погашает refresh-токен и возвращает его владельца
+     *
+     * <p>Токен удаляется в той же транзакции, поэтому повторное или параллельное
+     * использование одного токена приводит к ошибке</p>
+     *
+     * @param token refresh-токен, полученный от клиента
+     * @return владелец токена
+     * @throws InvalidRefreshTokenException если токен не найден, уже использован или просрочен
+     */
+    @Transactional
+    public User consume(String token) {
+        RefreshToken refreshToken = repository.findByTokenHash(hash(token))
+            .orElseThrow(() -> InvalidRefreshTokenException.INSTANCE);
+
+        if (repository.deleteTokenById(refreshToken.getId()) == 0
+                || refreshToken.getExpiresAt().isBefore(Instant.now())) {
+            throw InvalidRefreshTokenException.INSTANCE;
+        }
+
+        return refreshToken.getUser();
+    }
+
+
+    /**
+     * Отзывает все refresh-токены пользователя
+     *
+     * @param userId идентификатор пользователя
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        repository.deleteAllByUserId(userId);
+    }
+
+
+    /**
+     * Периодически удаляет просроченные refresh-токены
+     */
+    @Scheduled(cron = "${token.refresh.cleanup-cron}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+
+    private static String hash(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
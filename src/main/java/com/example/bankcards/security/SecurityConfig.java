@@ -1,10 +1,14 @@
 package com.example.bankcards.security;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -14,13 +18,17 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.HttpStatusReturningLogoutSuccessHandler;
 import org.springframework.web.cors.CorsConfiguration;
 
 import com.example.bankcards.service.DAO.UserServiceDAO;
 
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 
@@ -31,7 +39,26 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class SecurityConfig  {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final JwtLogoutHandler jwtLogoutHandler;
     private final UserServiceDAO userService;
+    private final PasswordUpgradeService passwordUpgradeService;
+
+    @Value("${app.security.password.strength}")
+    private int passwordStrength;
+
+    @Value("${app.security.password.target-hash-time}")
+    private Duration targetHashTime;
+
+    @Value("${app.security.password.min-strength}")
+    private int minPasswordStrength;
+
+    @Value("${app.security.password.max-strength}")
+    private int maxPasswordStrength;
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws  Exception{
         http
@@ -46,28 +73,63 @@ public class SecurityConfig  {
                 }))
                 .authorizeHttpRequests(request ->
                         request.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() 
-                                .requestMatchers("/logout" , "/sign-up" ,"/sign-in","/actuator/**", "/swagger-ui/**" , "/v3/**","/openapi.yml" ,"/swagger-ui.html/", "/swagger-ui.html").permitAll()
+                                // асинхронная досылка потоковых ответов уже прошла авторизацию в исходном запросе
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers("/logout" , "/sign-up" ,"/sign-in", "/refresh", "/swagger-ui/**" , "/v3/**","/openapi.yml" ,"/swagger-ui.html/", "/swagger-ui.html").permitAll()
+                                // без входа доступен только health (healthcheck контейнера); остальные
+                                // эндпоинты actuator раскрывают метрики и id карт и нужны только администратору
+                                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                                // отдельный порт управления не публикуется наружу: сборщик метрик читает с него prometheus без токена
+                                .requestMatchers(this::isPrometheusOnManagementPort).permitAll()
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                 .requestMatchers("/admin/**").hasRole("ADMIN")
                                 .anyRequest().authenticated())
                 .sessionManagement( manager -> manager.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider())
+                .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .logout(logout -> logout
-                        .logoutUrl("/logout"));
+                        .logoutUrl("/logout")
+                        .addLogoutHandler(jwtLogoutHandler)
+                        .logoutSuccessHandler(new HttpStatusReturningLogoutSuccessHandler(HttpStatus.OK)));
                         
         return http.build();
 
     }
 
+    private boolean isPrometheusOnManagementPort(HttpServletRequest request) {
+        return managementPort > 0
+                && request.getLocalPort() == managementPort
+                && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
+    /**
+     * Кодировщик паролей с префиксом алгоритма ({@code {bcrypt}...})
+     *
+     * <p>Стоимость BCrypt задается {@code app.security.password.strength} или, если она
+     * равна 0, подбирается при старте под {@code target-hash-time}. Хеши без префикса
+     * (например исходные {@code $2a$10$} из миграций) проверяются как BCrypt и
+     * помечаются как устаревшие, чтобы перехешироваться при следующем входе</p>
+     *
+     * @return делегирующий кодировщик паролей
+     */
     @Bean
     public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+        int strength = passwordStrength > 0
+                ? passwordStrength
+                : BCryptWorkFactorCalibrator.calibrate(targetHashTime.toMillis(), minPasswordStrength, maxPasswordStrength);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
     public AuthenticationProvider authenticationProvider(){
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider(userService.userDetailsService());
         authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setUserDetailsPasswordService(passwordUpgradeService);
         return authenticationProvider;
     }
 
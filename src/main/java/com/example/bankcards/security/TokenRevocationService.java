@@ -0,0 +1,156 @@
+package com.example.bankcards.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.datasource.Workload;
+import com.example.bankcards.config.datasource.WorkloadType;
+import com.example.bankcards.entity.RevokedToken;
+import com.example.bankcards.repository.RevokedTokenRepository;
+import com.example.bankcards.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+
+@Slf4j
+@Service
+@Workload(WorkloadType.AUTH)
+@RequiredArgsConstructor
+public class TokenRevocationService {
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final RevokedTokenRepository repository;
+
+    @Value("${app.security.revocation.expected-tokens}")
+    private long expectedTokens;
+
+    @Value("${app.security.revocation.false-positive-rate}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter bloomFilter;
+    private volatile Set<String> revoked;
+    private volatile Instant lastSync;
+
+
+    /**
+     * Загружает еще действующие отозванные токены при старте
+     */
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+
+    /**
+     * Проверяет, отозван ли токен
+     *
+     * <p>Для подавляющего большинства запросов ответ дает фильтр Блума без обращения
+     * к базе. Только при положительном ответе фильтра проверяется точное множество,
+     * а при ложноположительном срабатывании - таблица отозванных токенов</p>
+     *
+     * @param jti идентификатор токена (claim jti)
+     * @return true если токен отозван
+     */
+    public boolean isRevoked(String jti) {
+        if (!mightBeRevoked(jti)) {
+            return false;
+        }
+        if (revoked.contains(jti)) {
+            return true;
+        }
+        if (repository.existsById(jti)) {
+            revoked.add(jti);
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Проверяет токен только по фильтру Блума, без обращения к базе
+     *
+     * @param jti идентификатор токена (claim jti)
+     * @return false если токен точно не отозван, true если нужна проверка через {@link #isRevoked}
+     */
+    public boolean mightBeRevoked(String jti) {
+        return jti != null && bloomFilter.mightContain(jti);
+    }
+
+
+    /**
+     * Отзывает токен до истечения его срока действия
+     *
+     * @param jti идентификатор токена (claim jti)
+     * @param expiresAt время истечения токена
+     */
+    @Transactional
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || revoked.contains(jti)) {
+            return;
+        }
+        repository.save(RevokedToken.builder()
+            .jti(jti)
+            .revokedAt(Instant.now())
+            .expiresAt(expiresAt)
+            .build());
+        remember(jti);
+    }
+
+
+    /**
+     * Подтягивает токены, отозванные другими экземплярами приложения
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.sync-interval}")
+    public void sync() {
+        Instant since = lastSync.minus(SYNC_OVERLAP);
+        lastSync = Instant.now();
+        for (RevokedToken token : repository.findByRevokedAtAfter(since)) {
+            remember(token.getJti());
+        }
+    }
+
+
+    /**
+     * Удаляет истекшие записи и перестраивает фильтр Блума
+     *
+     * <p>Из фильтра Блума нельзя удалять ключи, поэтому после очистки таблицы
+     * фильтр и точное множество строятся заново</p>
+     */
+    @Scheduled(cron = "${app.security.revocation.cleanup-cron}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(Instant.now());
+        rebuild();
+        log.info("Purged {} expired revoked tokens", deleted);
+    }
+
+
+    private void rebuild() {
+        Instant now = Instant.now();
+        List<RevokedToken> active = repository.findByExpiresAtAfter(now);
+
+        BloomFilter filter = new BloomFilter(Math.max(expectedTokens, active.size() * 2L), falsePositiveRate);
+        Set<String> exact = ConcurrentHashMap.newKeySet();
+        for (RevokedToken token : active) {
+            filter.put(token.getJti());
+            exact.add(token.getJti());
+        }
+
+        this.revoked = exact;
+        this.bloomFilter = filter;
+        this.lastSync = now;
+    }
+
+    private void remember(String jti) {
+        revoked.add(jti);
+        bloomFilter.put(jti);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.security.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Локальное хранилище ведер с ограниченным размером
+ *
+ * <p>Ключи распределяются по независимым сегментам (striping), каждый сегмент -
+ * LRU на основе {@link LinkedHashMap} в режиме access-order. Блокировка сегмента
+ * держится только на время поиска ведра, само списание токена lock-free</p>
+ */
+public class InMemoryRateLimitBackend implements RateLimitBackend {
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public InMemoryRateLimitBackend(int maxBuckets) {
+        int perStripe = Math.max(1, maxBuckets / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, RateLimitPolicy policy) {
+        long now = System.nanoTime();
+        return bucket(key, now).tryConsume(now, policy);
+    }
+
+    @Override
+    public long retryAfterSeconds(String key, RateLimitPolicy policy) {
+        long now = System.nanoTime();
+        long nanos = bucket(key, now).nanosUntilNextToken(now, policy);
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos) + 1);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private TokenBucket bucket(String key, long now) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (STRIPES - 1)];
+        synchronized (stripe) {
+            TokenBucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new TokenBucket(now);
+                stripe.put(key, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+
+    private static final class Stripe extends LinkedHashMap<String, TokenBucket> {
+        private final int maxSize;
+
+        Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
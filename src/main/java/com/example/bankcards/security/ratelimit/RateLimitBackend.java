@@ -0,0 +1,35 @@
+package com.example.bankcards.security.ratelimit;
+
+
+/**
+ * Хранилище состояния ограничителя запросов
+ *
+ * <p>По умолчанию используется {@link InMemoryRateLimitBackend}, лимиты действуют
+ * в пределах одного экземпляра приложения. Для общих лимитов на кластер достаточно
+ * объявить бин с реализацией поверх разделяемого хранилища (Redis, Hazelcast и т.п.)</p>
+ */
+public interface RateLimitBackend {
+
+    /**
+     * Пытается списать токен из ведра с указанным ключом
+     *
+     * @param key ключ ведра (например {@code ip:10.0.0.1})
+     * @param policy параметры ведра
+     * @return true если запрос разрешен
+     */
+    boolean tryAcquire(String key, RateLimitPolicy policy);
+
+    /**
+     * Возвращает рекомендуемую задержку перед повторным запросом
+     *
+     * @param key ключ ведра
+     * @param policy параметры ведра
+     * @return задержка в секундах (не меньше 1)
+     */
+    long retryAfterSeconds(String key, RateLimitPolicy policy);
+
+    /**
+     * @return количество ведер, хранимых в данный момент
+     */
+    int size();
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.security.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${app.rate-limit.max-buckets}")
+    private int maxBuckets;
+
+
+    /**
+     * Локальное хранилище ведер, используется если не объявлен другой {@link RateLimitBackend}
+     *
+     * @return хранилище ведер в памяти приложения
+     */
+    @Bean
+    @ConditionalOnMissingBean(RateLimitBackend.class)
+    public RateLimitBackend rateLimitBackend() {
+        return new InMemoryRateLimitBackend(maxBuckets);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.security.ratelimit;
+
+import java.time.Duration;
+
+
+/**
+ * Параметры token bucket: не более {@code capacity} запросов за {@code refillPeriod}
+ *
+ * @param capacity максимальный размер всплеска (количество токенов в ведре)
+ * @param refillPeriod время полного восполнения ведра
+ */
+public record RateLimitPolicy(int capacity, Duration refillPeriod) {
+
+    public RateLimitPolicy {
+        if (capacity <= 0 || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            throw new IllegalArgumentException("Invalid rate limit policy");
+        }
+    }
+
+    /**
+     * @return интервал выдачи одного токена в наносекундах
+     */
+    public long emissionIntervalNanos() {
+        return Math.max(1, refillPeriod.toNanos() / capacity);
+    }
+
+    /**
+     * @return допустимое опережение графика (размер всплеска) в наносекундах
+     */
+    public long burstToleranceNanos() {
+        return emissionIntervalNanos() * capacity;
+    }
+}
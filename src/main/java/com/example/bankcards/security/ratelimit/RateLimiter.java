@@ -0,0 +1,91 @@
+package com.example.bankcards.security.ratelimit;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.exception.UserException.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Ограничитель запросов к эндпоинтам аутентификации
+ *
+ * <p>Ведет два независимых набора ведер: по IP-адресу клиента и по номеру телефона.
+ * Количество отклоненных запросов публикуется в метрике {@code auth.rate.limit.rejected}</p>
+ */
+@Component
+public class RateLimiter {
+    private static final String CLIENT_PREFIX = "ip:";
+    private static final String PHONE_PREFIX = "phone:";
+
+    private final RateLimitBackend backend;
+    private final boolean enabled;
+    private final RateLimitPolicy clientPolicy;
+    private final RateLimitPolicy phonePolicy;
+    private final Counter clientRejections;
+    private final Counter phoneRejections;
+
+    public RateLimiter(
+            RateLimitBackend backend,
+            MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.enabled}") boolean enabled,
+            @Value("${app.rate-limit.client.capacity}") int clientCapacity,
+            @Value("${app.rate-limit.client.refill-period}") Duration clientRefillPeriod,
+            @Value("${app.rate-limit.phone.capacity}") int phoneCapacity,
+            @Value("${app.rate-limit.phone.refill-period}") Duration phoneRefillPeriod) {
+        this.backend = backend;
+        this.enabled = enabled;
+        this.clientPolicy = new RateLimitPolicy(clientCapacity, clientRefillPeriod);
+        this.phonePolicy = new RateLimitPolicy(phoneCapacity, phoneRefillPeriod);
+        this.clientRejections = Counter.builder("auth.rate.limit.rejected")
+                .description("Запросы к /sign-in и /sign-up, отклоненные ограничителем")
+                .tag("key", "client")
+                .register(meterRegistry);
+        this.phoneRejections = Counter.builder("auth.rate.limit.rejected")
+                .description("Запросы к /sign-in и /sign-up, отклоненные ограничителем")
+                .tag("key", "phone")
+                .register(meterRegistry);
+        Gauge.builder("auth.rate.limit.buckets", backend, RateLimitBackend::size)
+                .description("Количество ведер, хранимых ограничителем")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Списывает токен из ведра клиента
+     *
+     * @param clientAddress IP-адрес клиента
+     * @return 0 если запрос разрешен, иначе рекомендуемая задержка в секундах
+     */
+    public long tryAcquireForClient(String clientAddress) {
+        if (!enabled) {
+            return 0;
+        }
+        String key = CLIENT_PREFIX + clientAddress;
+        if (backend.tryAcquire(key, clientPolicy)) {
+            return 0;
+        }
+        clientRejections.increment();
+        return backend.retryAfterSeconds(key, clientPolicy);
+    }
+
+
+    /**
+     * Списывает токен из ведра номера телефона
+     *
+     * @param phoneNumber номер телефона из запроса
+     * @throws TooManyRequestsException если лимит для номера исчерпан
+     */
+    public void checkPhone(String phoneNumber) {
+        if (!enabled || phoneNumber == null) {
+            return;
+        }
+        String key = PHONE_PREFIX + phoneNumber;
+        if (!backend.tryAcquire(key, phonePolicy)) {
+            phoneRejections.increment();
+            throw new TooManyRequestsException(backend.retryAfterSeconds(key, phonePolicy));
+        }
+    }
+}
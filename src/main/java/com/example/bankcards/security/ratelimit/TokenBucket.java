@@ -0,0 +1,55 @@
+package com.example.bankcards.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Lock-free token bucket на основе алгоритма GCRA
+ *
+ * <p>Состояние ведра хранится в одном {@code long} - теоретическом времени прихода
+ * следующего запроса (TAT), поэтому списание токена сводится к одному CAS
+ * без блокировок и без аллокаций</p>
+ */
+public class TokenBucket {
+    private final AtomicLong theoreticalArrivalTime;
+
+    public TokenBucket(long nowNanos) {
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Пытается списать один токен
+     *
+     * @param nowNanos текущее время ({@link System#nanoTime()})
+     * @param policy параметры ведра
+     * @return true если токен списан, false если лимит исчерпан
+     */
+    public boolean tryConsume(long nowNanos, RateLimitPolicy policy) {
+        long interval = policy.emissionIntervalNanos();
+        long tolerance = policy.burstToleranceNanos();
+
+        while (true) {
+            long current = theoreticalArrivalTime.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + interval;
+            if (next - nowNanos > tolerance) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Вычисляет время до появления следующего токена
+     *
+     * @param nowNanos текущее время ({@link System#nanoTime()})
+     * @param policy параметры ведра
+     * @return время ожидания в наносекундах, 0 если токен уже доступен
+     */
+    public long nanosUntilNextToken(long nowNanos, RateLimitPolicy policy) {
+        long wait = theoreticalArrivalTime.get() + policy.emissionIntervalNanos()
+                - policy.burstToleranceNanos() - nowNanos;
+        return Math.max(0, wait);
+    }
+}
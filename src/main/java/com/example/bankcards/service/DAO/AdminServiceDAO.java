@@ -1,10 +1,20 @@
 package com.example.bankcards.service.DAO;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import com.example.bankcards.dto.AddBallanceRequestDTO;
+import com.example.bankcards.dto.BulkCardStatusRequest;
+import com.example.bankcards.dto.BulkCardStatusResponse;
+import com.example.bankcards.dto.BulkDeleteUsersResponse;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.SpendingLimitRequest;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.entity.SpendingLimit;
+import com.example.bankcards.util.CardExportFormat;
 
 
 
@@ -20,5 +30,10 @@ public interface AdminServiceDAO {
     Page<CardDto> getPendingBlockCards(int page , int size);
     String getDecryptCardNumber(Long cardId);
     void deleteUser(Long userId);
+    BulkDeleteUsersResponse deleteUsers(List<Long> ids);
     void addBallance(AddBallanceRequestDTO dto);
+    void exportAllCards(CardExportFormat format, OutputStream out) throws IOException;
+    BulkCardStatusResponse changeCardsStatus(CardStatusTransition transition, BulkCardStatusRequest request);
+    SpendingLimit setCardSpendingLimit(Long cardId, SpendingLimitRequest request);
+    SpendingLimit setUserSpendingLimit(Long userId, SpendingLimitRequest request);
 }
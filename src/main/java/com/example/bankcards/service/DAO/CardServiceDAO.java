@@ -1,10 +1,19 @@
 package com.example.bankcards.service.DAO;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Page;
+import com.example.bankcards.cache.CardBalanceSnapshot;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransferHistoryPage;
 import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardDetails;
+import com.example.bankcards.entity.CardStatusTransition;
 
 
 public interface CardServiceDAO {
@@ -12,7 +21,10 @@ public interface CardServiceDAO {
     Card create(Card card);
     void block(Long cardId);
     BigDecimal getBallance(Long cardId);
+    CardBalanceSnapshot getBalanceSnapshot(Long cardId);
     Card getCardById(Long  cartId);
+    Card getCardByIdWithLock(Long cardId);
+    CardDetails getCardDetails(Long cardId);
     boolean checkUserCard(Long userId , Long cardId);
     void userBlockCard(Long cardId);
     Page<CardDto> findUserCardsById(Long userId ,  int page, int size);
@@ -22,4 +34,10 @@ public interface CardServiceDAO {
     void delete(Long id);
     void activate(Long id);
     Page<CardDto>getAllCards(int page , int size);
+    Stream<CardDto> streamAllCards();
+    List<Long> changeStatus(CardStatusTransition transition, Collection<Long> ids);
+    List<Long> changeStatusBefore(CardStatusTransition transition, Instant changedBefore, int limit);
+    List<Long> expireCards(long fromId, long toId);
+    List<Card> renewCards(Map<Long, Card> replacements);
+    TransferHistoryPage getTransferHistory(Long cardId, String cursor, int size);
 }
@@ -1,9 +1,12 @@
 package com.example.bankcards.service.DAO;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransferHistoryPage;
 import com.example.bankcards.dto.TransferRequestDTO;
 import com.example.bankcards.entity.User;
 
@@ -22,5 +25,7 @@ public interface UserServiceDAO {
     Page<CardDto>getUserCards(int page , int size);
     void requestCardBlock(Long cardId);
     void delete(Long userId);
+    List<Long> deleteAll(Collection<Long> ids);
     String getDecryptCardNumber(Long cardId);
+    TransferHistoryPage getCardTransfers(Long cardId, String cursor, int size);
 }
@@ -1,21 +1,41 @@
 package com.example.bankcards.service.Impl;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.bankcards.config.datasource.Workload;
+import com.example.bankcards.config.datasource.WorkloadType;
 import com.example.bankcards.dto.AddBallanceRequestDTO;
+import com.example.bankcards.dto.BulkCardStatusRequest;
+import com.example.bankcards.dto.BulkCardStatusResponse;
+import com.example.bankcards.dto.BulkDeleteUsersResponse;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.SpendingLimitRequest;
 import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardDetails;
+import com.example.bankcards.entity.CardStatusTransition;
 import com.example.bankcards.entity.ROLE;
+import com.example.bankcards.entity.SpendingLimit;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardException.CardBlockException;
 import com.example.bankcards.exception.CardException.CardCreateException;
 import com.example.bankcards.exception.CardException.CardNotFoundException;
 import com.example.bankcards.exception.UserException.UserNotFoundException;
+import com.example.bankcards.limits.SpendingLimits;
 import com.example.bankcards.service.DAO.AdminServiceDAO;
 import com.example.bankcards.service.DAO.CardServiceDAO;
 import com.example.bankcards.service.DAO.UserServiceDAO;
+import com.example.bankcards.util.CardExportFormat;
+import com.example.bankcards.util.CardExportWriter;
 import com.example.bankcards.util.CardGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +48,14 @@ public class AdminServiceImpl implements AdminServiceDAO{
     private final CardServiceDAO cardService;
     private final UserServiceDAO userService;
     private final CardGenerator cardGenerator;
+    private final CardExportWriter cardExportWriter;
+    private final SpendingLimits spendingLimits;
+
+    @Value("${app.admin.bulk.max-cards}")
+    private int bulkMaxCards;
+
+    @Value("${app.admin.bulk.delete-chunk-size}")
+    private int deleteChunkSize;
 
 
      /**
@@ -43,7 +71,7 @@ public class AdminServiceImpl implements AdminServiceDAO{
         Card card = cardGenerator.generateCard(owner);
     
 
-        return cardService.save(card);
+        return cardService.create(card);
     };
 
 
@@ -57,7 +85,7 @@ public class AdminServiceImpl implements AdminServiceDAO{
      */
     @Override
     public String getDecryptCardNumber(Long cardId){
-        Card card  = cardService.getCardById(cardId);
+        CardDetails card = cardService.getCardDetails(cardId);
        
         return    cardGenerator.decryptCardNumber(card.getEncryptedCardNumber());
     }
@@ -124,6 +152,7 @@ public class AdminServiceImpl implements AdminServiceDAO{
      * @return страница с картами в формате DTO
      */
     @Override
+    @Workload(WorkloadType.REPORTING)
     public Page<CardDto> getAllCards(int page , int size){
         return  cardService.getAllCards( page ,  size);
     };
@@ -138,11 +167,7 @@ public class AdminServiceImpl implements AdminServiceDAO{
      */
     @Override
     public void approveBlock(Long cardId){
-        if (cardService.getCardById(cardId).getStatus() != CARD_STATUS.PENDING_BLOCK) {
-            throw new CardBlockException(cardId);
-        }
-
-        cardService.block(cardId);
+        changeSingleCardStatus(CardStatusTransition.APPROVE_BLOCK, cardId);
     };
 
 
@@ -156,12 +181,7 @@ public class AdminServiceImpl implements AdminServiceDAO{
      */
     @Override
     public void  rejectBlock(Long cardId){
-    
-        if (cardService.getCardById(cardId).getStatus() != CARD_STATUS.PENDING_BLOCK) {
-            throw new CardBlockException(cardId);
-        }
-
-        cardService.activate(cardId);
+        changeSingleCardStatus(CardStatusTransition.REJECT_BLOCK, cardId);
     };
 
 
@@ -173,6 +193,7 @@ public class AdminServiceImpl implements AdminServiceDAO{
      * @return страница с картами в формате DTO
      */
     @Override
+    @Workload(WorkloadType.REPORTING)
     public Page<CardDto> getPendingBlockCards(int page , int size){
         return cardService.findByStatus(CARD_STATUS.PENDING_BLOCK,page, size);
     };
@@ -181,33 +202,163 @@ public class AdminServiceImpl implements AdminServiceDAO{
     /**
      * Удаляет пользователя и все связанные с ним карты
      *
+     * <p>Выполняется одним DELETE, карты удаляет база по ON DELETE CASCADE</p>
+     *
      * @param userId идентификатор пользователя
-     * @throws UserNotFoundException если карта не найдена
+     * @throws UserNotFoundException если пользователь не найден
      */
     @Override
     public void deleteUser(Long userId){
-        User user = userService.getUserById(userId);
-        for (Card card : user.getCards()) {
-            cardService.delete(card.getId());
+        userService.delete(userId);
+    };
+
+
+
+    /**
+     * Удаляет пользователей из списка порциями
+     *
+     * <p>Каждая порция из {@code app.admin.bulk.delete-chunk-size} пользователей удаляется
+     * одним запросом в своей транзакции, поэтому удаление большого списка не держит
+     * длинную транзакцию и блокировки. Прогресс пишется в лог после каждой порции</p>
+     *
+     * @param ids идентификаторы пользователей
+     * @return количество удаленных пользователей и ID, которые не найдены
+     */
+    @Override
+    public BulkDeleteUsersResponse deleteUsers(List<Long> ids){
+        List<Long> requested = ids.stream().distinct().toList();
+        Set<Long> notFound = new HashSet<>(requested);
+        int deleted = 0;
+
+        for (int from = 0; from < requested.size(); from += deleteChunkSize) {
+            int to = Math.min(from + deleteChunkSize, requested.size());
+            List<Long> chunk = userService.deleteAll(requested.subList(from, to));
+            chunk.forEach(notFound::remove);
+            deleted += chunk.size();
+            log.info("Bulk user deletion: processed {}/{}, deleted {}", to, requested.size(), deleted);
         }
 
-        userService.delete(userId);
-   
+        return new BulkDeleteUsersResponse(deleted, notFound.stream().sorted().toList());
     };
 
 
     /**
      * Пополняет баланс указанной карты
      *
+     * <p>Карта читается с блокировкой строки: пополнение дожидается параллельного перевода
+     * и не теряет его изменение</p>
+     *
      * @param dto DTO-объект с данными для пополнения (идентификатор карты и сумма)
      * @throws CardNotFoundException если карта не найдена
      */
     @Override
+    @Workload(WorkloadType.MONEY)
+    @Transactional
     public void addBallance(AddBallanceRequestDTO dto){
         
-        Card card = cardService.getCardById(dto.getCardId());
+        Card card = cardService.getCardByIdWithLock(dto.getCardId());
         card.setBallance(card.getBallance().add(dto.getSum()));
 
         cardService.save(card);
     };
+
+
+    /**
+     * Задает лимиты расходов карты
+     *
+     * <p>Строка карты заменяет лимит по умолчанию, в том числе когда оба лимита пустые</p>
+     *
+     * @param cardId идентификатор карты
+     * @param request суточный и месячный лимиты
+     * @return сохраненный лимит
+     * @throws CardNotFoundException если карта не найдена
+     */
+    @Override
+    @Transactional
+    public SpendingLimit setCardSpendingLimit(Long cardId, SpendingLimitRequest request) {
+        cardService.getCardById(cardId);
+
+        return spendingLimits.setCardLimit(cardId, request.getDailyLimit(), request.getMonthlyLimit());
+    }
+
+
+    /**
+     * Задает лимиты расходов пользователя по всем его картам
+     *
+     * @param userId идентификатор пользователя
+     * @param request суточный и месячный лимиты
+     * @return сохраненный лимит
+     * @throws UserNotFoundException если пользователь не найден
+     */
+    @Override
+    @Transactional
+    public SpendingLimit setUserSpendingLimit(Long userId, SpendingLimitRequest request) {
+        userService.getUserById(userId);
+
+        return spendingLimits.setUserLimit(userId, request.getDailyLimit(), request.getMonthlyLimit());
+    }
+
+
+    /**
+     * Выгружает все карты в указанном формате
+     *
+     * <p>Карты читаются курсором в read-only транзакции и сразу пишутся в поток
+     * ответа, поэтому потребление памяти не зависит от количества карт</p>
+     *
+     * @param format формат выгрузки
+     * @param out поток, в который пишется выгрузка
+     * @throws IOException если запись в поток не удалась (например клиент отключился)
+     */
+    @Override
+    @Workload(WorkloadType.REPORTING)
+    @Transactional(readOnly = true)
+    public void exportAllCards(CardExportFormat format, OutputStream out) throws IOException {
+        try (Stream<CardDto> cards = cardService.streamAllCards()) {
+            long exported = cardExportWriter.write(format, cards.iterator(), out);
+            log.info("Exported {} cards as {}", exported, format);
+        }
+    }
+
+
+    /**
+     * Применяет переход статуса к набору карт
+     *
+     * <p>Карты выбираются по списку id или по моменту последней смены статуса.
+     * Переход выполняется одним UPDATE с проверкой исходного статуса; карты из списка,
+     * которые не найдены или находятся в неподходящем статусе, возвращаются как пропущенные.
+     * Выборка по времени ограничена {@code app.admin.bulk.max-cards} картами за вызов</p>
+     *
+     * @param transition переход статуса
+     * @param request список id или граница времени
+     * @return измененные и пропущенные карты
+     */
+    @Override
+    public BulkCardStatusResponse changeCardsStatus(CardStatusTransition transition, BulkCardStatusRequest request) {
+        if (request.getChangedBefore() != null) {
+            List<Long> updated = cardService.changeStatusBefore(transition, request.getChangedBefore(), bulkMaxCards);
+            log.info("Bulk {} changed {} cards with status older than {}", transition, updated.size(), request.getChangedBefore());
+            return new BulkCardStatusResponse(updated, List.of());
+        }
+
+        Set<Long> requested = new HashSet<>(request.getIds());
+        List<Long> updated = cardService.changeStatus(transition, requested);
+        updated.forEach(requested::remove);
+        log.info("Bulk {} changed {} cards, skipped {}", transition, updated.size(), requested.size());
+
+        return new BulkCardStatusResponse(updated, requested.stream().sorted().toList());
+    }
+
+
+    /**
+     * Применяет переход к одной карте, при неудаче определяет причину
+     *
+     * @throws CardNotFoundException если карта не найдена
+     * @throws CardBlockException если карта не в подходящем статусе
+     */
+    private void changeSingleCardStatus(CardStatusTransition transition, Long cardId) {
+        if (cardService.changeStatus(transition, List.of(cardId)).isEmpty()) {
+            cardService.getCardById(cardId);
+            throw new CardBlockException(cardId);
+        }
+    }
 }
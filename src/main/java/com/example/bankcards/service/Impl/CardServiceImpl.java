@@ -1,6 +1,14 @@
 package com.example.bankcards.service.Impl;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -10,13 +18,33 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.CardBalanceSnapshot;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.config.datasource.Workload;
+import com.example.bankcards.config.datasource.WorkloadType;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransferHistoryCursor;
+import com.example.bankcards.dto.TransferHistoryDto;
+import com.example.bankcards.dto.TransferHistoryPage;
 import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardDetails;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.entity.CardTransfer;
 import com.example.bankcards.exception.CardException.CardNotFoundException;
 import com.example.bankcards.exception.CardException.CardTransferMoneyException;
+import com.example.bankcards.exception.CardException.InvalidHistoryCursorException;
+import com.example.bankcards.feed.CardStatusFeed;
+import com.example.bankcards.limits.SpendingLimits;
+import com.example.bankcards.metrics.CardMetrics;
+import com.example.bankcards.metrics.TransferPhases;
+import com.example.bankcards.outbox.OutboxEvents;
+import com.example.bankcards.repository.CardDetailsRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransferRepository;
 import com.example.bankcards.service.DAO.CardServiceDAO;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 
 
@@ -24,28 +52,48 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CardServiceImpl implements CardServiceDAO{
     private final CardRepository repository;
+    private final CardBalanceCache balanceCache;
+    private final CardDetailsRepository detailsRepository;
+    private final EntityCacheInvalidator entityCacheInvalidator;
+    private final CardMetrics cardMetrics;
+    private final CardTransferRepository transferRepository;
+    private final OutboxEvents outboxEvents;
+    private final CardStatusFeed statusFeed;
+    private final SpendingLimits spendingLimits;
+    private final EntityManager entityManager;
 
     /**
      * Сохраняет информацию о карте в базе данных
      * 
+     * <p>Новое состояние карты попадает в кэш баланса после коммита транзакции</p>
+     *
      * @param card объект карты для сохранения
      * @return сохраненный объект карты
      */
     @Override
     public Card save(Card card){
-        return repository.save(card);
+        Card saved = repository.save(card);
+        balanceCache.updateAfterCommit(saved);
+
+        return saved;
     };
 
 
     /**
      * Создает новую карту в системе
      * 
+     * <p>Событие о выпуске карты записывается в outbox в той же транзакции</p>
+     *
      * @param card объект карты для создания
      * @return созданный объект карты
      */
     @Override
+    @Transactional
     public Card create(Card card){
-        return save(card);
+        Card created = save(card);
+        outboxEvents.cardCreated(created);
+
+        return created;
     };
 
 
@@ -62,6 +110,37 @@ public class CardServiceImpl implements CardServiceDAO{
     };
 
 
+    /**
+     * Получает карту с блокировкой строки до конца текущей транзакции
+     *
+     * <p>Нужна перед изменением карты через {@link #save}: без блокировки параллельный перевод,
+     * массовый UPDATE или задание истечения срока меняют {@code version} между чтением
+     * и сохранением, и сохранение падает на оптимистической блокировке</p>
+     *
+     * @param cardId идентификатор карты
+     * @return заблокированная карта
+     * @throws CardNotFoundException если карта не найдена
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Card getCardByIdWithLock(Long cardId){
+        return repository.findByIdWithLock(cardId).orElseThrow(() -> new CardNotFoundException(cardId));
+    };
+
+
+    /**
+     * Получает неизменяемые данные карты: номер, срок действия и владельца
+     *
+     * @param cardId идентификатор карты
+     * @return данные карты
+     * @throws CardNotFoundException если карта не найдена
+     */
+    @Override
+    public CardDetails getCardDetails(Long cardId){
+        return detailsRepository.findById(cardId).orElseThrow(() -> new CardNotFoundException(cardId));
+    };
+
+
     /**
      * Получает текущий баланс карты
      * 
@@ -76,9 +155,30 @@ public class CardServiceImpl implements CardServiceDAO{
 
 
 
+    /**
+     * Получает владельца, статус и баланс карты
+     *
+     * <p>Для карт из кэша баланса не выполняет запросов к базе,
+     * иначе читает одну строку без загрузки сущности</p>
+     *
+     * @param cardId идентификатор карты
+     * @return состояние карты
+     * @throws CardNotFoundException если карта не найдена
+     */
+    @Override
+    public CardBalanceSnapshot getBalanceSnapshot(Long cardId){
+        return balanceCache.get(cardId,
+                id -> repository.findBalanceSnapshot(id).orElseThrow(() -> new CardNotFoundException(id)));
+    };
+
+
+
     /**
      * Проверяет принадлежит ли карта указанному пользователю
      * 
+     * <p>Владелец берется из неизменяемых данных карты: сама карта не попадает в контекст
+     * персистентности раньше, чем ее заблокирует перевод или смена статуса</p>
+     *
      * @param userId идентификатор пользователя
      * @param cardId идентификатор карты
      * @return true если карта принадлежит пользователю, иначе false
@@ -87,7 +187,7 @@ public class CardServiceImpl implements CardServiceDAO{
     @Override
     @Transactional(propagation = Propagation.MANDATORY)
    public boolean checkUserCard(Long userId , Long cardId){
-        return getCardById(cardId).getOwner().getId() == userId;
+        return getCardDetails(cardId).getOwnerId().equals(userId);
     };
 
 
@@ -99,11 +199,14 @@ public class CardServiceImpl implements CardServiceDAO{
      * @throws CardNotFoundException если карта не найдена
      */
     @Override
+    @Transactional
     public void userBlockCard(Long cardId){
-        Card card = getCardById(cardId);
+        Card card = getCardByIdWithLock(cardId);
         card.setStatus(CARD_STATUS.PENDING_BLOCK);
 
         save(card);
+        outboxEvents.cardStatusChanged(cardId, CARD_STATUS.PENDING_BLOCK);
+        statusFeed.publishAfterCommit(List.of(cardId), CARD_STATUS.PENDING_BLOCK);
     };
 
 
@@ -145,6 +248,9 @@ public class CardServiceImpl implements CardServiceDAO{
     /**
      * Выполняет перевод денег между картами
      * 
+     * <p>Перевод записывается в историю и в outbox в той же транзакции. Лимиты расходов
+     * проверяются по окнам в памяти под блокировкой карты-отправителя, без запросов к истории</p>
+     *
      * @param fromId идентификатор карты отправителя
      * @param toId идентификатор карты получателя
      * @param sum сумма перевода
@@ -152,14 +258,22 @@ public class CardServiceImpl implements CardServiceDAO{
      * @throws CardTransferMoneyException если:
      *         - недостаточно средств на карте отправителя
      *         - карта не активна
+     *         - срок действия карты истек, даже если она еще не переведена в EXPIRED
      *         - карты совпадают
      *         - сумма перевода меньше или равна нулю
+     *         - превышен суточный или месячный лимит карты или ее владельца
      */
     @Override
+    @Workload(WorkloadType.MONEY)
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public void moneyTransfer(Long fromId , Long toId , BigDecimal sum){
-        Card fromCard = repository.findByIdWithLock(fromId).orElseThrow(() -> new CardNotFoundException(fromId));
-        Card toCard = repository.findByIdWithLock(toId).orElseThrow(() -> new CardNotFoundException(toId));
+        TransferPhases phases = new TransferPhases(cardMetrics, fromId, toId);
+        // обе карты блокируются одним запросом по возрастанию id: встречные переводы между
+        // одними и теми же картами ждут друг друга, а не взаимоблокируются
+        List<Card> locked = repository.findAllByIdWithLock(List.of(fromId, toId));
+        Card fromCard = lockedCard(locked, fromId);
+        Card toCard = lockedCard(locked, toId);
+        phases.locked();
 
         if (fromCard.getBallance().compareTo(sum)  < 0 ) {
             throw new CardTransferMoneyException(fromId,toId , "Недостаточно средств");
@@ -169,6 +283,10 @@ public class CardServiceImpl implements CardServiceDAO{
             throw new CardTransferMoneyException(fromId,toId , "Карта должна быть активирована");
         }
 
+        if (isExpired(fromCard) || isExpired(toCard)) {
+            throw new CardTransferMoneyException(fromId, toId, "Срок действия карты истек");
+        }
+
         
         if (fromId.equals(toId) ) {
           throw new CardTransferMoneyException(fromId, toId , "Карты не должны быть одинаковые");
@@ -177,11 +295,31 @@ public class CardServiceImpl implements CardServiceDAO{
         if (sum.compareTo(BigDecimal.ZERO) <= 0 ) {
             throw new CardTransferMoneyException(fromId, toId , "Сумма перевода должна быть больше нуля");
         }
+
+        SpendingLimits.Verdict verdict = spendingLimits.reserve(fromId, fromCard.getOwner().getId(), sum);
+        if (verdict != SpendingLimits.Verdict.ALLOWED) {
+            throw new CardTransferMoneyException(fromId, toId, verdict.getReason());
+        }
         fromCard.setBallance(fromCard.getBallance().subtract(sum));
         toCard.setBallance(toCard.getBallance().add(sum));
 
         save(fromCard);
         save(toCard);
+        transferRepository.save(CardTransfer.builder()
+                .fromCardId(fromId)
+                .toCardId(toId)
+                .amount(sum)
+                .build());
+        outboxEvents.transferCompleted(fromId, toId, sum);
+        phases.applied();
+        cardMetrics.recordTransfer(sum);
+    }
+
+    private static Card lockedCard(List<Card> locked, Long cardId) {
+        return locked.stream()
+                .filter(card -> cardId.equals(card.getId()))
+                .findFirst()
+                .orElseThrow(() -> new CardNotFoundException(cardId));
     }
 
 
@@ -192,11 +330,14 @@ public class CardServiceImpl implements CardServiceDAO{
      * @throws CardNotFoundException если карта не найдена
      */
     @Override
+    @Transactional
     public void block(Long cardId){
-        Card card = getCardById(cardId);
+        Card card = getCardByIdWithLock(cardId);
         card.setStatus(CARD_STATUS.BLOCKED);
 
         save(card);
+        outboxEvents.cardStatusChanged(cardId, CARD_STATUS.BLOCKED);
+        statusFeed.publishAfterCommit(List.of(cardId), CARD_STATUS.BLOCKED);
     };
 
 
@@ -207,12 +348,15 @@ public class CardServiceImpl implements CardServiceDAO{
      * @throws CardNotFoundException если карта не найдена
      */
     @Override
+    @Transactional
     public  void delete(Long id){
         if (!repository.existsById(id)) {
             throw new CardNotFoundException(id);
         }
 
         repository.deleteById(id);
+        balanceCache.evictAfterCommit(List.of(id));
+        entityCacheInvalidator.cardsRemoved(List.of(id));
     };
 
 
@@ -223,11 +367,14 @@ public class CardServiceImpl implements CardServiceDAO{
      * @throws CardNotFoundException если карта не найдена
      */
     @Override
+    @Transactional
     public void activate(Long id){
-        Card card = getCardById(id);
+        Card card = getCardByIdWithLock(id);
         card.setStatus(CARD_STATUS.ACTIVE);
 
         save(card);
+        outboxEvents.cardStatusChanged(id, CARD_STATUS.ACTIVE);
+        statusFeed.publishAfterCommit(List.of(id), CARD_STATUS.ACTIVE);
     };
 
 
@@ -240,6 +387,8 @@ public class CardServiceImpl implements CardServiceDAO{
      * @return страница с картами в формате DTO
      */
     @Override
+    @Workload(WorkloadType.REPORTING)
+    @Transactional(readOnly = true)
     public Page<CardDto> findByStatus(CARD_STATUS status , int page , int size){
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
         Page<Card> cardsPage = repository.findByStatus(status, pageable);
@@ -258,6 +407,8 @@ public class CardServiceImpl implements CardServiceDAO{
      * @return страница со всеми картами в формате DTO
      */
     @Override
+    @Workload(WorkloadType.REPORTING)
+    @Transactional(readOnly = true)
     public Page<CardDto>getAllCards(int page , int size){
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
 
@@ -269,6 +420,206 @@ public class CardServiceImpl implements CardServiceDAO{
 
 
 
+    /**
+     * Получает поток всех карт в формате DTO для выгрузки
+     *
+     * <p>Поток держит открытый курсор, поэтому метод вызывается только внутри
+     * транзакции, а поток закрывается вызывающим кодом</p>
+     *
+     * @return поток всех карт в порядке возрастания id
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+    public Stream<CardDto> streamAllCards(){
+        return repository.streamAllCards();
+    }
+
+
+
+    /**
+     * Применяет переход статуса к картам из списка одним UPDATE
+     *
+     * @param transition переход статуса
+     * @param ids идентификаторы карт
+     * @return отсортированные идентификаторы измененных карт
+     */
+    @Override
+    @Transactional
+    public List<Long> changeStatus(CardStatusTransition transition, Collection<Long> ids){
+        List<Long> updated = bulkUpdate(() -> repository.updateStatusByIds(
+                ids.toArray(Long[]::new), transition.sourceNames(), transition.getTarget().name()));
+        balanceCache.evictAfterCommit(updated);
+        entityCacheInvalidator.cardsChangedInBulk();
+        outboxEvents.cardsStatusChanged(updated, transition.getTarget());
+        statusFeed.publishAfterCommit(updated, transition.getTarget());
+
+        return updated.stream().sorted().toList();
+    }
+
+
+    /**
+     * Выполняет нативный UPDATE ... RETURNING над картами
+     *
+     * <p>Запрос меняет строки в обход сущностей, поэтому изменения, накопленные в контексте
+     * персистентности, сбрасываются в базу до него, а после него контекст очищается: карты,
+     * загруженные раньше в этой транзакции, перечитываются уже с новым статусом и версией</p>
+     *
+     * @param update запрос, возвращающий id измененных карт
+     * @return идентификаторы измененных карт
+     */
+    private List<Long> bulkUpdate(Supplier<List<Long>> update) {
+        entityManager.flush();
+        List<Long> updated = update.get();
+        entityManager.clear();
+        return updated;
+    }
+
+
+    /**
+     * Получает страницу истории переводов карты, от новых к старым
+     *
+     * <p>Читается на одну запись больше страницы, чтобы курсор следующей
+     * страницы выдавался только если она не пустая</p>
+     *
+     * @param cardId идентификатор карты
+     * @param cursor курсор из предыдущей страницы или null для первой
+     * @param size размер страницы
+     * @return страница истории
+     * @throws InvalidHistoryCursorException если курсор некорректен
+     */
+    @Override
+    public TransferHistoryPage getTransferHistory(Long cardId, String cursor, int size){
+        TransferHistoryCursor position = TransferHistoryCursor.decode(cursor);
+        List<CardTransfer> transfers = transferRepository.findHistory(
+                cardId, position.createdAt(), position.id(), size + 1);
+
+        List<CardTransfer> page = transfers.size() > size ? transfers.subList(0, size) : transfers;
+        String nextCursor = transfers.size() > size
+                ? TransferHistoryCursor.after(page.get(size - 1)).encode()
+                : null;
+
+        return new TransferHistoryPage(page.stream().map(this::convertToTransferHistoryDto).toList(), nextCursor);
+    }
+
+
+
+    /**
+     * Применяет переход статуса к картам, статус которых не менялся с указанного момента
+     *
+     * @param transition переход статуса
+     * @param changedBefore граница момента последней смены статуса
+     * @param limit максимальное количество карт за вызов
+     * @return отсортированные идентификаторы измененных карт
+     */
+    @Override
+    @Transactional
+    public List<Long> changeStatusBefore(CardStatusTransition transition, Instant changedBefore, int limit){
+        List<Long> updated = bulkUpdate(() -> repository.updateStatusChangedBefore(
+                transition.sourceNames(), changedBefore, transition.getTarget().name(), limit));
+        balanceCache.evictAfterCommit(updated);
+        entityCacheInvalidator.cardsChangedInBulk();
+        outboxEvents.cardsStatusChanged(updated, transition.getTarget());
+        statusFeed.publishAfterCommit(updated, transition.getTarget());
+
+        return updated.stream().sorted().toList();
+    }
+
+
+
+
+
+    /**
+     * Переводит в EXPIRED активные карты с истекшим сроком из диапазона id
+     *
+     * <p>Каждый диапазон - отдельная транзакция, поэтому блокировки держатся только
+     * на строках одного диапазона</p>
+     *
+     * @param fromId начало диапазона, включительно
+     * @param toId конец диапазона, включительно
+     * @return идентификаторы измененных карт
+     */
+    @Override
+    @Transactional
+    public List<Long> expireCards(long fromId, long toId){
+        List<Long> expired = bulkUpdate(() -> repository.expireInRange(fromId, toId));
+        if (!expired.isEmpty()) {
+            balanceCache.evictAfterCommit(expired);
+            entityCacheInvalidator.cardsChangedInBulk();
+            outboxEvents.cardsStatusChanged(expired, CARD_STATUS.EXPIRED);
+        }
+
+        return expired;
+    }
+
+
+
+
+
+    /**
+     * Перевыпускает карты: сохраняет новые карты и переносит на них баланс старых
+     *
+     * <p>Старые карты блокируются FOR UPDATE в порядке id; карта, которая за время подготовки
+     * замены перестала быть активной или уже перевыпущена, пропускается. Новая карта получает
+     * владельца и весь баланс старой, старая обнуляется, становится INACTIVE и ссылается на новую -
+     * все в одной транзакции</p>
+     *
+     * @param replacements новые карты без владельца и баланса по id заменяемых карт
+     * @return выпущенные карты
+     */
+    @Override
+    @Transactional
+    public List<Card> renewCards(Map<Long, Card> replacements){
+        List<Card> renewed = new ArrayList<>(replacements.size());
+        for (Card oldCard : repository.findAllByIdWithLock(replacements.keySet())) {
+            if (oldCard.getStatus() != CARD_STATUS.ACTIVE || oldCard.getReplacedByCardId() != null) {
+                continue;
+            }
+            Card newCard = replacements.get(oldCard.getId());
+            newCard.setOwner(oldCard.getOwner());
+            newCard.setBallance(oldCard.getBallance());
+            newCard = save(newCard);
+
+            oldCard.setBallance(BigDecimal.ZERO.setScale(oldCard.getBallance().scale()));
+            oldCard.setStatus(CARD_STATUS.INACTIVE);
+            oldCard.setReplacedByCardId(newCard.getId());
+            save(oldCard);
+
+            outboxEvents.cardCreated(newCard);
+            outboxEvents.cardRenewed(oldCard, newCard);
+            renewed.add(newCard);
+        }
+
+        return renewed;
+    }
+
+
+
+    /**
+     * Проверяет срок действия карты: карта действует до конца дня expirationDate
+     *
+     * @param card карта
+     * @return true если срок действия истек
+     */
+    private static boolean isExpired(Card card) {
+        return card.getExpirationDate() != null && card.getExpirationDate().isBefore(LocalDate.now());
+    }
+
+
+    /**
+     * Преобразует запись истории в TransferHistoryDto
+     *
+     * @param transfer запись истории переводов
+     * @return объект TransferHistoryDto
+     */
+    private TransferHistoryDto convertToTransferHistoryDto(CardTransfer transfer) {
+        return TransferHistoryDto.builder()
+            .id(transfer.getId())
+            .fromCardId(transfer.getFromCardId())
+            .toCardId(transfer.getToCardId())
+            .amount(transfer.getAmount())
+            .createdAt(transfer.getCreatedAt())
+            .build();
+    }
 
 
     /**
@@ -1,22 +1,33 @@
 package com.example.bankcards.service.Impl;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Page;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.CardBalanceSnapshot;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.config.datasource.Workload;
+import com.example.bankcards.config.datasource.WorkloadType;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransferHistoryPage;
 import com.example.bankcards.dto.TransferRequestDTO;
 import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardDetails;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardException.CardBlockException;
 import com.example.bankcards.exception.CardException.CardNotFoundException;
 import com.example.bankcards.exception.CardException.CardRequestBlockException;
 import com.example.bankcards.exception.CardException.CardTransferMoneyException;
+import com.example.bankcards.exception.CardException.InvalidHistoryCursorException;
 import com.example.bankcards.exception.UserException.UserAlreadyExistException;
 import com.example.bankcards.exception.UserException.UserNotFoundException;
 import com.example.bankcards.exception.UserException.UserNotOwnsThisCardException;
@@ -33,9 +44,14 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserServiceDAO {
+    /** максимальный размер страницы истории переводов */
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final CardServiceDAO cardService;
     private final CardGenerator cardGenerator;
+    private final CardBalanceCache balanceCache;
+    private final EntityCacheInvalidator entityCacheInvalidator;
 
 
 
@@ -48,7 +64,7 @@ public class UserServiceImpl implements UserServiceDAO {
      */
     @Override
     public User getUserById(Long id){
-        return userRepository.findById(id).orElseThrow(() -> new UserNotFoundException());
+        return userRepository.findById(id).orElseThrow(() -> UserNotFoundException.INSTANCE);
     };
 
 
@@ -76,7 +92,7 @@ public class UserServiceImpl implements UserServiceDAO {
     @Override
     public User create(User user){
         if (userRepository.existsByPhoneNumber(user.getPhoneNumber())) {
-            throw new UserAlreadyExistException();
+            throw UserAlreadyExistException.INSTANCE;
         }
 
         return save(user);
@@ -92,7 +108,7 @@ public class UserServiceImpl implements UserServiceDAO {
      */
     @Override
     public User getUserByUsername(String username){
-        return userRepository.findByUsername(username).orElseThrow(() -> new UserNotFoundException());
+        return userRepository.findByUsername(username).orElseThrow(() -> UserNotFoundException.INSTANCE);
     };
 
 
@@ -124,6 +140,26 @@ public class UserServiceImpl implements UserServiceDAO {
 
 
 
+    /**
+     * Получает идентификатор текущего пользователя
+     *
+     * <p>JWT-фильтр кладет в контекст пользователя с id из токена, поэтому
+     * запрос к базе нужен только для аутентификации другого типа</p>
+     *
+     * @return идентификатор текущего пользователя
+     * @throws UserNotFoundException если пользователь не найден
+     */
+    private Long getCurrentUserId(){
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof User user && user.getId() != null) {
+            return user.getId();
+        }
+
+        return getCurrentUser().getId();
+    };
+
+
+
     /**
      * Выполняет перевод денег между картами текущего пользователя
      *
@@ -132,6 +168,7 @@ public class UserServiceImpl implements UserServiceDAO {
      * @throws CardTransferMoneyException если возникла ошибка при переводе (см. CardServiceDAO.moneyTransfer)
      */
     @Override
+    @Workload(WorkloadType.MONEY)
     @Transactional
     public  void UserCardsTransfer(TransferRequestDTO transferDTO){
         Long currentUserId = getCurrentUser().getId();
@@ -150,6 +187,9 @@ public class UserServiceImpl implements UserServiceDAO {
     /**
      * Получает баланс карты текущего пользователя
      *
+     * <p>Владелец и баланс берутся из кэша баланса, поэтому для часто
+     * запрашиваемых карт запрос к базе не выполняется</p>
+     *
      * @param cardId идентификатор карты
      * @return текущий баланс карты
      * @throws UserNotOwnsThisCardException если карта не принадлежит текущему пользователю
@@ -157,11 +197,13 @@ public class UserServiceImpl implements UserServiceDAO {
      */
     @Override
     public  BigDecimal getUserBallance(Long cardId){
-        if (!cardService.checkUserCard( getCurrentUser().getId() ,cardId)) {
-            throw new UserNotOwnsThisCardException(getCurrentUser().getId() , cardId);
+        Long currentUserId = getCurrentUserId();
+        CardBalanceSnapshot card = cardService.getBalanceSnapshot(cardId);
+        if (!card.ownerId().equals(currentUserId)) {
+            throw new UserNotOwnsThisCardException(currentUserId, cardId);
         }
 
-        return cardService.getBallance(cardId);
+        return card.balance();
     };
 
    
@@ -193,11 +235,12 @@ public class UserServiceImpl implements UserServiceDAO {
         if (!cardService.checkUserCard(getCurrentUser().getId(), cardId)) {
              throw new UserNotOwnsThisCardException(getCurrentUser().getId() , cardId);
         }
-        if (cardService.getCardById(cardId).getStatus() == CARD_STATUS.BLOCKED) {
+        CARD_STATUS status = cardService.getCardByIdWithLock(cardId).getStatus();
+        if (status == CARD_STATUS.BLOCKED) {
              throw new CardRequestBlockException(cardId , "Эта карта уже заблокирована");
         }
 
-         if (cardService.getCardById(cardId).getStatus() == CARD_STATUS.PENDING_BLOCK) {
+         if (status == CARD_STATUS.PENDING_BLOCK) {
              throw new CardRequestBlockException(cardId , "Уже был запрос блокировки этой карты");
         }
 
@@ -216,7 +259,7 @@ public class UserServiceImpl implements UserServiceDAO {
      */
     @Override
     public String getUsernameByPhoneNumber(String phoneNumber){
-        User user = userRepository.findByPhoneNumber(phoneNumber).orElseThrow(() -> new UserNotFoundException());
+        User user = userRepository.findByPhoneNumber(phoneNumber).orElseThrow(() -> UserNotFoundException.INSTANCE);
 
         return user.getUsername();
     }
@@ -229,10 +272,31 @@ public class UserServiceImpl implements UserServiceDAO {
      * @throws UserNotFoundException если пользователь не найден
      */
     @Override
+    @Transactional
     public void delete(Long userId){
-        User user = getUserById(userId);
+        if (userRepository.deleteUserById(userId) == 0) {
+            throw UserNotFoundException.INSTANCE;
+        }
+        balanceCache.evictOwnersAfterCommit(List.of(userId));
+        entityCacheInvalidator.ownersRemoved(List.of(userId));
+    };
+
+
+
+    /**
+     * Удаляет пользователей из списка в одной транзакции
+     *
+     * @param ids идентификаторы пользователей
+     * @return идентификаторы удаленных пользователей
+     */
+    @Override
+    @Transactional
+    public List<Long> deleteAll(Collection<Long> ids){
+        List<Long> deleted = userRepository.deleteUsersByIds(ids.toArray(Long[]::new));
+        balanceCache.evictOwnersAfterCommit(deleted);
+        entityCacheInvalidator.ownersRemoved(deleted);
 
-        userRepository.delete(user);
+        return deleted;
     };
 
 
@@ -248,13 +312,39 @@ public class UserServiceImpl implements UserServiceDAO {
      */
     @Override
     public String getDecryptCardNumber(Long cardId){
-       
-        Card card = cardService.getCardById(cardId);
-        if (card.getOwner().getId() != getCurrentUser().getId()) {
-            throw new UserNotOwnsThisCardException(getCurrentUser().getId(), cardId);
+        Long currentUserId = getCurrentUserId();
+        CardDetails card = cardService.getCardDetails(cardId);
+        if (!card.getOwnerId().equals(currentUserId)) {
+            throw new UserNotOwnsThisCardException(currentUserId, cardId);
         }
 
         return cardGenerator.decryptCardNumber(card.getEncryptedCardNumber());
     };
+
+
+
+    /**
+     * Получает страницу истории переводов карты текущего пользователя
+     *
+     * <p>Владелец карты берется из кэша баланса. Размер страницы ограничен
+     * {@value #MAX_HISTORY_PAGE_SIZE}</p>
+     *
+     * @param cardId идентификатор карты
+     * @param cursor курсор из предыдущей страницы или null для первой
+     * @param size размер страницы
+     * @return страница истории переводов
+     * @throws UserNotOwnsThisCardException если карта не принадлежит текущему пользователю
+     * @throws CardNotFoundException если карта не найдена
+     * @throws InvalidHistoryCursorException если курсор некорректен
+     */
+    @Override
+    public TransferHistoryPage getCardTransfers(Long cardId, String cursor, int size){
+        Long currentUserId = getCurrentUserId();
+        if (!cardService.getBalanceSnapshot(cardId).ownerId().equals(currentUserId)) {
+            throw new UserNotOwnsThisCardException(currentUserId, cardId);
+        }
+
+        return cardService.getTransferHistory(cardId, cursor, Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE)));
+    };
  
 }
@@ -0,0 +1,49 @@
+package com.example.bankcards.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+
+/**
+ * Advisory lock PostgreSQL уровня сессии для заданий, которые должны идти на одном экземпляре
+ *
+ * <p>Блокировка принадлежит соединению, поэтому захват и освобождение выполняются
+ * на одном и том же соединении</p>
+ */
+public final class AdvisoryLocks {
+
+    private AdvisoryLocks() {
+    }
+
+    /**
+     * Пытается захватить блокировку без ожидания
+     *
+     * @param connection соединение, которое будет держать блокировку
+     * @param key ключ блокировки
+     * @return true если блокировка захвачена
+     */
+    public static boolean tryLock(Connection connection, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Освобождает блокировку, захваченную этим соединением
+     *
+     * @param connection соединение, которое держит блокировку
+     * @param key ключ блокировки
+     */
+    public static void unlock(Connection connection, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, key);
+            statement.execute();
+        }
+    }
+}
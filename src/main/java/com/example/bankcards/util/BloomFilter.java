@@ -0,0 +1,85 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Потокобезопасный фильтр Блума для строковых ключей
+ *
+ * <p>Биты хранятся в {@link AtomicLongArray}, добавление и проверка не требуют
+ * блокировок. Позиции битов вычисляются двойным хешированием от 64-битного хеша FNV-1a
+ * по символам строки, поэтому проверка ключа не создает временных объектов</p>
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions ожидаемое количество ключей
+     * @param falsePositiveRate допустимая вероятность ложноположительного ответа
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    /**
+     * Добавляет ключ в фильтр
+     *
+     * @param key ключ
+     */
+    public void put(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(index);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(index, current, current | mask));
+        }
+    }
+
+    /**
+     * Проверяет возможное наличие ключа
+     *
+     * @param key ключ
+     * @return false если ключа точно нет, true если ключ возможно был добавлен
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.util;
+
+import java.time.Instant;
+
+
+/**
+ * Текущее время с точностью до миллисекунды без создания {@link Instant} на каждый вызов
+ *
+ * <p>Все вызовы в пределах одной миллисекунды получают один и тот же объект. Подходит для
+ * отметок времени в ответах и логах, но не для измерения длительностей</p>
+ */
+public final class CachedClock {
+    private static volatile Instant cached = Instant.EPOCH;
+
+    private CachedClock() {
+    }
+
+
+    public static Instant now() {
+        long millis = System.currentTimeMillis();
+        Instant current = cached;
+        if (current.toEpochMilli() != millis) {
+            current = Instant.ofEpochMilli(millis);
+            cached = current;
+        }
+        return current;
+    }
+}
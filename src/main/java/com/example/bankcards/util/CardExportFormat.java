@@ -0,0 +1,20 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.MediaType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Форматы выгрузки карт
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CardExportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+}
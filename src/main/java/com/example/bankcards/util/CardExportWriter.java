@@ -0,0 +1,101 @@
+package com.example.bankcards.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import org.springframework.stereotype.Component;
+import com.example.bankcards.dto.CardDto;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+
+/**
+ * Пишет карты в поток построчно, не накапливая их в памяти
+ *
+ * <p>CVV в выгрузку не попадает ни в одном формате: хранить и передавать его вне
+ * процесса авторизации запрещает PCI DSS</p>
+ *
+ * <p>Поток только сбрасывается в конце и не закрывается: им владеет вызывающий код</p>
+ */
+@Component
+public class CardExportWriter {
+    private static final String CSV_HEADER = "id,bin,last_four,expiration_date,status,ballance";
+
+    private final ObjectMapper objectMapper;
+
+    public CardExportWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper.copy().addMixIn(CardDto.class, ExportedCard.class);
+    }
+
+
+    /**
+     * @param format формат выгрузки
+     * @param cards карты для записи
+     * @param out поток для записи
+     * @return количество записанных карт
+     * @throws IOException если запись в поток не удалась
+     */
+    public long write(CardExportFormat format, Iterator<CardDto> cards, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> writeNdjson(cards, out);
+            case CSV -> writeCsv(cards, out);
+        };
+    }
+
+
+    private long writeNdjson(Iterator<CardDto> cards, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(CardDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (cards.hasNext()) {
+                writer.writeValue(generator, cards.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<CardDto> cards, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        while (cards.hasNext()) {
+            CardDto card = cards.next();
+            writer.write(String.valueOf(card.getId()));
+            writer.write(',');
+            writer.write(nullToEmpty(card.getBin()));
+            writer.write(',');
+            writer.write(nullToEmpty(card.getLastFour()));
+            writer.write(',');
+            writer.write(card.getExpirationDate() == null ? "" : card.getExpirationDate().toString());
+            writer.write(',');
+            writer.write(card.getStatus() == null ? "" : card.getStatus().name());
+            writer.write(',');
+            writer.write(card.getBallance() == null ? "" : card.getBallance().toPlainString());
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+
+    @JsonIgnoreProperties("cvv")
+    private interface ExportedCard {
+    }
+}
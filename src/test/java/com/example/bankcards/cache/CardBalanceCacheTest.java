@@ -0,0 +1,153 @@
+package com.example.bankcards.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardException.CardNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+class CardBalanceCacheTest {
+
+    private CardCacheInvalidationPublisher publisher;
+    private CardBalanceCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        publisher = mock(CardCacheInvalidationPublisher.class);
+        ObjectProvider<CardCacheInvalidationPublisher> provider = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<CardCacheInvalidationPublisher>>getArgument(0).accept(publisher);
+            return null;
+        }).when(provider).ifAvailable(any());
+        cache = new CardBalanceCache(100, Duration.ofMinutes(10), provider, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Card card(long id, long ownerId, String balance, long version) {
+        return Card.builder()
+                .id(id)
+                .owner(User.builder().id(ownerId).build())
+                .status(CARD_STATUS.ACTIVE)
+                .ballance(new BigDecimal(balance))
+                .version(version)
+                .build();
+    }
+
+    private static CardBalanceSnapshot snapshot(long id, long ownerId, String balance, long version) {
+        return new CardBalanceSnapshot(id, ownerId, CARD_STATUS.ACTIVE, new BigDecimal(balance), version);
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    @Test
+    void get_ShouldLoadOnce_AndServeFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id, 7, "10", 0); });
+        CardBalanceSnapshot result = cache.get(1L, id -> { loads.incrementAndGet(); return snapshot(id, 7, "99", 0); });
+
+        assertEquals(new BigDecimal("10"), result.balance());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_ShouldNotCache_WhenLoaderThrows() {
+        assertThrows(CardNotFoundException.class, () -> cache.get(1L, id -> { throw new CardNotFoundException(id); }));
+
+        assertEquals(new BigDecimal("5"), cache.get(1L, id -> snapshot(id, 7, "5", 0)).balance());
+    }
+
+    @Test
+    void put_ShouldKeepNewerVersion() {
+        cache.put(snapshot(1, 7, "50", 4));
+        cache.put(snapshot(1, 7, "80", 3));
+
+        assertEquals(new BigDecimal("50"), cache.get(1L, id -> snapshot(id, 7, "0", 0)).balance());
+    }
+
+    @Test
+    void updateAfterCommit_ShouldApplyOnlyAfterCommit() {
+        cache.put(snapshot(1, 7, "100", 1));
+        Card card = card(1, 7, "100", 1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.updateAfterCommit(card);
+        card.setBallance(new BigDecimal("60"));
+        card.setVersion(2L);
+        assertEquals(new BigDecimal("100"), cache.get(1L, id -> snapshot(id, 7, "0", 0)).balance());
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(new BigDecimal("60"), cache.get(1L, id -> snapshot(id, 7, "0", 0)).balance());
+        verify(publisher).cardsChanged(List.of(1L));
+    }
+
+    @Test
+    void updateAfterCommit_ShouldBeIgnored_WhenTransactionRollsBack() {
+        cache.put(snapshot(1, 7, "100", 1));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.updateAfterCommit(card(1, 7, "60", 2));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(new BigDecimal("100"), cache.get(1L, id -> snapshot(id, 7, "0", 0)).balance());
+        verify(publisher, never()).cardsChanged(any());
+    }
+
+    @Test
+    void evictAfterCommit_ShouldReloadCards() {
+        cache.put(snapshot(1, 7, "100", 1));
+
+        cache.evictAfterCommit(List.of(1L));
+
+        assertEquals(new BigDecimal("0"), cache.get(1L, id -> snapshot(id, 7, "0", 2)).balance());
+        verify(publisher).cardsChanged(List.of(1L));
+    }
+
+    @Test
+    void evictOwnersAfterCommit_ShouldDropOnlyCardsOfRemovedOwners() {
+        cache.put(snapshot(1, 7, "100", 1));
+        cache.put(snapshot(2, 8, "200", 1));
+
+        cache.evictOwnersAfterCommit(List.of(7L));
+
+        assertEquals(new BigDecimal("0"), cache.get(1L, id -> snapshot(id, 7, "0", 0)).balance());
+        assertEquals(new BigDecimal("200"), cache.get(2L, id -> snapshot(id, 8, "0", 0)).balance());
+        verify(publisher).ownersRemoved(List.of(7L));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.config.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+
+class ConnectionLimitingDataSourceTest {
+
+    private DataSource target;
+    private Connection connection;
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new ConnectionLimitingDataSource(target, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void getConnection_ShouldTimeOut_WhenAllPermitsAreTaken() throws SQLException {
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void close_ShouldReleasePermitOnlyOnce() throws SQLException {
+        Connection first = dataSource.getConnection();
+
+        first.close();
+        first.close();
+
+        assertEquals(2, dataSource.getAvailablePermits());
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void getConnection_ShouldReleasePermit_WhenTargetFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.bankcards.config.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+
+
+class WorkloadRoutingDataSourceTest {
+
+    private static final String SERVICE_PACKAGE = "com.example.bankcards.service";
+    private static final String LAG_QUERY = "SELECT lag_seconds FROM REPLICA_LAG";
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicationLagMonitor lagMonitor;
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("primary");
+        DataSource replica = h2("replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        primaryJdbc.execute("CREATE TABLE IF NOT EXISTS NODE (name VARCHAR(16))");
+        primaryJdbc.execute("MERGE INTO NODE KEY (name) VALUES ('primary')");
+        replicaJdbc.execute("CREATE TABLE IF NOT EXISTS NODE (name VARCHAR(16))");
+        replicaJdbc.execute("MERGE INTO NODE KEY (name) VALUES ('replica')");
+        replicaJdbc.execute("CREATE TABLE IF NOT EXISTS REPLICA_LAG (lag_seconds DOUBLE)");
+        replicaJdbc.execute("DELETE FROM REPLICA_LAG");
+        replicaJdbc.execute("INSERT INTO REPLICA_LAG VALUES (0)");
+
+        lagMonitor = new ReplicationLagMonitor(replica, LAG_QUERY, Duration.ofSeconds(5));
+        lagMonitor.check();
+
+        DataSource money = h2("money");
+        JdbcTemplate moneyJdbc = new JdbcTemplate(money);
+        moneyJdbc.execute("CREATE TABLE IF NOT EXISTS NODE (name VARCHAR(16))");
+        moneyJdbc.execute("MERGE INTO NODE KEY (name) VALUES ('money')");
+
+        DataSource routing = new LazyConnectionDataSourceProxy(new WorkloadRoutingDataSource(
+                primary, Map.of(WorkloadType.MONEY, money), replica, lagMonitor, SERVICE_PACKAGE));
+        jdbc = new JdbcTemplate(routing);
+        transactionManager = new DataSourceTransactionManager(routing);
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private String nodeIn(String transactionName, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setName(transactionName);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbc.queryForObject("SELECT name FROM NODE", String.class));
+    }
+
+    private static <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(WorkloadAspect.class);
+        return factory.getProxy();
+    }
+
+    @Workload(WorkloadType.MONEY)
+    static class MoneyCalls {
+        public String run(Supplier<String> call) {
+            return call.get();
+        }
+    }
+
+    @Workload(WorkloadType.REPORTING)
+    static class ReportingCalls {
+        public String run(Supplier<String> call) {
+            return call.get();
+        }
+    }
+
+    @Test
+    void readOnlyServiceTransaction_ShouldUseReplica() {
+        assertEquals("replica", nodeIn(SERVICE_PACKAGE + ".Impl.CardServiceImpl.getAllCards", true));
+    }
+
+    @Test
+    void writeTransaction_ShouldUsePrimary() {
+        assertEquals("primary", nodeIn(SERVICE_PACKAGE + ".Impl.CardServiceImpl.transferMoney", false));
+    }
+
+    @Test
+    void readOnlyRepositoryTransaction_ShouldUsePrimary() {
+        assertEquals("primary", nodeIn("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true));
+    }
+
+    @Test
+    void queryOutsideTransaction_ShouldUsePrimary() {
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM NODE", String.class));
+    }
+
+    @Test
+    void readOnlyServiceTransaction_ShouldFallBackToPrimary_WhenReplicaLags() {
+        replicaJdbc.update("UPDATE REPLICA_LAG SET lag_seconds = 30");
+        lagMonitor.check();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals(30, lagMonitor.getLagSeconds());
+        assertEquals("primary", nodeIn(SERVICE_PACKAGE + ".Impl.CardServiceImpl.getAllCards", true));
+    }
+
+    @Test
+    void readOnlyServiceTransaction_ShouldFallBackToPrimary_WhenLagCheckFails() {
+        replicaJdbc.execute("DROP TABLE REPLICA_LAG");
+        lagMonitor.check();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertTrue(Double.isNaN(lagMonitor.getLagSeconds()));
+        assertEquals("primary", nodeIn(SERVICE_PACKAGE + ".Impl.CardServiceImpl.getAllCards", true));
+    }
+
+    @Test
+    void replica_ShouldBeUsedAgain_WhenLagRecovers() {
+        replicaJdbc.update("UPDATE REPLICA_LAG SET lag_seconds = 30");
+        lagMonitor.check();
+        replicaJdbc.update("UPDATE REPLICA_LAG SET lag_seconds = 1");
+        lagMonitor.check();
+
+        assertTrue(lagMonitor.isReplicaUsable());
+        assertEquals("replica", nodeIn(SERVICE_PACKAGE + ".Impl.AdminServiceImpl.exportAllCards", true));
+    }
+
+    @Test
+    void workloadCall_ShouldUseWorkloadPool() {
+        MoneyCalls money = proxy(new MoneyCalls());
+
+        assertEquals("money", money.run(() -> nodeIn(SERVICE_PACKAGE + ".Impl.CardServiceImpl.moneyTransfer", false)));
+        assertEquals("money", money.run(() -> jdbc.queryForObject("SELECT name FROM NODE", String.class)));
+        assertNull(WorkloadAspect.currentWorkload());
+    }
+
+    @Test
+    void workloadCall_ShouldUsePrimary_WhenWorkloadHasNoPool() {
+        ReportingCalls reporting = proxy(new ReportingCalls());
+
+        assertEquals("primary", reporting.run(() -> nodeIn(SERVICE_PACKAGE + ".Impl.AdminServiceImpl.deleteUser", false)));
+    }
+
+    @Test
+    void readOnlyServiceTransaction_ShouldPreferReplica_OverWorkloadPool() {
+        MoneyCalls money = proxy(new MoneyCalls());
+
+        assertEquals("replica", money.run(() -> nodeIn(SERVICE_PACKAGE + ".Impl.CardServiceImpl.getAllCards", true)));
+    }
+
+    @Test
+    void nestedWorkloadCall_ShouldKeepOutermostWorkload() {
+        MoneyCalls money = proxy(new MoneyCalls());
+        ReportingCalls reporting = proxy(new ReportingCalls());
+
+        assertEquals("MONEY", money.run(() -> reporting.run(() -> WorkloadAspect.currentWorkload().name())));
+    }
+}
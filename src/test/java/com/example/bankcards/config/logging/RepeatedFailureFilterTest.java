@@ -0,0 +1,139 @@
+package com.example.bankcards.config.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.util.Duration;
+
+
+
+class RepeatedFailureFilterTest {
+    private static final String FAILURES = "test.BusinessFailure";
+
+    private LoggerContext context;
+    private ListAppender<ILoggingEvent> appender;
+    private Logger failures;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+
+        RepeatedFailureFilter filter = new RepeatedFailureFilter();
+        filter.setLoggerName(FAILURES);
+        filter.setAllowedRepetitions(2);
+        filter.setWindow(Duration.buildByMilliseconds(100));
+        filter.setContext(context);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        failures = context.getLogger(FAILURES);
+        failures.addAppender(appender);
+        context.getLogger("test.Other").addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void identicalFailures_ShouldBeSampledWithinWindow() {
+        for (int i = 0; i < 10; i++) {
+            failures.warn("{}: {}", "CARD_TRANSFER_FAILED", "Ошибка перевода между картами 1 и 2: Недостаточно средств");
+        }
+
+        assertEquals(2, appender.list.size());
+    }
+
+    @Test
+    void differentFailures_ShouldBeCountedSeparately() {
+        for (int i = 0; i < 3; i++) {
+            failures.warn("{}: {}", "CARD_TRANSFER_FAILED", "Ошибка перевода между картами 1 и 2: Недостаточно средств");
+            failures.warn("{}: {}", "CARD_TRANSFER_FAILED", "Ошибка перевода между картами 3 и 4: Недостаточно средств");
+        }
+
+        assertEquals(4, appender.list.size());
+    }
+
+    @Test
+    void sampledArguments_ShouldBeComparedByKey() {
+        for (int i = 0; i < 5; i++) {
+            failures.warn("{}: {}", "CARD_TRANSFER_FAILED",
+                    new Message("Недостаточно средств", "Ошибка перевода между картами " + i + " и 2: Недостаточно средств"));
+        }
+
+        assertEquals(2, appender.list.size());
+    }
+
+    @Test
+    void sampledArguments_ShouldNotBeRendered_WhenDenied() {
+        AtomicInteger rendered = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            failures.warn("{}: {}", "CARD_TRANSFER_FAILED", new SampledArgument() {
+                @Override
+                public Object samplingKey() {
+                    return "Недостаточно средств";
+                }
+
+                @Override
+                public String toString() {
+                    rendered.incrementAndGet();
+                    return "Ошибка перевода между картами 1 и 2: Недостаточно средств";
+                }
+            });
+        }
+        appender.list.forEach(ILoggingEvent::getFormattedMessage);
+
+        assertEquals(2, rendered.get());
+    }
+
+    @Test
+    void suppressedCount_ShouldBeReported_WhenWindowRolls() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            failures.warn("{}: {}", "USER_NOT_FOUND", "Пользователь не найден");
+        }
+        Thread.sleep(150);
+        failures.warn("{}: {}", "USER_NOT_FOUND", "Пользователь не найден");
+
+        List<String> messages = new ArrayList<>();
+        appender.list.forEach(event -> messages.add(event.getFormattedMessage()));
+        assertEquals(4, messages.size());
+        assertEquals("3 identical records suppressed during the last window: [USER_NOT_FOUND, Пользователь не найден]",
+                messages.get(2));
+    }
+
+    @Test
+    void otherLoggers_ShouldNotBeSampled() {
+        Logger other = context.getLogger("test.Other");
+        for (int i = 0; i < 5; i++) {
+            other.warn("{}: {}", "CARD_TRANSFER_FAILED", "same");
+        }
+
+        assertEquals(5, appender.list.size());
+    }
+
+
+    private record Message(String reason, String text) implements SampledArgument {
+
+        @Override
+        public Object samplingKey() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bankcards.config.sql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+
+
+
+class SqlStatementListenerTest {
+    private static final String SELECT_CARD = "select * from card_table where id=?";
+    private static final String UPDATE_CARD = "update card_table set ballance=? where id=?";
+
+    private SimpleMeterRegistry registry;
+    private SqlStatementListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+        when(meterRegistry.getObject()).thenReturn(registry);
+        listener = new SqlStatementListener(meterRegistry, Duration.ofSeconds(1), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestStatements.end();
+    }
+
+    @Test
+    void query_ShouldBeTimedByType() {
+        execute(SELECT_CARD);
+        execute(UPDATE_CARD);
+
+        assertEquals(1, registry.get("sql.query").tags("type", "select", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("sql.query").tags("type", "update", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void query_ShouldBeCountedForCurrentRequest() {
+        RequestStatements.begin("GET /cards", 5, 3, false);
+
+        execute(SELECT_CARD);
+        execute(SELECT_CARD);
+        execute(UPDATE_CARD);
+
+        RequestStatements statements = RequestStatements.end();
+        assertEquals(3, statements.getTotal());
+        assertEquals(2, statements.getMostRepeatedCount());
+        assertEquals(SELECT_CARD, statements.getMostRepeatedSql());
+    }
+
+    @Test
+    void exceededBudget_ShouldOnlyBeReported_WhenNotEnforced() {
+        RequestStatements.begin("GET /cards", 1, 10, false);
+
+        execute(SELECT_CARD);
+        assertDoesNotThrow(() -> execute(UPDATE_CARD));
+
+        assertTrue(RequestStatements.end().exceedsBudget());
+    }
+
+    @Test
+    void exceededBudget_ShouldFailStatement_WhenEnforced() {
+        RequestStatements.begin("GET /cards", 1, 10, true);
+
+        execute(SELECT_CARD);
+
+        assertThrows(StatementBudgetExceededException.class, () -> execute(UPDATE_CARD));
+    }
+
+    @Test
+    void repeatedStatement_ShouldFailAsNPlusOne_WhenEnforced() {
+        RequestStatements.begin("DELETE /admin/delete/{userId}", 100, 3, true);
+
+        execute(SELECT_CARD);
+        execute(SELECT_CARD);
+
+        StatementBudgetExceededException ex = assertThrows(StatementBudgetExceededException.class, () -> execute(SELECT_CARD));
+        assertTrue(ex.getMessage().contains("N+1"));
+    }
+
+    private void execute(String sql) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setSuccess(true);
+        execInfo.setDataSourceName("dataSource");
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+}
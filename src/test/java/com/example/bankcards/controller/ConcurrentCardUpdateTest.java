@@ -0,0 +1,145 @@
+package com.example.bankcards.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+
+
+/**
+ * Пополнения и переводы одной карты идут параллельно
+ *
+ * <p>Каждый запрос должен завершиться успешно, а итоговые балансы - учесть все изменения:
+ * ни ошибки оптимистической блокировки, ни потерянного обновления, ни взаимоблокировки
+ * встречных переводов</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.rate-limit.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ConcurrentCardUpdateTest {
+    private static final String ADMIN_PHONE = "+79991112233";
+    private static final String USER_PHONE = "+79991114455";
+    private static final String OTHER_USER_PHONE = "+79991114466";
+    private static final String PASSWORD = "Qwe123456";
+    private static final int OPERATIONS = 20;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void addBallance_AndTransfer_ShouldNotConflict_WhenRunConcurrently() throws Exception {
+        String admin = signIn(ADMIN_PHONE);
+        ok(call(HttpMethod.POST, "/sign-up", null, Map.of(
+                "phoneNumber", USER_PHONE, "password", PASSWORD, "firstName", "Ivan", "lastName", "Petrov")));
+        String user = signIn(USER_PHONE);
+        Long userId = jdbcTemplate.queryForObject(
+                "SELECT id FROM USER_TABLE WHERE phone_number = ?", Long.class, USER_PHONE);
+        long from = cardId(ok(call(HttpMethod.POST, "/admin/create-card/" + userId, admin, null)));
+        long to = cardId(ok(call(HttpMethod.POST, "/admin/create-card/" + userId, admin, null)));
+        ok(call(HttpMethod.POST, "/admin/add-ballance", admin, Map.of("cardId", from, "sum", 100)));
+
+        List<Callable<ResponseEntity<String>>> calls = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            calls.add(() -> call(HttpMethod.POST, "/admin/add-ballance", admin, Map.of("cardId", from, "sum", 2)));
+            calls.add(() -> call(HttpMethod.POST, "/transfer-between-cards", user,
+                    Map.of("fromCardId", from, "toCardId", to, "sum", 1)));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<ResponseEntity<String>> response : pool.invokeAll(calls)) {
+                ok(response.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(0, new BigDecimal(100 + OPERATIONS).compareTo(balance(from)));
+        assertEquals(0, new BigDecimal(OPERATIONS).compareTo(balance(to)));
+    }
+
+    @Test
+    void oppositeTransfers_ShouldNotDeadlock() throws Exception {
+        String admin = signIn(ADMIN_PHONE);
+        ok(call(HttpMethod.POST, "/sign-up", null, Map.of(
+                "phoneNumber", OTHER_USER_PHONE, "password", PASSWORD, "firstName", "Petr", "lastName", "Ivanov")));
+        String user = signIn(OTHER_USER_PHONE);
+        Long userId = jdbcTemplate.queryForObject(
+                "SELECT id FROM USER_TABLE WHERE phone_number = ?", Long.class, OTHER_USER_PHONE);
+        long first = cardId(ok(call(HttpMethod.POST, "/admin/create-card/" + userId, admin, null)));
+        long second = cardId(ok(call(HttpMethod.POST, "/admin/create-card/" + userId, admin, null)));
+        ok(call(HttpMethod.POST, "/admin/add-ballance", admin, Map.of("cardId", first, "sum", 100)));
+        ok(call(HttpMethod.POST, "/admin/add-ballance", admin, Map.of("cardId", second, "sum", 100)));
+
+        List<Callable<ResponseEntity<String>>> calls = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            calls.add(() -> call(HttpMethod.POST, "/transfer-between-cards", user,
+                    Map.of("fromCardId", first, "toCardId", second, "sum", 1)));
+            calls.add(() -> call(HttpMethod.POST, "/transfer-between-cards", user,
+                    Map.of("fromCardId", second, "toCardId", first, "sum", 2)));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<ResponseEntity<String>> response : pool.invokeAll(calls)) {
+                ok(response.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(0, new BigDecimal(100 + OPERATIONS).compareTo(balance(first)));
+        assertEquals(0, new BigDecimal(100 - OPERATIONS).compareTo(balance(second)));
+    }
+
+    private BigDecimal balance(long cardId) {
+        return jdbcTemplate.queryForObject("SELECT ballance FROM CARD_TABLE WHERE id = ?", BigDecimal.class, cardId);
+    }
+
+    private String signIn(String phone) {
+        String body = ok(call(HttpMethod.POST, "/sign-in", null, Map.of("phoneNumber", phone, "password", PASSWORD)));
+        return body.replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+    }
+
+    private ResponseEntity<String> call(HttpMethod method, String url, String token, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        return rest.exchange(url, method, new HttpEntity<>(body, headers), String.class);
+    }
+
+    private static String ok(ResponseEntity<String> response) {
+        assertEquals(2, response.getStatusCode().value() / 100, () -> "Unexpected response: " + response);
+        return response.getBody();
+    }
+
+    private static long cardId(String body) {
+        return Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+}
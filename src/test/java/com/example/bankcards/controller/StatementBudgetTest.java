@@ -0,0 +1,103 @@
+package com.example.bankcards.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+
+/**
+ * Проходит по основным эндпоинтам с включенным {@code app.sql.statement-budget.enforce}
+ *
+ * <p>Вызов, превысивший бюджет SQL-запросов или повторивший запрос больше порога N+1,
+ * обрывается исключением и возвращает ошибку вместо 2xx</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.sql.instrumentation.enabled=true",
+        "app.sql.statement-budget.enforce=true",
+        "app.rate-limit.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class StatementBudgetTest {
+    private static final String ADMIN_PHONE = "+79991112233";
+    private static final String USER_PHONE = "+79991119876";
+    private static final String PASSWORD = "Qwe123456";
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void endpoints_ShouldStayWithinStatementBudget() {
+        String admin = signIn(ADMIN_PHONE);
+        ok(call(HttpMethod.POST, "/sign-up", null, Map.of(
+                "phoneNumber", USER_PHONE, "password", PASSWORD, "firstName", "Ivan", "lastName", "Petrov")));
+        String user = signIn(USER_PHONE);
+        Long userId = jdbcTemplate.queryForObject(
+                "SELECT id FROM USER_TABLE WHERE phone_number = ?", Long.class, USER_PHONE);
+
+        long from = cardId(ok(call(HttpMethod.POST, "/admin/create-card/" + userId, admin, null)));
+        long to = cardId(ok(call(HttpMethod.POST, "/admin/create-card/" + userId, admin, null)));
+        ok(call(HttpMethod.POST, "/admin/add-ballance", admin, Map.of("cardId", from, "sum", 100)));
+
+        ok(call(HttpMethod.POST, "/transfer-between-cards", user, Map.of("fromCardId", from, "toCardId", to, "sum", 30)));
+        ok(call(HttpMethod.GET, "/check-ballance/" + from, user, null));
+        ok(call(HttpMethod.GET, "/cards/" + from + "/transfers?size=10", user, null));
+        ok(call(HttpMethod.GET, "/cards?page=0&size=10", user, null));
+        ok(call(HttpMethod.POST, "/block-card-request/" + to, user, null));
+        ok(call(HttpMethod.GET, "/admin/get-pending-block-cards?page=0&size=10", admin, null));
+        ok(call(HttpMethod.GET, "/admin/get-all-cards?page=0&size=10", admin, null));
+        ok(call(HttpMethod.DELETE, "/admin/delete/" + userId, admin, null));
+
+        assertNull(meterRegistry.find("http.server.sql.n-plus-one").counter());
+        assertNull(meterRegistry.find("http.server.sql.budget.exceeded").counter());
+        assertTrue(meterRegistry.get("http.server.sql.statements")
+                .tag("uri", "/transfer-between-cards").summary().count() > 0);
+    }
+
+    private String signIn(String phone) {
+        String body = ok(call(HttpMethod.POST, "/sign-in", null, Map.of("phoneNumber", phone, "password", PASSWORD)));
+        return body.replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+    }
+
+    private ResponseEntity<String> call(HttpMethod method, String url, String token, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        return rest.exchange(url, method, new HttpEntity<>(body, headers), String.class);
+    }
+
+    private static String ok(ResponseEntity<String> response) {
+        assertEquals(2, response.getStatusCode().value() / 100, () -> "Unexpected response: " + response);
+        return response.getBody();
+    }
+
+    private static long cardId(String body) {
+        return Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+}
@@ -96,7 +96,7 @@ class UserControllerTest {
     @Test
     void signUp_shouldReturnJwtResponse() {
         SignUpRequest request = new SignUpRequest();
-        JwtAuthenticationResponse jwtResponse = new JwtAuthenticationResponse("token123");
+        JwtAuthenticationResponse jwtResponse = new JwtAuthenticationResponse("token123", "refresh123");
 
         when(authenticationService.signUp(request)).thenReturn(jwtResponse);
 
@@ -110,7 +110,7 @@ class UserControllerTest {
     @Test
     void signIn_shouldReturnJwtResponse() {
         SignInRequest request = new SignInRequest();
-        JwtAuthenticationResponse jwtResponse = new JwtAuthenticationResponse("token456");
+        JwtAuthenticationResponse jwtResponse = new JwtAuthenticationResponse("token456", "refresh456");
 
         when(authenticationService.signIn(request)).thenReturn(jwtResponse);
 
@@ -121,6 +121,21 @@ class UserControllerTest {
         verify(authenticationService).signIn(request);
     }
 
+    @Test
+    void refresh_shouldReturnRotatedTokens() {
+        RefreshTokenRequest request = new RefreshTokenRequest("refresh456");
+        JwtAuthenticationResponse jwtResponse = new JwtAuthenticationResponse("token789", "refresh789");
+
+        when(authenticationService.refresh(request)).thenReturn(jwtResponse);
+
+        ResponseEntity<JwtAuthenticationResponse> response = userController.refresh(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(jwtResponse, response.getBody());
+
+        verify(authenticationService).refresh(request);
+    }
+
     @Test
     void getDecryptCardNumber_shouldReturnDecryptedNumber() {
         Long cardId = 20L;
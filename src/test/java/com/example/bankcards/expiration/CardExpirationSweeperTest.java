@@ -0,0 +1,125 @@
+package com.example.bankcards.expiration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.example.bankcards.entity.JobCheckpoint;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.JobCheckpointRepository;
+import com.example.bankcards.service.DAO.CardServiceDAO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+class CardExpirationSweeperTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    private CardServiceDAO cardService;
+    private CardRepository cardRepository;
+    private JobCheckpointRepository checkpoints;
+    private SimpleMeterRegistry registry;
+    private CardExpirationSweeper sweeper;
+    private JobCheckpoint saved;
+    private final Set<String> ranges = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        cardService = mock(CardServiceDAO.class);
+        cardRepository = mock(CardRepository.class);
+        checkpoints = mock(JobCheckpointRepository.class);
+        registry = new SimpleMeterRegistry();
+        sweeper = new CardExpirationSweeper(cardService, cardRepository, checkpoints, mock(DataSource.class),
+                registry, 5, 2, 10);
+
+        when(cardRepository.findMaxId()).thenReturn(12L);
+        when(checkpoints.save(any())).thenAnswer(invocation -> {
+            JobCheckpoint checkpoint = invocation.getArgument(0);
+            saved = JobCheckpoint.builder().jobName(checkpoint.getJobName()).runDate(checkpoint.getRunDate())
+                    .lastId(checkpoint.getLastId()).completed(checkpoint.isCompleted()).build();
+            return checkpoint;
+        });
+        when(cardService.expireCards(anyLong(), anyLong())).thenAnswer(invocation -> {
+            ranges.add(invocation.getArgument(0) + "-" + invocation.getArgument(1));
+            return List.of(invocation.<Long>getArgument(0));
+        });
+    }
+
+    @Test
+    void sweep_ShouldCoverAllRangesAndComplete() {
+        when(checkpoints.findById(CardExpirationSweeper.JOB_NAME)).thenReturn(Optional.empty());
+
+        assertEquals(3, sweeper.sweep(TODAY));
+
+        assertEquals(Set.of("1-5", "6-10", "11-12"), ranges);
+        assertEquals(12L, saved.getLastId());
+        assertTrue(saved.isCompleted());
+        assertEquals(3, registry.get("card.expiration.expired").counter().count());
+    }
+
+    @Test
+    void sweep_ShouldResumeFromCheckpoint() {
+        when(checkpoints.findById(CardExpirationSweeper.JOB_NAME)).thenReturn(Optional.of(checkpoint(TODAY, 5, false)));
+
+        sweeper.sweep(TODAY);
+
+        assertEquals(Set.of("6-10", "11-12"), ranges);
+    }
+
+    @Test
+    void sweep_ShouldStartOver_WhenCheckpointIsFromPreviousDay() {
+        when(checkpoints.findById(CardExpirationSweeper.JOB_NAME))
+                .thenReturn(Optional.of(checkpoint(TODAY.minusDays(1), 12, true)));
+
+        sweeper.sweep(TODAY);
+
+        assertEquals(Set.of("1-5", "6-10", "11-12"), ranges);
+        assertEquals(TODAY, saved.getRunDate());
+    }
+
+    @Test
+    void sweep_ShouldSkip_WhenTodayIsCompleted() {
+        when(checkpoints.findById(CardExpirationSweeper.JOB_NAME)).thenReturn(Optional.of(checkpoint(TODAY, 12, true)));
+
+        assertEquals(0, sweeper.sweep(TODAY));
+
+        verify(cardService, never()).expireCards(anyLong(), anyLong());
+    }
+
+    @Test
+    void failedRange_ShouldKeepCheckpointBeforeIt() {
+        when(checkpoints.findById(CardExpirationSweeper.JOB_NAME)).thenReturn(Optional.empty());
+        when(cardService.expireCards(6L, 10L)).thenThrow(new IllegalStateException("deadlock"));
+
+        assertThrows(IllegalStateException.class, () -> sweeper.sweep(TODAY));
+
+        assertTrue(saved == null || saved.getLastId() <= 5);
+        assertFalse(saved != null && saved.isCompleted());
+    }
+
+    @Test
+    void workers_ShouldLeaveHalfOfPoolToRequests() {
+        assertEquals(4, CardExpirationSweeper.workersFor(4, 10));
+        assertEquals(2, CardExpirationSweeper.workersFor(4, 6));
+        assertEquals(1, CardExpirationSweeper.workersFor(4, 2));
+    }
+
+    private static JobCheckpoint checkpoint(LocalDate runDate, long lastId, boolean completed) {
+        return JobCheckpoint.builder().jobName(CardExpirationSweeper.JOB_NAME).runDate(runDate)
+                .lastId(lastId).completed(completed).build();
+    }
+}
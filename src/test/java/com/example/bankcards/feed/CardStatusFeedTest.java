@@ -0,0 +1,109 @@
+package com.example.bankcards.feed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+class CardStatusFeedTest {
+    private final List<Runnable> dispatches = new ArrayList<>();
+    private SimpleMeterRegistry registry;
+    private CardStatusFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        feed = new CardStatusFeed(new ObjectMapper().registerModule(new JavaTimeModule()), registry, 2,
+                Duration.ofMinutes(1), dispatches::add);
+    }
+
+    @Test
+    void event_ShouldBeDeliveredToEverySubscriber() {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        feed.subscribe(first);
+        feed.subscribe(second);
+
+        feed.publishAfterCommit(List.of(5L), CARD_STATUS.PENDING_BLOCK);
+        dispatch();
+
+        assertEquals(List.of("5:PENDING_BLOCK"), first.cards());
+        assertEquals(List.of("5:PENDING_BLOCK"), second.cards());
+    }
+
+    @Test
+    void slowSubscriber_ShouldLoseOldestEvents() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter);
+
+        feed.publishAfterCommit(List.of(1L, 2L, 3L), CARD_STATUS.BLOCKED);
+        dispatch();
+
+        assertEquals(List.of("2:BLOCKED", "3:BLOCKED"), emitter.cards());
+        assertTrue(emitter.received.get(0).contains("id:2"));
+        assertEquals(1, registry.get("card.status.feed.dropped").counter().count());
+    }
+
+    @Test
+    void statusOutsideFeed_ShouldBeIgnored() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter);
+
+        feed.publishAfterCommit(List.of(1L), CARD_STATUS.EXPIRED);
+        dispatch();
+
+        assertTrue(emitter.received.isEmpty());
+    }
+
+    @Test
+    void disconnectedSubscriber_ShouldBeRemoved() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.broken = true;
+        feed.subscribe(emitter);
+
+        feed.publishAfterCommit(List.of(1L), CARD_STATUS.ACTIVE);
+        dispatch();
+
+        assertEquals(0, feed.subscriberCount());
+    }
+
+    private void dispatch() {
+        while (!dispatches.isEmpty()) {
+            dispatches.remove(0).run();
+        }
+    }
+
+
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> received = new ArrayList<>();
+        boolean broken;
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            received.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+
+        List<String> cards() {
+            return received.stream()
+                    .map(event -> event.replaceAll("(?s).*\"cardId\":(\\d+),\"status\":\"(\\w+)\".*", "$1:$2"))
+                    .toList();
+        }
+    }
+}
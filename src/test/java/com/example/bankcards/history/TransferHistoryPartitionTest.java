@@ -0,0 +1,169 @@
+package com.example.bankcards.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import com.example.bankcards.dto.TransferHistoryCursor;
+import com.example.bankcards.entity.CardTransfer;
+import com.example.bankcards.repository.CardTransferRepository;
+
+
+
+/**
+ * Проверяет секционирование TRANSFER_TABLE, keyset-пагинацию истории и архивирование старых секций
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TransferPartitionMaintainer.class)
+@Testcontainers(disabledWithoutDocker = true)
+class TransferHistoryPartitionTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.transfer-history.archive.enabled", () -> "true");
+        registry.add("app.transfer-history.archive.retention-months", () -> "12");
+        registry.add("app.transfer-history.archive.dir", () -> archiveDir.toString());
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardTransferRepository transferRepository;
+
+    @Autowired
+    private TransferPartitionMaintainer maintainer;
+
+    @Test
+    void migration_ShouldCreatePartitionsAhead() {
+        for (int i = 0; i <= 3; i++) {
+            assertTrue(partitionExists(partitionName(YearMonth.now(ZoneOffset.UTC).plusMonths(i))));
+        }
+    }
+
+    @Test
+    void history_ShouldBeKeysetPaginated() {
+        long cardId = 1_000;
+        for (int i = 0; i < 25; i++) {
+            boolean outgoing = i % 2 == 0;
+            transferRepository.save(CardTransfer.builder()
+                    .fromCardId(outgoing ? cardId : cardId + 1)
+                    .toCardId(outgoing ? cardId + 1 : cardId)
+                    .amount(BigDecimal.valueOf(i + 1))
+                    .build());
+        }
+        transferRepository.save(CardTransfer.builder().fromCardId(cardId + 2).toCardId(cardId + 3)
+                .amount(BigDecimal.ONE).build());
+
+        List<Integer> pageSizes = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        TransferHistoryCursor cursor = TransferHistoryCursor.FIRST;
+        long previousId = Long.MAX_VALUE;
+        while (true) {
+            List<CardTransfer> page = transferRepository.findHistory(cardId, cursor.createdAt(), cursor.id(), 10);
+            if (page.isEmpty()) {
+                break;
+            }
+            pageSizes.add(page.size());
+            for (CardTransfer transfer : page) {
+                assertTrue(transfer.getId() < previousId);
+                assertTrue(seen.add(transfer.getId()));
+                previousId = transfer.getId();
+            }
+            cursor = TransferHistoryCursor.decode(TransferHistoryCursor.after(page.get(page.size() - 1)).encode());
+        }
+
+        assertEquals(List.of(10, 10, 5), pageSizes);
+    }
+
+    @Test
+    void newPartition_ShouldTakeOverRowsFromDefaultPartition() {
+        YearMonth later = YearMonth.now(ZoneOffset.UTC).plusMonths(6);
+        jdbcTemplate.update("""
+                INSERT INTO TRANSFER_TABLE (from_card_id, to_card_id, amount, created_at)
+                VALUES (1, 2, 10, ?::timestamptz)
+                """, later.atDay(15).atStartOfDay().toInstant(ZoneOffset.UTC).toString());
+        assertEquals(1, count("transfer_table_default"));
+
+        jdbcTemplate.queryForObject("SELECT create_transfer_partitions(6)", Integer.class);
+
+        assertEquals(0, count("transfer_table_default"));
+        assertEquals(1, count(partitionName(later)));
+    }
+
+    @Test
+    void maintain_ShouldArchiveAndDropOldPartitions() throws IOException {
+        String old = partitionName(YearMonth.of(2020, 1));
+        jdbcTemplate.execute("CREATE TABLE " + old
+                + " PARTITION OF TRANSFER_TABLE FOR VALUES FROM ('2020-01-01 00:00+00') TO ('2020-02-01 00:00+00')");
+        jdbcTemplate.update("""
+                INSERT INTO TRANSFER_TABLE (from_card_id, to_card_id, amount, created_at)
+                SELECT 1, 2, g, TIMESTAMPTZ '2020-01-10 00:00+00' + g * INTERVAL '1 hour' FROM generate_series(1, 3) g
+                """);
+
+        maintainer.maintain();
+
+        assertFalse(partitionExists(old));
+        Path archive = archiveDir.resolve(old + ".csv.gz");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().toList();
+            assertEquals("id,from_card_id,to_card_id,amount,created_at", lines.get(0));
+            assertEquals(4, lines.size());
+        }
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, old));
+    }
+
+    private boolean partitionExists(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhparent = to_regclass('transfer_table')
+                               AND inhrelid = to_regclass(?))
+                """, Boolean.class, name));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("transfer_table_%d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.bankcards.limits;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.bankcards.entity.SpendingLimit;
+import com.example.bankcards.limits.SpendingLimits.Verdict;
+import com.example.bankcards.repository.CardTransferRepository;
+import com.example.bankcards.repository.CardTransferRepository.HourlySpending;
+import com.example.bankcards.repository.SpendingLimitRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+class SpendingLimitsTest {
+    private static final long HOUR = SpendingCounter.HOUR_MILLIS;
+    private static final Long CARD_ID = 10L;
+    private static final Long USER_ID = 1L;
+
+    private SpendingLimitRepository limitRepository;
+    private CardTransferRepository transferRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        limitRepository = mock(SpendingLimitRepository.class);
+        transferRepository = mock(CardTransferRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2026-03-10T12:30:00Z").toEpochMilli());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_ShouldNotTouchWindows_WhenNoLimitApplies() {
+        SpendingLimits limits = limits(null, null);
+
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("1000000")));
+
+        verifyNoInteractions(transferRepository);
+    }
+
+    @Test
+    void reserve_ShouldRejectOverDailyLimit_UntilSpendingSlidesOut() {
+        SpendingLimits limits = limits(new BigDecimal("100.00"), null);
+
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("60")));
+        clock.advance(2 * HOUR);
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("40")));
+        assertEquals(Verdict.CARD_DAILY, limits.reserve(CARD_ID, USER_ID, new BigDecimal("0.01")));
+
+        clock.advance(22 * HOUR);
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("60")));
+        assertEquals(Verdict.CARD_DAILY, limits.reserve(CARD_ID, USER_ID, new BigDecimal("0.01")));
+        assertEquals(2, meterRegistry.get("card.spending.limit.rejected")
+                .tags("scope", "card", "period", "daily").counter().count());
+    }
+
+    @Test
+    void reserve_ShouldRebuildWindowsFromHistory_AndShareUserLimitAcrossCards() {
+        when(limitRepository.findAll()).thenReturn(List.of(
+                SpendingLimit.builder().userId(USER_ID).monthlyLimit(new BigDecimal("1000")).build()));
+        // 29 суток назад с этой карты, 3 часа назад - с другой карты того же пользователя
+        long start = clock.millis();
+        when(transferRepository.sumOutgoingByHour(any(), any(), any())).thenAnswer(invocation -> {
+            long since = ((Instant) invocation.getArgument(2)).toEpochMilli();
+            return List.of(
+                    hour(Math.floorDiv(start - 29 * 24 * HOUR - since, HOUR), "500", "500"),
+                    hour(Math.floorDiv(start - 3 * HOUR - since, HOUR), "0", "300"));
+        });
+        SpendingLimits limits = limits(null, null, HOUR);
+
+        assertEquals(Verdict.USER_MONTHLY, limits.reserve(CARD_ID, USER_ID, new BigDecimal("200.01")));
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("200")));
+        assertEquals(Verdict.USER_MONTHLY, limits.reserve(11L, USER_ID, new BigDecimal("0.01")));
+
+        clock.advance(24 * HOUR);
+        assertEquals(Verdict.ALLOWED, limits.reserve(11L, USER_ID, new BigDecimal("500")));
+        verify(transferRepository, times(3)).sumOutgoingByHour(any(), any(), any());
+    }
+
+    @Test
+    void reserve_ShouldReleaseAmount_WhenTransactionRollsBack() {
+        SpendingLimits limits = limits(new BigDecimal("100"), null);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("100")));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("100")));
+        assertEquals(Verdict.CARD_DAILY, limits.reserve(CARD_ID, USER_ID, new BigDecimal("1")));
+    }
+
+    @Test
+    void sync_ShouldKeepStaleWindows_WhileReservationIsPending() {
+        SpendingLimits limits = limits(new BigDecimal("100"), null, HOUR);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(Verdict.ALLOWED, limits.reserve(CARD_ID, USER_ID, new BigDecimal("60")));
+        clock.advance(2 * HOUR);
+        limits.sync();
+        assertEquals(2, windows());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        limits.sync();
+        assertEquals(0, windows());
+    }
+
+    @Test
+    void window_ShouldDropOnlyExpiredBuckets() {
+        SpendingWindow window = new SpendingWindow(HOUR, 24);
+        long start = clock.millis();
+
+        window.add(start, 100);
+        window.add(start + HOUR, 50);
+        window.add(start - 30 * HOUR, 999);
+
+        assertEquals(150, window.total(start + HOUR));
+        assertEquals(50, window.total(start + 24 * HOUR));
+        assertEquals(0, window.total(start + 100 * HOUR));
+    }
+
+    private double windows() {
+        return meterRegistry.get("card.spending.windows").gauge().value();
+    }
+
+    private SpendingLimits limits(BigDecimal cardDaily, BigDecimal cardMonthly) {
+        return limits(cardDaily, cardMonthly, 60 * 24 * HOUR);
+    }
+
+    private SpendingLimits limits(BigDecimal cardDaily, BigDecimal cardMonthly, long reconcileMillis) {
+        SpendingLimits limits = new SpendingLimits(limitRepository, transferRepository, meterRegistry,
+                cardDaily, cardMonthly, reconcileMillis, clock);
+        limits.init();
+        return limits;
+    }
+
+    private static HourlySpending hour(long hour, String cardAmount, String userAmount) {
+        return new HourlySpending() {
+            @Override
+            public Long getHour() {
+                return hour;
+            }
+
+            @Override
+            public BigDecimal getCardAmount() {
+                return new BigDecimal(cardAmount);
+            }
+
+            @Override
+            public BigDecimal getUserAmount() {
+                return new BigDecimal(userAmount);
+            }
+        };
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
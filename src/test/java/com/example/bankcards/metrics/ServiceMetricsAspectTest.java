@@ -0,0 +1,121 @@
+package com.example.bankcards.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.entity.CardDetails;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardException.CardNotFoundException;
+import com.example.bankcards.feed.CardStatusFeed;
+import com.example.bankcards.limits.SpendingLimits;
+import com.example.bankcards.outbox.OutboxEvents;
+import com.example.bankcards.repository.CardDetailsRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.DAO.CardServiceDAO;
+import com.example.bankcards.service.DAO.UserServiceDAO;
+import com.example.bankcards.service.Impl.CardServiceImpl;
+import com.example.bankcards.service.Impl.UserServiceImpl;
+import com.example.bankcards.util.CardGenerator;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+
+
+class ServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private CardDetailsRepository detailsRepository;
+    private CardServiceDAO cardService;
+    private UserServiceDAO userService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        ServiceMetricsAspect aspect = new ServiceMetricsAspect(registry);
+        detailsRepository = mock(CardDetailsRepository.class);
+
+        cardService = proxy(new CardServiceImpl(mock(CardRepository.class), mock(CardBalanceCache.class),
+                detailsRepository, mock(EntityCacheInvalidator.class), mock(CardMetrics.class),
+                mock(CardTransferRepository.class), mock(OutboxEvents.class), mock(CardStatusFeed.class),
+                mock(SpendingLimits.class), mock(EntityManager.class)), aspect);
+        userService = proxy(new UserServiceImpl(mock(UserRepository.class), cardService, mock(CardGenerator.class),
+                mock(CardBalanceCache.class), mock(EntityCacheInvalidator.class)), aspect);
+
+        User user = new User();
+        user.setId(1L);
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(user, null, List.of())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void successfulCall_ShouldBeTimedWithSuccessTags() {
+        CardDetails details = new CardDetails(5L, 1L, "400000", "3456", "encrypted", null, null);
+        when(detailsRepository.findById(5L)).thenReturn(Optional.of(details));
+
+        assertSame(details, cardService.getCardDetails(5L));
+        cardService.getCardDetails(5L);
+
+        Timer timer = registry.get(ServiceMetricsAspect.OPERATION_TIMER)
+                .tags("class", "CardServiceImpl", "method", "getCardDetails", "outcome", "success", "exception", "none")
+                .timer();
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void domainException_ShouldBeCountedOnce_WhenItCrossesSeveralServices() {
+        when(detailsRepository.findById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> userService.getDecryptCardNumber(5L));
+
+        assertEquals(1, registry.get(ServiceMetricsAspect.EXCEPTION_COUNTER)
+                .tags("domain", "card", "exception", "CardNotFoundException")
+                .counter().count());
+        assertEquals(1, registry.get(ServiceMetricsAspect.OPERATION_TIMER)
+                .tags("class", "CardServiceImpl", "method", "getCardDetails", "outcome", "error")
+                .timer().count());
+        assertEquals(1, registry.get(ServiceMetricsAspect.OPERATION_TIMER)
+                .tags("class", "UserServiceImpl", "method", "getDecryptCardNumber", "exception", "CardNotFoundException")
+                .timer().count());
+    }
+
+    @Test
+    void otherExceptions_ShouldOnlyBeTimed() {
+        when(detailsRepository.findById(5L)).thenThrow(new IllegalStateException("db is down"));
+
+        assertThrows(IllegalStateException.class, () -> cardService.getCardDetails(5L));
+
+        assertNull(registry.find(ServiceMetricsAspect.EXCEPTION_COUNTER).counter());
+        assertEquals(1, registry.get(ServiceMetricsAspect.OPERATION_TIMER)
+                .tags("outcome", "error", "exception", "IllegalStateException")
+                .timer().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, ServiceMetricsAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.bankcards.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+class TransferPhasesTest {
+
+    private SimpleMeterRegistry registry;
+    private CardMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new CardMetrics(mock(CardRepository.class), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void phases_ShouldBeRecordedInOrder_WhenTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransferPhases phases = new TransferPhases(metrics, 1L, 2L);
+        phases.locked();
+        phases.applied();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(1, count("lock"));
+        assertEquals(1, count("logic"));
+        assertEquals(1, count("commit"));
+        assertEquals(0, count("rollback"));
+    }
+
+    @Test
+    void completion_ShouldBeRecordedAsRollback_WhenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransferPhases phases = new TransferPhases(metrics, 1L, 2L);
+        phases.locked();
+        phases.applied();
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(0, count("commit"));
+        assertEquals(1, count("rollback"));
+    }
+
+    @Test
+    void interruptedPhase_ShouldNotBeRecorded() {
+        new TransferPhases(metrics, 1L, 2L);
+
+        assertEquals(0, count("lock"));
+        assertEquals(0, registry.get("card.transfer.phase").tag("phase", "lock").timer().totalTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCompletion();
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private long count(String phase) {
+        return registry.get("card.transfer.phase").tag("phase", phase).timer().count();
+    }
+}
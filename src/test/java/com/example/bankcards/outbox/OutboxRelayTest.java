@@ -0,0 +1,193 @@
+package com.example.bankcards.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.entity.OutboxEventType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+/**
+ * Проверяет запись событий outbox в транзакции изменения и их доставку ретранслятором
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OutboxEvents.class, OutboxRelay.class, OutboxRelayTest.Sinks.class})
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxRelayTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private OutboxEvents outboxEvents;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private RecordingSink sink;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM OUTBOX_TABLE");
+        sink.received.clear();
+        sink.failing = false;
+    }
+
+    @Test
+    void events_ShouldBeDeliveredInOrderAndDeleted() {
+        double published = publishedCount();
+        inTransaction(() -> {
+            outboxEvents.transferCompleted(1L, 2L, new BigDecimal("10.50"));
+            outboxEvents.cardStatusChanged(1L, CARD_STATUS.BLOCKED);
+            outboxEvents.cardsStatusChanged(List.of(3L, 4L), CARD_STATUS.ACTIVE);
+        });
+
+        relay.relay();
+
+        assertEquals(List.of(OutboxEventType.TRANSFER_COMPLETED, OutboxEventType.CARD_STATUS_CHANGED,
+                OutboxEventType.CARD_STATUS_CHANGED, OutboxEventType.CARD_STATUS_CHANGED),
+                sink.received.stream().map(OutboxMessage::type).toList());
+        assertEquals(List.of(1L, 1L, 3L, 4L), sink.received.stream().map(OutboxMessage::aggregateId).toList());
+        assertEquals("{\"amount\": 10.50, \"toCardId\": 2, \"fromCardId\": 1}", sink.received.get(0).payload());
+        assertEquals(0, count());
+        assertEquals(published + 4, publishedCount());
+    }
+
+    @Test
+    void events_ShouldNotBeWritten_WhenTransactionRollsBack() {
+        assertThrows(IllegalStateException.class, () -> inTransaction(() -> {
+            outboxEvents.cardStatusChanged(1L, CARD_STATUS.BLOCKED);
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertEquals(0, count());
+    }
+
+    @Test
+    void batch_ShouldBeRedelivered_WhenSinkFails() {
+        inTransaction(() -> outboxEvents.cardStatusChanged(1L, CARD_STATUS.BLOCKED));
+        sink.failing = true;
+
+        relay.relay();
+
+        assertEquals(1, count());
+        sink.failing = false;
+        relay.relay();
+
+        assertEquals(1, sink.received.size());
+        assertEquals(0, count());
+    }
+
+    @Test
+    void lockedEvents_ShouldBeSkipped() throws Exception {
+        inTransaction(() -> {
+            outboxEvents.cardStatusChanged(1L, CARD_STATUS.BLOCKED);
+            outboxEvents.cardStatusChanged(2L, CARD_STATUS.BLOCKED);
+        });
+        Long first = jdbcTemplate.queryForObject("SELECT min(id) FROM OUTBOX_TABLE", Long.class);
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (Statement statement = other.createStatement()) {
+                statement.execute("SELECT id FROM OUTBOX_TABLE WHERE id = " + first + " FOR UPDATE");
+            }
+            relay.relay();
+            assertEquals(List.of(2L), sink.received.stream().map(OutboxMessage::aggregateId).toList());
+            other.rollback();
+        }
+
+        relay.relay();
+        assertEquals(List.of(2L, 1L), sink.received.stream().map(OutboxMessage::aggregateId).toList());
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private double publishedCount() {
+        return meterRegistry.get("outbox.events.published").tag("sink", "recording").counter().count();
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM OUTBOX_TABLE", Integer.class);
+    }
+
+
+    static class RecordingSink implements OutboxSink {
+        final List<OutboxMessage> received = new ArrayList<>();
+        volatile boolean failing;
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void publish(List<OutboxMessage> messages) {
+            if (failing) {
+                throw new IllegalStateException("sink is down");
+            }
+            received.addAll(messages);
+        }
+    }
+
+    @TestConfiguration
+    static class Sinks {
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
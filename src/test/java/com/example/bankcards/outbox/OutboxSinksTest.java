@@ -0,0 +1,103 @@
+package com.example.bankcards.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.bankcards.entity.OutboxEventType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpServer;
+
+
+
+class OutboxSinksTest {
+    private static final OutboxMessage BLOCKED = new OutboxMessage(7, OutboxEventType.CARD_STATUS_CHANGED, 1,
+            Instant.parse("2026-01-01T00:00:00Z"), "{\"cardId\": 1, \"status\": \"BLOCKED\"}");
+    private static final OutboxMessage ACTIVE = new OutboxMessage(8, OutboxEventType.CARD_STATUS_CHANGED, 2,
+            Instant.parse("2026-01-01T00:00:00Z"), "{\"cardId\": 2, \"status\": \"ACTIVE\"}");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private HttpServer server;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> body = new AtomicReference<>();
+    private final AtomicReference<String> idempotencyKey = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/events", exchange -> {
+            body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            idempotencyKey.set(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void webhook_ShouldPostBatchAsJsonArray() throws IOException {
+        webhook().publish(List.of(BLOCKED, ACTIVE));
+
+        List<?> posted = objectMapper.readValue(body.get(), List.class);
+        assertEquals(2, posted.size());
+        assertEquals("{id=7, type=CARD_STATUS_CHANGED, aggregateId=1, createdAt=2026-01-01T00:00:00Z, "
+                + "payload={cardId=1, status=BLOCKED}}", posted.get(0).toString());
+        assertEquals("7-8", idempotencyKey.get());
+    }
+
+    @Test
+    void webhook_ShouldFail_WhenStubRespondsWithError() {
+        status.set(500);
+
+        assertThrows(IllegalStateException.class, () -> webhook().publish(List.of(BLOCKED)));
+    }
+
+    @Test
+    void file_ShouldAppendOneLinePerEvent(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("outbox/events.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(path, objectMapper);
+
+        sink.publish(List.of(BLOCKED));
+        sink.publish(List.of(ACTIVE));
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(2, lines.size());
+        assertEquals(2, objectMapper.readTree(lines.get(1)).get("payload").get("cardId").asInt());
+    }
+
+    @Test
+    void memory_ShouldKeepLatestEvents() {
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(1);
+
+        sink.publish(List.of(BLOCKED, ACTIVE));
+
+        assertEquals(List.of(ACTIVE), sink.recent());
+    }
+
+    private WebhookOutboxSink webhook() {
+        URI url = URI.create("http://localhost:" + server.getAddress().getPort() + "/events");
+        return new WebhookOutboxSink(url, Duration.ofSeconds(2), objectMapper);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bankcards.reactive;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.reactive.ReactiveCardReader.CardBalance;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveReadHandlerTest {
+
+    @Mock
+    private ReactiveCardReader cardReader;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        Claims claims = Jwts.claims().id("jti-1").subject("user").add(Map.of("id", 2L, "role", "ROLE_USER")).build();
+        lenient().when(jwtService.parseAccessToken("valid")).thenReturn(claims);
+        lenient().when(jwtService.parseAccessToken("broken")).thenThrow(new MalformedJwtException("broken"));
+        client = WebTestClient.bindToRouterFunction(
+                new ReactiveReadHandler(cardReader, jwtService, revocationService).routes()).build();
+    }
+
+    @Test
+    void cards_ShouldStreamUserCardsAsNdjson() {
+        when(cardReader.findUserCards(2L)).thenReturn(Flux.just(
+                CardDto.builder().id(2L).status(CARD_STATUS.ACTIVE).build(),
+                CardDto.builder().id(1L).status(CARD_STATUS.BLOCKED).build()));
+
+        client.get().uri("/cards").header("Authorization", "Bearer valid")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(CardDto.class).hasSize(2);
+    }
+
+    @Test
+    void ballance_ShouldReturnBalance_ForOwnCard() {
+        when(cardReader.findBalance(5L)).thenReturn(Mono.just(new CardBalance(2L, new BigDecimal("10.50"))));
+
+        client.get().uri("/check-ballance/5").header("Authorization", "Bearer valid")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BigDecimal.class).isEqualTo(new BigDecimal("10.50"));
+    }
+
+    @Test
+    void ballance_ShouldReturnForbidden_ForForeignCard() {
+        when(cardReader.findBalance(5L)).thenReturn(Mono.just(new CardBalance(3L, BigDecimal.ONE)));
+
+        client.get().uri("/check-ballance/5").header("Authorization", "Bearer valid")
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody().jsonPath("$.code").isEqualTo("USER_NOT_OWNS_THIS_CARD");
+    }
+
+    @Test
+    void ballance_ShouldReturnNotFound_ForMissingCard() {
+        when(cardReader.findBalance(5L)).thenReturn(Mono.empty());
+
+        client.get().uri("/check-ballance/5").header("Authorization", "Bearer valid")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.code").isEqualTo("CARD_NOT_FOUND");
+    }
+
+    @Test
+    void cards_ShouldReturnUnauthorized_ForMissingOrInvalidToken() {
+        client.get().uri("/cards").exchange().expectStatus().isUnauthorized();
+        client.get().uri("/cards").header("Authorization", "Bearer broken").exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void cards_ShouldReturnUnauthorized_ForRevokedToken() {
+        when(revocationService.mightBeRevoked("jti-1")).thenReturn(true);
+        when(revocationService.isRevoked(anyString())).thenReturn(true);
+
+        client.get().uri("/cards").header("Authorization", "Bearer valid").exchange().expectStatus().isUnauthorized();
+    }
+}
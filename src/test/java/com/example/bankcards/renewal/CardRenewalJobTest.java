@@ -0,0 +1,97 @@
+package com.example.bankcards.renewal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.JobCheckpoint;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.JobCheckpointRepository;
+import com.example.bankcards.service.DAO.CardServiceDAO;
+import com.example.bankcards.util.CardGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+class CardRenewalJobTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+    private static final LocalDate UNTIL = TODAY.plusDays(30);
+
+    private CardServiceDAO cardService;
+    private CardRepository cardRepository;
+    private CardGenerator cardGenerator;
+    private JobCheckpointRepository checkpoints;
+    private CardRenewalJob job;
+    private final List<List<Long>> persisted = new ArrayList<>();
+    private final List<Long> savedCheckpoints = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cardService = mock(CardServiceDAO.class);
+        cardRepository = mock(CardRepository.class);
+        cardGenerator = mock(CardGenerator.class);
+        checkpoints = mock(JobCheckpointRepository.class);
+        job = new CardRenewalJob(cardService, cardRepository, cardGenerator, checkpoints, mock(DataSource.class),
+                new SimpleMeterRegistry(), 30, 2, 3);
+
+        when(cardGenerator.generateCard(null)).thenAnswer(invocation -> new Card());
+        when(cardService.renewCards(any())).thenAnswer(invocation -> {
+            Map<Long, Card> replacements = invocation.getArgument(0);
+            persisted.add(List.copyOf(replacements.keySet()));
+            return List.copyOf(replacements.values());
+        });
+        when(checkpoints.save(any())).thenAnswer(invocation -> {
+            savedCheckpoints.add(invocation.<JobCheckpoint>getArgument(0).getLastId());
+            return invocation.getArgument(0);
+        });
+        when(cardRepository.findRenewalCandidates(eq(UNTIL), anyLong(), anyInt())).thenReturn(List.of());
+        when(cardRepository.findRenewalCandidates(UNTIL, 0L, 2)).thenReturn(List.of(3L, 7L));
+        when(cardRepository.findRenewalCandidates(UNTIL, 7L, 2)).thenReturn(List.of(9L));
+    }
+
+    @Test
+    void renew_ShouldPersistEveryBatchAndCheckpointIt() {
+        when(checkpoints.findById(CardRenewalJob.JOB_NAME)).thenReturn(Optional.empty());
+
+        assertEquals(3, job.renew(TODAY));
+
+        assertEquals(List.of(List.of(3L, 7L), List.of(9L)), persisted);
+        assertEquals(List.of(7L, 9L, 9L), savedCheckpoints);
+    }
+
+    @Test
+    void renew_ShouldResumeAfterCheckpoint() {
+        when(checkpoints.findById(CardRenewalJob.JOB_NAME)).thenReturn(Optional.of(JobCheckpoint.builder()
+                .jobName(CardRenewalJob.JOB_NAME).runDate(TODAY).lastId(7L).build()));
+
+        assertEquals(1, job.renew(TODAY));
+
+        assertEquals(List.of(List.of(9L)), persisted);
+    }
+
+    @Test
+    void renew_ShouldSkip_WhenTodayIsCompleted() {
+        when(checkpoints.findById(CardRenewalJob.JOB_NAME)).thenReturn(Optional.of(JobCheckpoint.builder()
+                .jobName(CardRenewalJob.JOB_NAME).runDate(TODAY).lastId(9L).completed(true).build()));
+
+        assertEquals(0, job.renew(TODAY));
+
+        verify(cardService, never()).renewCards(any());
+        assertTrue(persisted.isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.bankcards.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.feed.CardStatusFeed;
+import com.example.bankcards.limits.SpendingLimits;
+import com.example.bankcards.metrics.CardMetrics;
+import com.example.bankcards.outbox.OutboxEvents;
+import com.example.bankcards.service.DAO.CardServiceDAO;
+import com.example.bankcards.service.Impl.CardServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+/**
+ * Проверяет массовые переходы статуса карт нативным UPDATE
+ *
+ * <p>Тест не транзакционный: каждое изменение коммитится, как в отдельном запросе</p>
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({CardServiceImpl.class, CardBalanceCache.class, EntityCacheInvalidator.class, CardMetrics.class,
+        OutboxEvents.class, CardStatusFeed.class, SpendingLimits.class, CardBulkStatusTest.Config.class})
+class CardBulkStatusTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardServiceDAO cardService;
+
+    private long userId;
+
+    @BeforeEach
+    void seed() {
+        userId = jdbcTemplate.queryForObject("""
+                INSERT INTO USER_TABLE (username, first_name, last_name, password, phone_number, role)
+                VALUES ('bulk_' || gen_random_uuid(), 'Bulk', 'User', 'x', '+7' || floor(random() * 1e10)::bigint, 'ROLE_USER')
+                RETURNING id
+                """, Long.class);
+    }
+
+    @Test
+    void activate_ShouldSkipCardReplacedByRenewal() {
+        long renewed = insertCard("ACTIVE", "100.00");
+        long replaced = insertCard("INACTIVE", "0.00");
+        jdbcTemplate.update("UPDATE CARD_TABLE SET replaced_by_card_id = ? WHERE id = ?", renewed, replaced);
+        long inactive = insertCard("INACTIVE", "0.00");
+
+        assertEquals(List.of(inactive), cardService.changeStatus(CardStatusTransition.ACTIVATE, List.of(replaced, inactive)));
+
+        assertEquals(CARD_STATUS.INACTIVE.name(), status(replaced));
+        assertEquals(CARD_STATUS.ACTIVE.name(), status(inactive));
+    }
+
+    @Test
+    void changeStatus_ShouldRefreshCardLoadedEarlierInTransaction() {
+        long cardId = insertCard("ACTIVE", "100.00");
+
+        CARD_STATUS status = transactionTemplate.execute(tx -> {
+            cardRepository.findById(cardId).orElseThrow();
+            cardService.changeStatus(CardStatusTransition.BLOCK, List.of(cardId));
+            return cardRepository.findById(cardId).orElseThrow().getStatus();
+        });
+
+        assertEquals(CARD_STATUS.BLOCKED, status);
+    }
+
+    @Test
+    void expireCards_ShouldRefreshCardLoadedEarlierInTransaction() {
+        long cardId = insertCard("ACTIVE", "100.00");
+        jdbcTemplate.update("UPDATE CARD_TABLE SET expiration_date = CURRENT_DATE - 1 WHERE id = ?", cardId);
+
+        CARD_STATUS status = transactionTemplate.execute(tx -> {
+            cardRepository.findById(cardId).orElseThrow();
+            cardService.expireCards(cardId, cardId);
+            return cardRepository.findById(cardId).orElseThrow().getStatus();
+        });
+
+        assertEquals(CARD_STATUS.EXPIRED, status);
+    }
+
+    private long insertCard(String status, String balance) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO CARD_TABLE (bin, last_four, encrypted_card_number, cvv, create_date,
+                                        expiration_date, status, ballance, user_id)
+                VALUES ('491684', '0001', 'enc', '123', CURRENT_DATE, CURRENT_DATE + 1000, ?, ?, ?)
+                RETURNING id
+                """, Long.class, status, new BigDecimal(balance), userId);
+    }
+
+    private String status(long cardId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM CARD_TABLE WHERE id = ?", String.class, cardId);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.bankcards.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.CARD_STATUS;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+
+
+/**
+ * Проверяет, что запросы к CARD_TABLE обслуживаются индексами, а не последовательным чтением
+ *
+ * <p>Метод {@link CardRepository} вызывается в откатываемой транзакции, а SQL, который
+ * Hibernate отправил в драйвер (для Page - страница и count), перехватывается прокси
+ * datasource-proxy вместе с вызовами установки параметров. Затем тот же запрос с теми же
+ * параметрами выполняется через EXPLAIN. Таблица заполняется так, чтобы статистика была
+ * похожа на боевую: большинство карт ACTIVE, очередь PENDING_BLOCK около процента</p>
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(CardQueryPlanTest.CapturingDataSource.class)
+class CardQueryPlanTest {
+    private static final int USERS = 5_000;
+    private static final int CARDS = 100_000;
+    private static boolean seeded;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static final StatementCapture CAPTURE = new StatementCapture();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    private long userId;
+    private long cardId;
+
+    @BeforeEach
+    void seed() {
+        if (!seeded) {
+            jdbcTemplate.update("""
+                    INSERT INTO USER_TABLE (username, first_name, last_name, password, phone_number, role)
+                    SELECT 'plan_user_' || g, 'Plan', 'User', 'x', '+7900' || lpad(g::text, 7, '0'), 'ROLE_USER'
+                    FROM generate_series(1, ?) g
+                    """, USERS);
+            jdbcTemplate.update("""
+                    INSERT INTO CARD_TABLE (bin, last_four, encrypted_card_number, cvv, create_date,
+                                            expiration_date, status, ballance, user_id)
+                    SELECT '491684', lpad((g % 10000)::text, 4, '0'), 'enc' || g, '123', CURRENT_DATE,
+                           CURRENT_DATE + 1000,
+                           CASE WHEN g % 100 = 0 THEN 'PENDING_BLOCK'
+                                WHEN g % 20 = 0 THEN 'BLOCKED'
+                                WHEN g % 25 = 0 THEN 'INACTIVE'
+                                ELSE 'ACTIVE' END,
+                           0, u.id
+                    FROM generate_series(1, ?) g
+                    JOIN (SELECT id, row_number() OVER (ORDER BY id) - 1 AS n
+                          FROM USER_TABLE WHERE username LIKE 'plan_user_%') u ON u.n = g % ?
+                    """, CARDS, USERS);
+            jdbcTemplate.execute("VACUUM ANALYZE CARD_TABLE");
+            jdbcTemplate.execute("VACUUM ANALYZE USER_TABLE");
+            seeded = true;
+        }
+        userId = jdbcTemplate.queryForObject(
+                "SELECT min(id) FROM USER_TABLE WHERE username LIKE 'plan_user_%'", Long.class);
+        cardId = jdbcTemplate.queryForObject("SELECT min(id) FROM CARD_TABLE", Long.class);
+    }
+
+    static Stream<Arguments> cardQueries() {
+        Pageable firstPage = PageRequest.of(0, 10, Sort.by("id").descending());
+        return Stream.of(
+                query("findByOwnerIdAndStatus", (cards, ids) ->
+                        cards.findByOwnerIdAndStatus(ids.userId(), CARD_STATUS.ACTIVE, firstPage)),
+                query("findByOwnerId", (cards, ids) -> cards.findByOwnerId(ids.userId(), firstPage)),
+                query("findByStatus PENDING_BLOCK", (cards, ids) ->
+                        cards.findByStatus(CARD_STATUS.PENDING_BLOCK, firstPage)),
+                query("findByStatus BLOCKED", (cards, ids) ->
+                        cards.findByStatus(CARD_STATUS.BLOCKED, PageRequest.of(10, 10, Sort.by("id").descending()))),
+                // count по ACTIVE читает почти всю таблицу, для него последовательное чтение - верный план
+                pageOnly("findByStatus ACTIVE", (cards, ids) -> cards.findByStatus(CARD_STATUS.ACTIVE, firstPage)),
+                query("findByIdWithLock", (cards, ids) -> cards.findByIdWithLock(ids.cardId())),
+                query("updateStatusChangedBefore", (cards, ids) -> cards.updateStatusChangedBefore(
+                        new String[] {CARD_STATUS.PENDING_BLOCK.name()}, Instant.EPOCH,
+                        CARD_STATUS.BLOCKED.name(), 10_000)),
+                query("findRenewalCandidates", (cards, ids) ->
+                        cards.findRenewalCandidates(LocalDate.now().plusDays(30), 0, 200)),
+                query("streamAllCards", (cards, ids) -> {
+                    try (Stream<CardDto> stream = cards.streamAllCards()) {
+                        stream.limit(1).forEach(card -> { });
+                    }
+                }));
+    }
+
+    private static Arguments query(String name, BiConsumer<CardRepository, Ids> call) {
+        return Arguments.of(name, call, false);
+    }
+
+    private static Arguments pageOnly(String name, BiConsumer<CardRepository, Ids> call) {
+        return Arguments.of(name, call, true);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("cardQueries")
+    void cardQuery_ShouldNotUseSeqScan(String name, BiConsumer<CardRepository, Ids> call, boolean firstOnly) {
+        List<QueryInfo> statements = capture(call);
+
+        assertFalse(statements.isEmpty(), name + " sent no statements");
+        for (QueryInfo statement : firstOnly ? statements.subList(0, 1) : statements) {
+            String plan = explain(statement);
+            assertFalse(plan.contains("Seq Scan"),
+                    name + " uses a sequential scan:\n" + statement.getQuery() + "\n" + plan);
+        }
+    }
+
+    private List<QueryInfo> capture(BiConsumer<CardRepository, Ids> call) {
+        Ids ids = new Ids(userId, cardId);
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            CAPTURE.start();
+            try {
+                call.accept(cardRepository, ids);
+            } finally {
+                CAPTURE.stop();
+            }
+            return CAPTURE.statements();
+        });
+    }
+
+    private String explain(QueryInfo statement) {
+        return String.join("\n", jdbcTemplate.query(connection -> {
+            PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.getQuery());
+            if (!statement.getParametersList().isEmpty()) {
+                for (ParameterSetOperation operation : statement.getParametersList().get(0)) {
+                    try {
+                        operation.getMethod().invoke(explain, operation.getArgs());
+                    } catch (IllegalAccessException | InvocationTargetException ex) {
+                        throw new IllegalStateException("Cannot replay " + operation.getMethod().getName(), ex);
+                    }
+                }
+            }
+            return explain;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+
+
+    record Ids(long userId, long cardId) {
+    }
+
+    /**
+     * Оборачивает DataSource теста в прокси, который запоминает SQL репозитория
+     */
+    @TestConfiguration
+    static class CapturingDataSource {
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(beanName, dataSource).listener(CAPTURE).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    private static final class StatementCapture implements QueryExecutionListener {
+        private final List<QueryInfo> statements = new ArrayList<>();
+        private volatile boolean capturing;
+
+        void start() {
+            synchronized (statements) {
+                statements.clear();
+            }
+            capturing = true;
+        }
+
+        void stop() {
+            capturing = false;
+        }
+
+        List<QueryInfo> statements() {
+            synchronized (statements) {
+                return new ArrayList<>(statements);
+            }
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (capturing) {
+                synchronized (statements) {
+                    statements.addAll(queryInfoList);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.bankcards.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.feed.CardStatusFeed;
+import com.example.bankcards.limits.SpendingLimits;
+import com.example.bankcards.metrics.CardMetrics;
+import com.example.bankcards.outbox.OutboxEvents;
+import com.example.bankcards.service.DAO.CardServiceDAO;
+import com.example.bankcards.service.Impl.CardServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+
+
+/**
+ * Проверяет регионы кэша второго уровня профиля {@code l2cache}
+ *
+ * <p>Каждое чтение выполняется в отдельной транзакции, как в отдельном запросе,
+ * чтобы попадания шли из кэша второго уровня, а не из контекста персистентности</p>
+ */
+@DataJpaTest
+@ActiveProfiles("l2cache")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({CardServiceImpl.class, CardBalanceCache.class, EntityCacheInvalidator.class, CardMetrics.class,
+        OutboxEvents.class, CardStatusFeed.class, SpendingLimits.class, SecondLevelCacheTest.Config.class})
+class SecondLevelCacheTest {
+    private static final int READS = 20;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardDetailsRepository cardDetailsRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardServiceDAO cardService;
+
+    private Statistics statistics;
+    private long userId;
+    private long fromId;
+    private long toId;
+
+    @BeforeEach
+    void seed() {
+        userId = jdbcTemplate.queryForObject("""
+                INSERT INTO USER_TABLE (username, first_name, last_name, password, phone_number, role)
+                VALUES ('l2_' || gen_random_uuid(), 'Cache', 'User', 'x', '+7' || floor(random() * 1e10)::bigint, 'ROLE_USER')
+                RETURNING id
+                """, Long.class);
+        fromId = insertCard(userId, "100.00");
+        toId = insertCard(userId, "100.00");
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    private long insertCard(long ownerId, String balance) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO CARD_TABLE (bin, last_four, encrypted_card_number, cvv, create_date,
+                                        expiration_date, status, ballance, user_id)
+                VALUES ('491684', '0001', 'enc', '123', CURRENT_DATE, CURRENT_DATE + 1000, 'ACTIVE', ?, ?)
+                RETURNING id
+                """, Long.class, new BigDecimal(balance), ownerId);
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    private List<Card> ownerPage() {
+        return inTransaction(() -> cardRepository
+                .findByOwnerId(userId, PageRequest.of(0, 10, Sort.by("id").descending()))
+                .getContent());
+    }
+
+    private static double hitRatio(CacheRegionStatistics region) {
+        long hits = region.getHitCount();
+        return hits == 0 ? 0 : (double) hits / (hits + region.getMissCount());
+    }
+
+    @Test
+    void user_ShouldBeServedFromCache_AfterFirstLoad() {
+        for (int i = 0; i < READS; i++) {
+            inTransaction(() -> userRepository.findById(userId).orElseThrow());
+        }
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics("user");
+        assertEquals(1, region.getMissCount());
+        assertTrue(hitRatio(region) >= 0.9, "user hit ratio " + hitRatio(region));
+    }
+
+    @Test
+    void cardDetails_ShouldBeServedFromCache_AfterFirstLoad() {
+        for (int i = 0; i < READS; i++) {
+            inTransaction(() -> cardDetailsRepository.findById(fromId).orElseThrow());
+        }
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics("card-details");
+        assertEquals(1, region.getMissCount());
+        assertTrue(hitRatio(region) >= 0.9, "card-details hit ratio " + hitRatio(region));
+    }
+
+    @Test
+    void ownerPage_ShouldBeServedFromQueryCache_AfterFirstLoad() {
+        for (int i = 0; i < READS; i++) {
+            assertEquals(2, ownerPage().size());
+        }
+
+        CacheRegionStatistics region = statistics.getQueryRegionStatistics(EntityCacheInvalidator.CARD_PAGES_REGION);
+        assertTrue(hitRatio(region) >= 0.9, "card-pages hit ratio " + hitRatio(region));
+    }
+
+    @Test
+    void ownerPage_ShouldShowNewBalances_AfterMoneyTransferCommits() {
+        ownerPage();
+        ownerPage();
+
+        cardService.moneyTransfer(fromId, toId, new BigDecimal("30.00"));
+
+        List<Card> page = ownerPage();
+        assertEquals(new BigDecimal("130.00"), page.get(0).getBallance());
+        assertEquals(new BigDecimal("70.00"), page.get(1).getBallance());
+        assertEquals(new BigDecimal("70.00"), cardService.getBalanceSnapshot(fromId).balance());
+    }
+
+    @Test
+    void ownerPage_ShouldShowNewStatus_AfterBulkStatusChangeCommits() {
+        ownerPage();
+        ownerPage();
+
+        assertEquals(List.of(fromId), cardService.changeStatus(CardStatusTransition.BLOCK, List.of(fromId)));
+
+        List<Card> page = ownerPage();
+        assertEquals(CARD_STATUS.BLOCKED, page.get(1).getStatus());
+    }
+}
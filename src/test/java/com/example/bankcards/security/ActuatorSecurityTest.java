@@ -0,0 +1,142 @@
+package com.example.bankcards.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.bankcards.security.ratelimit.RateLimiter;
+import com.example.bankcards.service.DAO.UserServiceDAO;
+
+
+
+/**
+ * Проверяет правила доступа к эндпоинтам actuator
+ *
+ * <p>Без входа открыт только health; id карт из cardcontention и метрики отдаются
+ * только администратору, prometheus — еще и без токена на отдельном порту управления. Эндпоинты заменены заглушками, проверяется цепочка фильтров
+ * из {@link SecurityConfig}</p>
+ */
+@SpringBootTest(classes = ActuatorSecurityTest.Config.class,
+        properties = {
+                "app.security.password.strength=4",
+                "management.server.port=" + ActuatorSecurityTest.MANAGEMENT_PORT
+        })
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+    static final int MANAGEMENT_PORT = 8082;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private TokenRevocationService revocationService;
+
+    @MockitoBean
+    private JwtLogoutHandler logoutHandler;
+
+    @MockitoBean
+    private RateLimiter rateLimiter;
+
+    @MockitoBean(answers = Answers.RETURNS_MOCKS)
+    private UserServiceDAO userService;
+
+    @MockitoBean
+    private PasswordUpgradeService passwordUpgradeService;
+
+    @Test
+    void health_ShouldBePublic() throws Exception {
+        mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void cardContention_ShouldBeForbidden_WhenAnonymous() throws Exception {
+        mvc.perform(get("/actuator/cardcontention")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void cardContention_ShouldBeForbidden_WhenUserIsNotAdmin() throws Exception {
+        mvc.perform(get("/actuator/cardcontention")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void cardContention_ShouldBeAvailable_WhenAdmin() throws Exception {
+        mvc.perform(get("/actuator/cardcontention")).andExpect(status().isOk());
+    }
+
+    @Test
+    void metrics_ShouldBeForbidden_WhenAnonymous() throws Exception {
+        mvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+        mvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void prometheus_ShouldBePublic_OnManagementPort() throws Exception {
+        mvc.perform(get("/actuator/prometheus").with(onManagementPort())).andExpect(status().isOk());
+        mvc.perform(get("/actuator/cardcontention").with(onManagementPort())).andExpect(status().isForbidden());
+    }
+
+    private static RequestPostProcessor onManagementPort() {
+        return request -> {
+            request.setLocalPort(MANAGEMENT_PORT);
+            return request;
+        };
+    }
+
+
+    @Configuration
+    @ImportAutoConfiguration({
+            PropertyPlaceholderAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class
+    })
+    @Import({SecurityConfig.class, JwtAuthenticationFilter.class, RateLimitFilter.class, ActuatorStub.class})
+    static class Config {
+    }
+
+    @RestController
+    static class ActuatorStub {
+        @GetMapping("/actuator/health")
+        String health() {
+            return "{\"status\":\"UP\"}";
+        }
+
+        @GetMapping("/actuator/cardcontention")
+        String cardContention() {
+            return "{}";
+        }
+
+        @GetMapping("/actuator/prometheus")
+        String prometheus() {
+            return "";
+        }
+
+        @GetMapping("/actuator/metrics")
+        String metrics() {
+            return "{}";
+        }
+    }
+}
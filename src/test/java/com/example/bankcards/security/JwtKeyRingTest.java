@@ -0,0 +1,86 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.InvalidKeyException;
+
+
+
+class JwtKeyRingTest {
+    private static final String LEGACY_KEY = "53A73E3F1C4E0A2D3B5F2D084E6B1B423D6F247D1F6E5C9A596D635A75327855";
+
+    @Test
+    void sign_ShouldAddKidHeader_AndVerifyWithSameRing() {
+        JwtKeyRing ring = JwtKeyRing.from(properties(JwtKeyRing.DEFAULT_KID));
+
+        String token = ring.sign(Jwts.builder().subject("user_1")).compact();
+
+        assertEquals(JwtKeyRing.DEFAULT_KID, Jwts.parser().keyLocator(ring).build()
+            .parseSignedClaims(token).getHeader().getKeyId());
+    }
+
+    @Test
+    void rotation_ShouldKeepOldTokensVerifiable() throws Exception {
+        JwtKeyRing before = JwtKeyRing.from(properties(JwtKeyRing.DEFAULT_KID, ecKey("es-1")));
+        String oldToken = before.sign(Jwts.builder().subject("user_1")).compact();
+
+        JwtKeyRing after = JwtKeyRing.from(properties("es-1", ecKey("es-1")));
+        String newToken = after.sign(Jwts.builder().subject("user_2")).compact();
+
+        var parser = Jwts.parser().keyLocator(after).build();
+        assertEquals("user_1", parser.parseSignedClaims(oldToken).getPayload().getSubject());
+        assertEquals("user_2", parser.parseSignedClaims(newToken).getPayload().getSubject());
+    }
+
+    @Test
+    void eddsaKey_ShouldSignAndVerify() throws Exception {
+        KeyPair pair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        JwtKeyRing ring = JwtKeyRing.from(properties("ed-1", asymmetric("ed-1", "EdDSA", pair)));
+
+        String token = ring.sign(Jwts.builder().subject("user_1")).compact();
+
+        assertEquals("user_1", Jwts.parser().keyLocator(ring).build()
+            .parseSignedClaims(token).getPayload().getSubject());
+    }
+
+    @Test
+    void verify_ShouldRejectUnknownKid() throws Exception {
+        JwtKeyRing signer = JwtKeyRing.from(properties("es-1", ecKey("es-1")));
+        JwtKeyRing verifier = JwtKeyRing.from(properties(JwtKeyRing.DEFAULT_KID));
+        String token = signer.sign(Jwts.builder().subject("user_1")).compact();
+
+        assertThrows(InvalidKeyException.class,
+            () -> Jwts.parser().keyLocator(verifier).build().parseSignedClaims(token));
+    }
+
+
+    private static JwtKeyRingProperties properties(String activeKid, JwtKeyRingProperties.KeyProperties... keys) {
+        JwtKeyRingProperties properties = new JwtKeyRingProperties();
+        properties.setKey(LEGACY_KEY);
+        properties.setActiveKid(activeKid);
+        properties.setKeys(List.of(keys));
+        return properties;
+    }
+
+    private static JwtKeyRingProperties.KeyProperties ecKey(String kid) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return asymmetric(kid, "ES256", generator.generateKeyPair());
+    }
+
+    private static JwtKeyRingProperties.KeyProperties asymmetric(String kid, String algorithm, KeyPair pair) {
+        JwtKeyRingProperties.KeyProperties key = new JwtKeyRingProperties.KeyProperties();
+        key.setKid(kid);
+        key.setAlgorithm(algorithm);
+        key.setPrivateKey(Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+        key.setPublicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+        return key;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.example.bankcards.cache.EntityCacheInvalidator;
+import com.example.bankcards.entity.User;
+
+
+
+@ExtendWith(MockitoExtension.class)
+class PasswordUpgradeServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityCacheInvalidator entityCacheInvalidator;
+
+    @InjectMocks
+    private PasswordUpgradeService passwordUpgradeService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteLatestHashPerUserInSingleBatch() {
+        User first = User.builder().username("user_1").build();
+        User second = User.builder().username("user_2").build();
+
+        passwordUpgradeService.updatePassword(first, "{bcrypt}old");
+        passwordUpgradeService.updatePassword(first, "{bcrypt}new");
+        passwordUpgradeService.updatePassword(second, "{bcrypt}other");
+        passwordUpgradeService.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE USER_TABLE SET password = ? WHERE username = ?"), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertEquals("{bcrypt}new", batch.getValue().stream()
+            .filter(row -> row[1].equals("user_1"))
+            .findFirst().orElseThrow()[0]);
+    }
+
+    @Test
+    void flush_ShouldSkipDatabase_WhenNothingPending() {
+        passwordUpgradeService.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void calibrate_ShouldNotGoBelowMinimumStrength() {
+        assertEquals(4, BCryptWorkFactorCalibrator.calibrate(0, 4, 6, strength -> 0));
+    }
+
+    @Test
+    void calibrate_ShouldPickLargestStrengthFasterThanTarget() {
+        IntToLongFunction doublingNanos = strength -> TimeUnit.MILLISECONDS.toNanos(1L << (strength - 4));
+
+        assertEquals(6, BCryptWorkFactorCalibrator.calibrate(5, 4, 10, doublingNanos));
+        assertEquals(5, BCryptWorkFactorCalibrator.calibrate(4, 4, 10, doublingNanos));
+        assertEquals(7, BCryptWorkFactorCalibrator.calibrate(1_000, 4, 7, doublingNanos));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.bankcards.security.ratelimit.RateLimitConfig;
+import com.example.bankcards.security.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+/**
+ * Проверяет, что за доверенным прокси лимит считается по адресу из {@code X-Forwarded-For}
+ *
+ * <p>Запросы идут через настоящий Tomcat с настройками {@code server.*} из application.yml;
+ * тест подключается с loopback-адреса, который входит в список доверенных прокси</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = RateLimitFilterTest.Config.class,
+        properties = {
+                "app.rate-limit.client.capacity=1",
+                "app.rate-limit.client.refill-period=1h"
+        })
+class RateLimitFilterTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void clientsBehindTrustedProxy_ShouldHaveSeparateBuckets() {
+        assertEquals(HttpStatus.OK, signIn("203.0.113.1"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, signIn("203.0.113.1"));
+
+        assertEquals(HttpStatus.OK, signIn("203.0.113.2"));
+    }
+
+    @Test
+    void forwardedChain_ShouldUseFirstAddressBeforeTrustedProxies() {
+        assertEquals(HttpStatus.OK, signIn("198.51.100.7, 10.0.0.5"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, signIn("198.51.100.7, 10.0.0.6"));
+    }
+
+    private HttpStatus signIn(String forwardedFor) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", forwardedFor);
+        return HttpStatus.valueOf(rest.postForEntity("/sign-in", new HttpEntity<>(headers), String.class)
+                .getStatusCode().value());
+    }
+
+
+    @Configuration
+    @ImportAutoConfiguration({
+            PropertyPlaceholderAutoConfiguration.class,
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class
+    })
+    @Import({RateLimitFilter.class, RateLimiter.class, RateLimitConfig.class, SignInStub.class})
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @RestController
+    static class SignInStub {
+        @PostMapping("/sign-in")
+        String signIn() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.example.bankcards.exception.UserException.TooManyRequestsException;
+import com.example.bankcards.security.ratelimit.InMemoryRateLimitBackend;
+import com.example.bankcards.security.ratelimit.RateLimitPolicy;
+import com.example.bankcards.security.ratelimit.RateLimiter;
+import com.example.bankcards.security.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+
+class RateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new RateLimiter(
+            new InMemoryRateLimitBackend(1000),
+            meterRegistry,
+            true,
+            3, Duration.ofMinutes(1),
+            2, Duration.ofMinutes(1)
+        );
+    }
+
+    @Test
+    void tokenBucket_ShouldAllowBurstUpToCapacity_ThenRefill() {
+        RateLimitPolicy policy = new RateLimitPolicy(2, Duration.ofSeconds(2));
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(now);
+
+        assertTrue(bucket.tryConsume(now, policy));
+        assertTrue(bucket.tryConsume(now, policy));
+        assertFalse(bucket.tryConsume(now, policy));
+
+        long afterOneToken = now + Duration.ofSeconds(1).toNanos();
+        assertTrue(bucket.tryConsume(afterOneToken, policy));
+        assertFalse(bucket.tryConsume(afterOneToken, policy));
+    }
+
+    @Test
+    void tryAcquireForClient_ShouldRejectAfterCapacity_AndCountRejection() {
+        assertEquals(0, rateLimiter.tryAcquireForClient("10.0.0.1"));
+        assertEquals(0, rateLimiter.tryAcquireForClient("10.0.0.1"));
+        assertEquals(0, rateLimiter.tryAcquireForClient("10.0.0.1"));
+
+        assertTrue(rateLimiter.tryAcquireForClient("10.0.0.1") > 0);
+        assertEquals(0, rateLimiter.tryAcquireForClient("10.0.0.2"));
+        assertEquals(1.0, meterRegistry.get("auth.rate.limit.rejected").tag("key", "client").counter().count());
+    }
+
+    @Test
+    void checkPhone_ShouldThrowTooManyRequests_WhenPhoneLimitExceeded() {
+        rateLimiter.checkPhone("+79991112233");
+        rateLimiter.checkPhone("+79991112233");
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+            () -> rateLimiter.checkPhone("+79991112233"));
+        assertTrue(ex.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("auth.rate.limit.rejected").tag("key", "phone").counter().count());
+    }
+
+    @Test
+    void inMemoryBackend_ShouldEvictLeastRecentlyUsedBuckets() {
+        InMemoryRateLimitBackend backend = new InMemoryRateLimitBackend(16);
+        RateLimitPolicy policy = new RateLimitPolicy(1, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 1000; i++) {
+            backend.tryAcquire("ip:" + i, policy);
+        }
+
+        assertTrue(backend.size() <= 16);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.example.bankcards.entity.RevokedToken;
+import com.example.bankcards.repository.RevokedTokenRepository;
+import com.example.bankcards.util.BloomFilter;
+
+
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository repository;
+
+    @InjectMocks
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(revocationService, "expectedTokens", 1000L);
+        ReflectionTestUtils.setField(revocationService, "falsePositiveRate", 0.001);
+        RevokedToken loaded = RevokedToken.builder()
+            .jti("revoked-at-startup")
+            .expiresAt(Instant.now().plusSeconds(60))
+            .build();
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(loaded));
+        ReflectionTestUtils.invokeMethod(revocationService, "init");
+    }
+
+    @Test
+    void isRevoked_ShouldNotQueryDatabase_ForUnknownToken() {
+        assertFalse(revocationService.isRevoked("never-revoked"));
+
+        verify(repository, never()).existsById(anyString());
+    }
+
+    @Test
+    void isRevoked_ShouldReturnTrue_ForTokensLoadedAtStartupAndRevokedLater() {
+        revocationService.revoke("revoked-now", Instant.now().plusSeconds(60));
+
+        assertTrue(revocationService.isRevoked("revoked-at-startup"));
+        assertTrue(revocationService.isRevoked("revoked-now"));
+        verify(repository, never()).existsById(anyString());
+    }
+
+    @Test
+    void bloomFilter_ShouldNeverReturnFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (filter.mightContain("jti-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+    }
+}
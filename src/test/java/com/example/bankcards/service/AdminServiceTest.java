@@ -7,21 +7,36 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
 import com.example.bankcards.dto.AddBallanceRequestDTO;
+import com.example.bankcards.dto.BulkCardStatusRequest;
+import com.example.bankcards.dto.BulkCardStatusResponse;
+import com.example.bankcards.dto.BulkDeleteUsersResponse;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardDetails;
+import com.example.bankcards.entity.CardStatusTransition;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardException.CardBlockException;
+import com.example.bankcards.exception.CardException.CardNotFoundException;
+import com.example.bankcards.limits.SpendingLimits;
 import com.example.bankcards.service.DAO.CardServiceDAO;
 import com.example.bankcards.service.DAO.UserServiceDAO;
 import com.example.bankcards.service.Impl.AdminServiceImpl;
+import com.example.bankcards.util.CardExportFormat;
+import com.example.bankcards.util.CardExportWriter;
 import com.example.bankcards.util.CardGenerator;
+import java.io.ByteArrayOutputStream;
+import java.util.stream.Stream;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -37,6 +52,12 @@ class AdminServiceTest {
     @Mock
     private CardGenerator cardGenerator;
 
+    @Mock
+    private CardExportWriter cardExportWriter;
+
+    @Mock
+    private SpendingLimits spendingLimits;
+
     @InjectMocks
     private AdminServiceImpl adminService;
 
@@ -52,7 +73,7 @@ class AdminServiceTest {
         
         when(userService.getUserById(ownerId)).thenReturn(owner);
         when(cardGenerator.generateCard(owner)).thenReturn(generatedCard);
-        when(cardService.save(generatedCard)).thenReturn(generatedCard);
+        when(cardService.create(generatedCard)).thenReturn(generatedCard);
 
        
         Card result = adminService.createCard(ownerId);
@@ -61,7 +82,7 @@ class AdminServiceTest {
         assertEquals(generatedCard, result);
         verify(userService).getUserById(ownerId);
         verify(cardGenerator).generateCard(owner);
-        verify(cardService).save(generatedCard);
+        verify(cardService).create(generatedCard);
     }
 
     @Test
@@ -71,10 +92,9 @@ class AdminServiceTest {
         String encryptedNumber = "encrypted123";
         String decryptedNumber = "1234567890123456";
         
-        Card card = new Card();
-        card.setEncryptedCardNumber(encryptedNumber);
+        CardDetails card = new CardDetails(cardId, 2L, "400000", "3456", encryptedNumber, null, null);
         
-        when(cardService.getCardById(cardId)).thenReturn(card);
+        when(cardService.getCardDetails(cardId)).thenReturn(card);
         when(cardGenerator.decryptCardNumber(encryptedNumber)).thenReturn(decryptedNumber);
 
       
@@ -82,7 +102,7 @@ class AdminServiceTest {
 
         
         assertEquals(decryptedNumber, result);
-        verify(cardService).getCardById(cardId);
+        verify(cardService).getCardDetails(cardId);
         verify(cardGenerator).decryptCardNumber(encryptedNumber);
     }
 
@@ -148,65 +168,92 @@ class AdminServiceTest {
     void approveBlock_ShouldBlockCard_WhenStatusIsPendingBlock() {
        
         Long cardId = 1L;
-        Card card = new Card();
-        card.setStatus(CARD_STATUS.PENDING_BLOCK);
-        
-        when(cardService.getCardById(cardId)).thenReturn(card);
-        doNothing().when(cardService).block(cardId);
+        when(cardService.changeStatus(CardStatusTransition.APPROVE_BLOCK, List.of(cardId))).thenReturn(List.of(cardId));
 
         adminService.approveBlock(cardId);
 
       
-        verify(cardService).getCardById(cardId);
-        verify(cardService).block(cardId);
+        verify(cardService).changeStatus(CardStatusTransition.APPROVE_BLOCK, List.of(cardId));
+        verify(cardService, never()).getCardById(anyLong());
     }
 
     @Test
     void approveBlock_ShouldThrowException_WhenStatusIsNotPendingBlock() {
       
         Long cardId = 1L;
-        Card card = new Card();
-        card.setStatus(CARD_STATUS.ACTIVE);
-        
-        when(cardService.getCardById(cardId)).thenReturn(card);
+        when(cardService.changeStatus(CardStatusTransition.APPROVE_BLOCK, List.of(cardId))).thenReturn(List.of());
+        when(cardService.getCardById(cardId)).thenReturn(new Card());
 
         
         assertThrows(CardBlockException.class, () -> adminService.approveBlock(cardId));
         verify(cardService).getCardById(cardId);
-        verify(cardService, never()).block(anyLong());
+    }
+
+    @Test
+    void approveBlock_ShouldThrowNotFound_WhenCardDoesNotExist() {
+
+        Long cardId = 1L;
+        when(cardService.changeStatus(CardStatusTransition.APPROVE_BLOCK, List.of(cardId))).thenReturn(List.of());
+        when(cardService.getCardById(cardId)).thenThrow(new CardNotFoundException(cardId));
+
+
+        assertThrows(CardNotFoundException.class, () -> adminService.approveBlock(cardId));
     }
 
     @Test
     void rejectBlock_ShouldActivateCard_WhenStatusIsPendingBlock() {
        
         Long cardId = 1L;
-        Card card = new Card();
-        card.setStatus(CARD_STATUS.PENDING_BLOCK);
-        
-        when(cardService.getCardById(cardId)).thenReturn(card);
-        doNothing().when(cardService).activate(cardId);
+        when(cardService.changeStatus(CardStatusTransition.REJECT_BLOCK, List.of(cardId))).thenReturn(List.of(cardId));
 
      
         adminService.rejectBlock(cardId);
 
      
-        verify(cardService).getCardById(cardId);
-        verify(cardService).activate(cardId);
+        verify(cardService).changeStatus(CardStatusTransition.REJECT_BLOCK, List.of(cardId));
+        verify(cardService, never()).getCardById(anyLong());
     }
 
     @Test
     void rejectBlock_ShouldThrowException_WhenStatusIsNotPendingBlock() {
       
         Long cardId = 1L;
-        Card card = new Card();
-        card.setStatus(CARD_STATUS.BLOCKED);
-        
-        when(cardService.getCardById(cardId)).thenReturn(card);
+        when(cardService.changeStatus(CardStatusTransition.REJECT_BLOCK, List.of(cardId))).thenReturn(List.of());
+        when(cardService.getCardById(cardId)).thenReturn(new Card());
 
         
         assertThrows(CardBlockException.class, () -> adminService.rejectBlock(cardId));
         verify(cardService).getCardById(cardId);
-        verify(cardService, never()).activate(anyLong());
+    }
+
+    @Test
+    void changeCardsStatus_ShouldReportSkippedIds_ForIdList() {
+
+        BulkCardStatusRequest request = new BulkCardStatusRequest(List.of(3L, 1L, 2L), null);
+        when(cardService.changeStatus(eq(CardStatusTransition.APPROVE_BLOCK), any())).thenReturn(List.of(1L, 3L));
+
+
+        BulkCardStatusResponse response = adminService.changeCardsStatus(CardStatusTransition.APPROVE_BLOCK, request);
+
+
+        assertEquals(List.of(1L, 3L), response.getUpdatedIds());
+        assertEquals(List.of(2L), response.getSkippedIds());
+    }
+
+    @Test
+    void changeCardsStatus_ShouldUseLimit_ForChangedBeforeFilter() {
+
+        Instant before = Instant.parse("2025-01-01T00:00:00Z");
+        ReflectionTestUtils.setField(adminService, "bulkMaxCards", 500);
+        when(cardService.changeStatusBefore(CardStatusTransition.APPROVE_BLOCK, before, 500)).thenReturn(List.of(7L));
+
+
+        BulkCardStatusResponse response = adminService.changeCardsStatus(
+                CardStatusTransition.APPROVE_BLOCK, new BulkCardStatusRequest(null, before));
+
+
+        assertEquals(List.of(7L), response.getUpdatedIds());
+        assertTrue(response.getSkippedIds().isEmpty());
     }
 
     @Test
@@ -230,28 +277,32 @@ class AdminServiceTest {
     void deleteUser_ShouldDeleteUserAndAllCards() {
         
         Long userId = 1L;
-        User user = new User();
-        user.setId(userId);
-        
-        Card card1 = new Card();
-        card1.setId(1L);
-        Card card2 = new Card();
-        card2.setId(2L);
-        user.setCards(List.of(card1, card2));
-        
-        when(userService.getUserById(userId)).thenReturn(user);
-        doNothing().when(cardService).delete(1L);
-        doNothing().when(cardService).delete(2L);
         doNothing().when(userService).delete(userId);
 
     
         adminService.deleteUser(userId);
 
        
-        verify(userService).getUserById(userId);
-        verify(cardService).delete(1L);
-        verify(cardService).delete(2L);
         verify(userService).delete(userId);
+        verify(userService, never()).getUserById(anyLong());
+        verify(cardService, never()).delete(anyLong());
+    }
+
+    @Test
+    void deleteUsers_ShouldDeleteInChunks_AndReportNotFound() {
+
+        ReflectionTestUtils.setField(adminService, "deleteChunkSize", 2);
+        when(userService.deleteAll(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(userService.deleteAll(List.of(3L, 4L))).thenReturn(List.of(4L));
+        when(userService.deleteAll(List.of(5L))).thenReturn(List.of(5L));
+
+
+        BulkDeleteUsersResponse response = adminService.deleteUsers(List.of(1L, 2L, 3L, 4L, 5L, 1L));
+
+
+        assertEquals(4, response.getDeleted());
+        assertEquals(List.of(3L), response.getNotFoundIds());
+        verify(userService, times(3)).deleteAll(any());
     }
 
     @Test
@@ -268,7 +319,7 @@ class AdminServiceTest {
         Card card = new Card();
         card.setBallance(initialBalance);
         
-        when(cardService.getCardById(cardId)).thenReturn(card);
+        when(cardService.getCardByIdWithLock(cardId)).thenReturn(card);
         when(cardService.save(card)).thenReturn(card);
 
     
@@ -276,7 +327,21 @@ class AdminServiceTest {
 
       
         assertEquals(initialBalance.add(addedAmount), card.getBallance());
-        verify(cardService).getCardById(cardId);
+        verify(cardService).getCardByIdWithLock(cardId);
         verify(cardService).save(card);
     }
-}
\ No newline at end of file
+
+    @Test
+    void exportAllCards_ShouldWriteStreamedCardsAndCloseStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean[] closed = {false};
+        Stream<CardDto> cards = Stream.of(new CardDto()).onClose(() -> closed[0] = true);
+        when(cardService.streamAllCards()).thenReturn(cards);
+        when(cardExportWriter.write(eq(CardExportFormat.CSV), any(), eq(out))).thenReturn(1L);
+
+        adminService.exportAllCards(CardExportFormat.CSV, out);
+
+        verify(cardExportWriter).write(eq(CardExportFormat.CSV), any(), eq(out));
+        assertTrue(closed[0]);
+    }
+}
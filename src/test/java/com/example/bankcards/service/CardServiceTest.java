@@ -12,6 +12,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,13 +23,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.EntityCacheInvalidator;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardDetails;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardException.CardNotFoundException;
 import com.example.bankcards.exception.CardException.CardTransferMoneyException;
+import com.example.bankcards.feed.CardStatusFeed;
+import com.example.bankcards.limits.SpendingLimits;
+import com.example.bankcards.metrics.CardMetrics;
+import com.example.bankcards.outbox.OutboxEvents;
+import com.example.bankcards.repository.CardDetailsRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransferRepository;
 import com.example.bankcards.service.Impl.CardServiceImpl;
 
 
@@ -38,6 +49,30 @@ class CardServiceTest {
     @Mock
     private CardRepository repository;
 
+    @Mock
+    private CardBalanceCache balanceCache;
+
+    @Mock
+    private CardDetailsRepository detailsRepository;
+
+    @Mock
+    private EntityCacheInvalidator entityCacheInvalidator;
+
+    @Mock
+    private CardMetrics cardMetrics;
+
+    @Mock
+    private CardTransferRepository transferRepository;
+
+    @Mock
+    private OutboxEvents outboxEvents;
+
+    @Mock
+    private CardStatusFeed statusFeed;
+
+    @Mock
+    private SpendingLimits spendingLimits;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -117,17 +152,14 @@ class CardServiceTest {
     
         Long userId = 1L;
         Long cardId = 1L;
-        User owner = new User();
-        owner.setId(userId);
-        Card card = new Card();
-        card.setOwner(owner);
-        when(repository.findById(cardId)).thenReturn(Optional.of(card));
+        CardDetails details = new CardDetails(cardId, userId, "400000", "3456", "encrypted", null, null);
+        when(detailsRepository.findById(cardId)).thenReturn(Optional.of(details));
 
     
         boolean result = cardService.checkUserCard(userId, cardId);
 
         assertTrue(result);
-        verify(repository).findById(cardId);
+        verify(detailsRepository).findById(cardId);
     }
 
     @Test
@@ -135,17 +167,14 @@ class CardServiceTest {
         
         Long userId = 1L;
         Long cardId = 1L;
-        User owner = new User();
-        owner.setId(2L); 
-        Card card = new Card();
-        card.setOwner(owner);
-        when(repository.findById(cardId)).thenReturn(Optional.of(card));
+        CardDetails details = new CardDetails(cardId, 2L, "400000", "3456", "encrypted", null, null);
+        when(detailsRepository.findById(cardId)).thenReturn(Optional.of(details));
 
      
         boolean result = cardService.checkUserCard(userId, cardId);
 
         assertFalse(result);
-        verify(repository).findById(cardId);
+        verify(detailsRepository).findById(cardId);
     }
 
     @Test
@@ -154,14 +183,15 @@ class CardServiceTest {
         Long cardId = 1L;
         Card card = new Card();
         card.setStatus(CARD_STATUS.ACTIVE);
-        when(repository.findById(cardId)).thenReturn(Optional.of(card));
+        when(repository.findByIdWithLock(cardId)).thenReturn(Optional.of(card));
         when(repository.save(card)).thenReturn(card);
 
         cardService.userBlockCard(cardId);
 
         assertEquals(CARD_STATUS.PENDING_BLOCK, card.getStatus());
-        verify(repository).findById(cardId);
+        verify(repository).findByIdWithLock(cardId);
         verify(repository).save(card);
+        verify(balanceCache).updateAfterCommit(card);
     }
 
     @Test
@@ -314,7 +344,7 @@ class CardServiceTest {
         Long cardId = 1L;
         Card card = new Card();
         card.setStatus(CARD_STATUS.ACTIVE);
-        when(repository.findById(cardId)).thenReturn(Optional.of(card));
+        when(repository.findByIdWithLock(cardId)).thenReturn(Optional.of(card));
         when(repository.save(card)).thenReturn(card);
 
    
@@ -322,8 +352,45 @@ class CardServiceTest {
 
      
         assertEquals(CARD_STATUS.BLOCKED, card.getStatus());
-        verify(repository).findById(cardId);
+        verify(repository).findByIdWithLock(cardId);
         verify(repository).save(card);
+        verify(outboxEvents).cardStatusChanged(cardId, CARD_STATUS.BLOCKED);
+        verify(statusFeed).publishAfterCommit(List.of(cardId), CARD_STATUS.BLOCKED);
+    }
+
+    @Test
+    void renewCards_ShouldMoveBalanceToNewCard() {
+
+        User owner = new User();
+        Card expiring = new Card();
+        expiring.setId(1L);
+        expiring.setOwner(owner);
+        expiring.setStatus(CARD_STATUS.ACTIVE);
+        expiring.setBallance(new BigDecimal("42.00"));
+        Card blocked = new Card();
+        blocked.setId(2L);
+        blocked.setStatus(CARD_STATUS.BLOCKED);
+        blocked.setBallance(BigDecimal.TEN);
+        Card replacement = new Card();
+        when(repository.findAllByIdWithLock(any())).thenReturn(List.of(expiring, blocked));
+        when(repository.save(replacement)).thenAnswer(invocation -> {
+            replacement.setId(3L);
+            return replacement;
+        });
+        when(repository.save(expiring)).thenReturn(expiring);
+
+
+        List<Card> renewed = cardService.renewCards(Map.of(1L, replacement, 2L, new Card()));
+
+
+        assertEquals(List.of(replacement), renewed);
+        assertEquals(owner, replacement.getOwner());
+        assertEquals(new BigDecimal("42.00"), replacement.getBallance());
+        assertEquals(new BigDecimal("0.00"), expiring.getBallance());
+        assertEquals(CARD_STATUS.INACTIVE, expiring.getStatus());
+        assertEquals(3L, expiring.getReplacedByCardId());
+        assertEquals(BigDecimal.TEN, blocked.getBallance());
+        verify(outboxEvents).cardRenewed(expiring, replacement);
     }
 
     @Test
@@ -338,6 +405,7 @@ class CardServiceTest {
    
         verify(repository).existsById(cardId);
         verify(repository).deleteById(cardId);
+        verify(entityCacheInvalidator).cardsRemoved(List.of(cardId));
     }
 
     @Test
@@ -358,7 +426,7 @@ class CardServiceTest {
         Long cardId = 1L;
         Card card = new Card();
         card.setStatus(CARD_STATUS.BLOCKED);
-        when(repository.findById(cardId)).thenReturn(Optional.of(card));
+        when(repository.findByIdWithLock(cardId)).thenReturn(Optional.of(card));
         when(repository.save(card)).thenReturn(card);
 
      
@@ -366,7 +434,7 @@ class CardServiceTest {
 
      
         assertEquals(CARD_STATUS.ACTIVE, card.getStatus());
-        verify(repository).findById(cardId);
+        verify(repository).findByIdWithLock(cardId);
         verify(repository).save(card);
     }
 
@@ -7,13 +7,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.CardBalanceSnapshot;
+import com.example.bankcards.cache.EntityCacheInvalidator;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.TransferRequestDTO;
+import com.example.bankcards.entity.CARD_STATUS;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardDetails;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.UserException.UserAlreadyExistException;
 import com.example.bankcards.exception.UserException.UserNotFoundException;
@@ -44,6 +51,12 @@ class UserServiceTest {
     @Mock
     private CardGenerator cardGenerator;
 
+    @Mock
+    private CardBalanceCache balanceCache;
+
+    @Mock
+    private EntityCacheInvalidator entityCacheInvalidator;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -244,26 +257,35 @@ class UserServiceTest {
         Long cardId = 1L;
         BigDecimal expectedBalance = BigDecimal.valueOf(1000);
 
-        User currentUser = new User();
-        currentUser.setId(currentUserId);
-        
-        Authentication authentication = mock(Authentication.class);
-        when(authentication.getName()).thenReturn("testUser");
-        SecurityContext securityContext = mock(SecurityContext.class);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        SecurityContextHolder.setContext(securityContext);
+        User principal = User.builder().id(currentUserId).username("testUser").build();
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of())));
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(currentUser));
-        when(cardService.checkUserCard(currentUserId, cardId)).thenReturn(true);
-        when(cardService.getBallance(cardId)).thenReturn(expectedBalance);
+        when(cardService.getBalanceSnapshot(cardId)).thenReturn(
+                new CardBalanceSnapshot(cardId, currentUserId, CARD_STATUS.ACTIVE, expectedBalance, 3));
 
      
         BigDecimal result = userService.getUserBallance(cardId);
 
       
         assertEquals(expectedBalance, result);
-        verify(cardService).checkUserCard(currentUserId, cardId);
-        verify(cardService).getBallance(cardId);
+        verifyNoInteractions(userRepository);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getUserBallance_ShouldThrowException_WhenCardBelongsToAnotherUser() {
+
+        Long cardId = 1L;
+        User principal = User.builder().id(1L).username("testUser").build();
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of())));
+
+        when(cardService.getBalanceSnapshot(cardId)).thenReturn(
+                new CardBalanceSnapshot(cardId, 2L, CARD_STATUS.ACTIVE, BigDecimal.TEN, 0));
+
+        assertThrows(UserNotOwnsThisCardException.class, () -> userService.getUserBallance(cardId));
+        SecurityContextHolder.clearContext();
     }
 
     @Test
@@ -312,11 +334,15 @@ class UserServiceTest {
 
         when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(currentUser));
         when(cardService.checkUserCard(currentUserId, cardId)).thenReturn(true);
+        Card card = new Card();
+        card.setStatus(CARD_STATUS.ACTIVE);
+        when(cardService.getCardByIdWithLock(cardId)).thenReturn(card);
 
       
         userService.requestCardBlock(cardId);
 
         verify(cardService).checkUserCard(currentUserId, cardId);
+        verify(cardService).getCardByIdWithLock(cardId);
         verify(cardService).userBlockCard(cardId);
     }
 
@@ -343,17 +369,26 @@ class UserServiceTest {
     void delete_ShouldDeleteUser() {
         
         Long userId = 1L;
-        User userToDelete = new User();
-        userToDelete.setId(userId);
-        
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userToDelete));
+        when(userRepository.deleteUserById(userId)).thenReturn(1);
 
      
         userService.delete(userId);
 
     
-        verify(userRepository).findById(userId);
-        verify(userRepository).delete(userToDelete);
+        verify(userRepository).deleteUserById(userId);
+        verify(balanceCache).evictOwnersAfterCommit(List.of(userId));
+        verify(entityCacheInvalidator).ownersRemoved(List.of(userId));
+        verify(userRepository, never()).findById(userId);
+    }
+
+    @Test
+    void delete_ShouldThrowException_WhenUserNotFound() {
+
+        Long userId = 1L;
+        when(userRepository.deleteUserById(userId)).thenReturn(0);
+
+
+        assertThrows(UserNotFoundException.class, () -> userService.delete(userId));
     }
 
     @Test
@@ -375,19 +410,16 @@ class UserServiceTest {
 
         when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(currentUser));
         
-        Card card = new Card();
-        card.setId(cardId);
-        card.setOwner(currentUser);
-        card.setEncryptedCardNumber(encryptedNumber);
+        CardDetails card = new CardDetails(cardId, currentUserId, "400000", "3456", encryptedNumber, null, null);
         
-        when(cardService.getCardById(cardId)).thenReturn(card);
+        when(cardService.getCardDetails(cardId)).thenReturn(card);
         when(cardGenerator.decryptCardNumber(encryptedNumber)).thenReturn(decryptedNumber);
 
       
         String result = userService.getDecryptCardNumber(cardId);
 
         assertEquals(decryptedNumber, result);
-        verify(cardService).getCardById(cardId);
+        verify(cardService).getCardDetails(cardId);
         verify(cardGenerator).decryptCardNumber(encryptedNumber);
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.bankcards.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.CARD_STATUS;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+
+
+class CardExportWriterTest {
+
+    private final CardExportWriter writer = new CardExportWriter(JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build());
+
+    private final List<CardDto> cards = List.of(
+            new CardDto(1L, "491684", "6486", "589", LocalDate.of(2028, 7, 11), CARD_STATUS.ACTIVE, new BigDecimal("10.50")),
+            new CardDto(2L, "491684", "1234", "111", LocalDate.of(2029, 1, 1), CARD_STATUS.BLOCKED, BigDecimal.ZERO));
+
+    @Test
+    void write_ShouldWriteOneJsonObjectPerLine_ForNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = writer.write(CardExportFormat.NDJSON, cards.iterator(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":1,\"bin\":\"491684\",\"lastFour\":\"6486\",\"expirationDate\":\"2028-07-11\","
+                + "\"status\":\"ACTIVE\",\"ballance\":10.50}", lines[0]);
+    }
+
+    @Test
+    void write_ShouldWriteHeaderAndRows_ForCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = writer.write(CardExportFormat.CSV, cards.iterator(), out);
+
+        assertEquals(2, count);
+        assertEquals("""
+                id,bin,last_four,expiration_date,status,ballance
+                1,491684,6486,2028-07-11,ACTIVE,10.50
+                2,491684,1234,2029-01-01,BLOCKED,0
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+}